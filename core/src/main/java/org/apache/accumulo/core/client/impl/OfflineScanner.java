@@ -23,6 +23,13 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.AccumuloException;
@@ -59,6 +66,7 @@ import org.apache.accumulo.core.security.thrift.Credential;
 import org.apache.accumulo.core.util.ArgumentChecker;
 import org.apache.accumulo.core.util.CachedConfiguration;
 import org.apache.accumulo.core.util.LocalityGroupUtil;
+import org.apache.accumulo.core.util.NamingThreadFactory;
 import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.core.util.UtilWaitThread;
 import org.apache.commons.lang.NotImplementedException;
@@ -114,6 +122,23 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
   private Instance instance;
   private ScannerOptions options;
   private ArrayList<SortedKeyValueIterator<Key,Value>> readers;
+  private Opening<OpeningTablet> pendingTablet = null;
+  private long entriesFromTablet = 0;
+  
+  private Configuration conf;
+  private FileSystem fs;
+  private AccumuloConfiguration acuTableConf;
+  private byte[] defaultSecurityLabel;
+  
+  private static final ThreadPoolExecutor openPool = new ThreadPoolExecutor(16, 16, 3l, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+      new NamingThreadFactory("Accumulo offline file opener"));
+  
+  static {
+    openPool.allowCoreThreadTimeOut(true);
+  }
+  
+  // the next tablet is only opened early once this many entries of the current tablet are read, so a scan that stops early does not leave its files open
+  private static final long PREFETCH_AFTER_ENTRIES = Constants.SCAN_BATCH_SIZE;
   
   /**
    * @param instance
@@ -136,6 +161,13 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
     
     try {
       conn = instance.getConnector(credentials);
+      
+      // the table's configuration can not change while it is offline, so only get it once
+      acuTableConf = AccumuloConfiguration.getTableConfiguration(conn, tableId);
+      conf = CachedConfiguration.getInstance();
+      fs = FileUtil.getFileSystem(conf, instance.getConfiguration());
+      defaultSecurityLabel = new ColumnVisibility(acuTableConf.get(Property.TABLE_DEFAULT_SCANTIME_VISIBILITY)).getExpression();
+      
       nextTablet();
       
       while (iter != null && !iter.hasTop())
@@ -160,6 +192,9 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
       
       iter.next();
       
+      if (++entriesFromTablet == PREFETCH_AFTER_ENTRIES)
+        startOpeningNextTablet();
+      
       while (iter != null && !iter.hasTop())
         nextTablet();
       
@@ -169,6 +204,75 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
     }
   }
   
+  /**
+   * Something opened in the background that must be closed if it is abandoned. Cancelling a future does not stop a task that is already running, and drops
+   * whatever it then returns, so the result is handed off under a lock: whichever of the task and {@link #abandon()} comes second closes it.
+   */
+  private static abstract class Opening<T> {
+    private boolean abandoned = false;
+    private boolean handedOff = false;
+    
+    final FutureTask<T> future = new FutureTask<T>(new Callable<T>() {
+      @Override
+      public T call() throws Exception {
+        synchronized (Opening.this) {
+          if (abandoned)
+            return null;
+        }
+        
+        T result = open();
+        
+        synchronized (Opening.this) {
+          if (!abandoned) {
+            handedOff = true;
+            return result;
+          }
+        }
+        
+        close(result);
+        return null;
+      }
+    });
+    
+    abstract T open() throws Exception;
+    
+    abstract void close(T result) throws Exception;
+    
+    Opening<T> start() {
+      openPool.execute(future);
+      return this;
+    }
+    
+    void abandon() {
+      boolean closeHere;
+      synchronized (this) {
+        abandoned = true;
+        closeHere = handedOff;
+      }
+      
+      try {
+        if (closeHere)
+          close(future.get());
+        else
+          future.cancel(false);
+      } catch (Exception e) {
+        // closing failed; there is nothing more to do
+      }
+    }
+  }
+  
+  /**
+   * A tablet whose files are being opened.
+   */
+  private static class OpeningTablet {
+    KeyExtent extent;
+    List<Opening<FileSKVIterator>> readers = new ArrayList<Opening<FileSKVIterator>>();
+  }
+  
+  private boolean isLastTablet(KeyExtent extent) {
+    return extent.getEndRow() == null || range.afterEndKey(new Key(extent.getEndRow()).followingKey(PartialKey.ROW));
+  }
+  
   /**
    * @throws TableNotFoundException
    * @throws IOException
@@ -177,9 +281,58 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
    */
   private void nextTablet() throws TableNotFoundException, AccumuloException, IOException {
     
+    OpeningTablet tablet;
+    
+    if (pendingTablet != null) {
+      tablet = get(pendingTablet.future);
+      pendingTablet = null;
+    } else if (currentExtent != null && isLastTablet(currentExtent)) {
+      tablet = null;
+    } else {
+      tablet = openTablet(currentExtent);
+    }
+    
+    if (tablet == null) {
+      iter = null;
+      closeReaders();
+      return;
+    }
+    
+    iter = createIterator(tablet);
+    iter.seek(range, LocalityGroupUtil.families(options.fetchedColumns), options.fetchedColumns.size() == 0 ? false : true);
+    currentExtent = tablet.extent;
+    entriesFromTablet = 0;
+  }
+  
+  /**
+   * Finds and starts opening the next tablet's files while the current tablet is read.
+   */
+  private void startOpeningNextTablet() {
+    if (iter == null || pendingTablet != null || isLastTablet(currentExtent))
+      return;
+    
+    final KeyExtent prevExtent = currentExtent;
+    pendingTablet = new Opening<OpeningTablet>() {
+      @Override
+      OpeningTablet open() throws Exception {
+        return openTablet(prevExtent);
+      }
+      
+      @Override
+      void close(OpeningTablet tablet) {
+        OfflineIterator.this.abandon(tablet);
+      }
+    }.start();
+  }
+  
+  /**
+   * Looks up the tablet following prevExtent, or the first tablet of the range if prevExtent is null, and starts opening its files in the background.
+   */
+  private OpeningTablet openTablet(KeyExtent prevExtent) throws TableNotFoundException, AccumuloException {
+    
     Range nextRange = null;
     
-    if (currentExtent == null) {
+    if (prevExtent == null) {
       Text startRow;
       
       if (range.getStartKey() != null)
@@ -189,18 +342,7 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
       
       nextRange = new Range(new KeyExtent(new Text(tableId), startRow, null).getMetadataEntry(), true, null, false);
     } else {
-      
-      if (currentExtent.getEndRow() == null) {
-        iter = null;
-        return;
-      }
-      
-      if (range.afterEndKey(new Key(currentExtent.getEndRow()).followingKey(PartialKey.ROW))) {
-        iter = null;
-        return;
-      }
-      
-      nextRange = new Range(currentExtent.getMetadataEntry(), false, null, false);
+      nextRange = new Range(prevExtent.getMetadataEntry(), false, null, false);
     }
     
     List<String> relFiles = new ArrayList<String>();
@@ -217,6 +359,7 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
       
       UtilWaitThread.sleep(250);
       
+      relFiles.clear();
       eloc = getTabletFiles(nextRange, relFiles);
     }
     
@@ -226,22 +369,67 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
       throw new AccumuloException(" did not find tablets for table " + tableId + " " + extent);
     }
     
-    if (currentExtent != null && !extent.isPreviousExtent(currentExtent))
-      throw new AccumuloException(" " + currentExtent + " is not previous extent " + extent);
+    if (prevExtent != null && !extent.isPreviousExtent(prevExtent))
+      throw new AccumuloException(" " + prevExtent + " is not previous extent " + extent);
     
     String tablesDir = Constants.getTablesDir(instance.getConfiguration());
-    List<String> absFiles = new ArrayList<String>();
+    
+    OpeningTablet tablet = new OpeningTablet();
+    tablet.extent = extent;
+    
+    // opening a file has to go to the namenode and read the file's index, so open all of a tablet's files at once
     for (String relPath : relFiles) {
+      final String file;
       if (relPath.startsWith(".."))
-        absFiles.add(tablesDir + relPath.substring(2));
+        file = tablesDir + relPath.substring(2);
       else
-        absFiles.add(tablesDir + "/" + tableId + relPath);
+        file = tablesDir + "/" + tableId + relPath;
+      
+      tablet.readers.add(new Opening<FileSKVIterator>() {
+        @Override
+        FileSKVIterator open() throws Exception {
+          return FileOperations.getInstance().openReader(file, false, fs, conf, acuTableConf, null, null);
+        }
+        
+        @Override
+        void close(FileSKVIterator reader) throws IOException {
+          reader.close();
+        }
+      }.start());
     }
     
-    iter = createIterator(extent, absFiles);
-    iter.seek(range, LocalityGroupUtil.families(options.fetchedColumns), options.fetchedColumns.size() == 0 ? false : true);
-    currentExtent = extent;
+    return tablet;
+  }
+  
+  private static <T> T get(Future<T> future) throws TableNotFoundException, AccumuloException, IOException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof TableNotFoundException)
+        throw (TableNotFoundException) cause;
+      if (cause instanceof AccumuloException)
+        throw (AccumuloException) cause;
+      if (cause instanceof IOException)
+        throw (IOException) cause;
+      throw new AccumuloException(cause);
+    }
+  }
+  
+  private void closeReaders() throws IOException {
+    if (pendingTablet != null) {
+      // the scan ended before reaching the next tablet
+      pendingTablet.abandon();
+      pendingTablet = null;
+    }
+    
+    for (SortedKeyValueIterator<Key,Value> reader : readers) {
+      ((FileSKVIterator) reader).close();
+    }
     
+    readers.clear();
   }
   
   private Pair<KeyExtent,String> getTabletFiles(Range nextRange, List<String> relFiles) throws TableNotFoundException {
@@ -276,35 +464,26 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
     return new Pair<KeyExtent,String>(extent, location);
   }
   
-  /**
-   * @param absFiles
-   * @return
-   * @throws AccumuloException
-   * @throws TableNotFoundException
-   * @throws IOException
-   */
-  private SortedKeyValueIterator<Key,Value> createIterator(KeyExtent extent, List<String> absFiles) throws TableNotFoundException, AccumuloException,
-      IOException {
-    
-    // TODO share code w/ tablet
-    AccumuloConfiguration acuTableConf = AccumuloConfiguration.getTableConfiguration(conn, tableId);
+  private SortedKeyValueIterator<Key,Value> createIterator(OpeningTablet tablet) throws TableNotFoundException, AccumuloException, IOException {
     
-    Configuration conf = CachedConfiguration.getInstance();
+    closeReaders();
     
-    FileSystem fs = FileUtil.getFileSystem(conf, instance.getConfiguration());
-    
-    for (SortedKeyValueIterator<Key,Value> reader : readers) {
-      ((FileSKVIterator) reader).close();
+    try {
+      for (Opening<FileSKVIterator> reader : tablet.readers)
+        readers.add(get(reader.future));
+    } catch (IOException e) {
+      abandon(tablet);
+      readers.clear();
+      throw e;
+    } catch (AccumuloException e) {
+      abandon(tablet);
+      readers.clear();
+      throw e;
     }
     
-    readers.clear();
-    
-    // TODO need to close files
-    for (String file : absFiles) {
-      FileSKVIterator reader = FileOperations.getInstance().openReader(file, false, fs, conf, acuTableConf, null, null);
-      readers.add(reader);
-    }
+    KeyExtent extent = tablet.extent;
     
+    // TODO share code w/ tablet
     MultiIterator multiIter = new MultiIterator(readers, extent);
     
     OfflineIteratorEnvironment iterEnv = new OfflineIteratorEnvironment();
@@ -315,17 +494,20 @@ class OfflineIterator implements Iterator<Entry<Key,Value>> {
     
     ColumnQualifierFilter colFilter = new ColumnQualifierFilter(cfsi, new HashSet<Column>(options.fetchedColumns));
     
-    byte[] defaultSecurityLabel;
-    
-    ColumnVisibility cv = new ColumnVisibility(acuTableConf.get(Property.TABLE_DEFAULT_SCANTIME_VISIBILITY));
-    defaultSecurityLabel = cv.getExpression();
-    
     VisibilityFilter visFilter = new VisibilityFilter(colFilter, authorizations, defaultSecurityLabel);
     
     return iterEnv.getTopLevelIterator(IteratorUtil.loadIterators(IteratorScope.scan, visFilter, extent, acuTableConf, options.serverSideIteratorList,
         options.serverSideIteratorOptions, iterEnv, false));
   }
   
+  /**
+   * Closes the files of a tablet that could not be completely opened.
+   */
+  private void abandon(OpeningTablet tablet) {
+    for (Opening<FileSKVIterator> reader : tablet.readers)
+      reader.abandon();
+  }
+  
   @Override
   public void remove() {
     throw new UnsupportedOperationException();
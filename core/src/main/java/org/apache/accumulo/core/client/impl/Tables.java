@@ -17,6 +17,7 @@
 package org.apache.accumulo.core.client.impl;
 
 import java.security.SecurityPermission;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.SortedMap;
@@ -45,6 +46,11 @@ public class Tables {
     
     List<String> tableIds = zc.getChildren(ZooUtil.getRoot(instance) + Constants.ZTABLES);
     
+    List<String> namePaths = new ArrayList<String>(tableIds.size());
+    for (String tableId : tableIds)
+      namePaths.add(ZooUtil.getRoot(instance) + Constants.ZTABLES + "/" + tableId + Constants.ZTABLE_NAME);
+    zc.prefetch(namePaths);
+    
     TreeMap<String,String> tableMap = new TreeMap<String,String>();
     
     for (String tableId : tableIds) {
@@ -26,10 +26,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.SortedMap;
-import java.util.TreeMap;
-import java.util.TreeSet;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.SortedSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.accumulo.core.client.AccumuloException;
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -81,14 +81,16 @@ public class TabletLocatorImpl extends TabletLocator {
   
   protected Text tableId;
   protected TabletLocator parent;
-  protected TreeMap<Text,TabletLocation> metaCache = new TreeMap<Text,TabletLocation>(endRowComparator);
+  // the cache is read without locking, and only changed while holding the lookup lock
+  protected ConcurrentSkipListMap<Text,TabletLocation> metaCache = new ConcurrentSkipListMap<Text,TabletLocation>(endRowComparator);
   protected TabletLocationObtainer locationObtainer;
   protected Text lastTabletRow;
   
-  private TreeSet<KeyExtent> badExtents = new TreeSet<KeyExtent>();
-  private ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
-  private final Lock rLock = rwLock.readLock();
-  private final Lock wLock = rwLock.writeLock();
+  // read without locking to check for invalidations, and only changed while holding the lookup lock, so an invalidation can not arrive during a lookup and be
+  // cleared by the stale locations it returns
+  private ConcurrentSkipListSet<KeyExtent> badExtents = new ConcurrentSkipListSet<KeyExtent>();
+  // held while looking up locations and updating the cache, so that threads missing the same part of the cache do not all look it up
+  private final ReentrantLock lookupLock = new ReentrantLock();
   
   public static interface TabletLocationObtainer {
     /**
@@ -120,27 +122,22 @@ public class TabletLocatorImpl extends TabletLocator {
     ArrayList<Mutation> notInCache = new ArrayList<Mutation>();
     Text row = new Text();
     
-    rLock.lock();
-    try {
-      processInvalidated();
-      
-      // for this to be efficient rows need to be in sorted order, but always sorting is slow... therefore only sort the
-      // stuff not in the cache.... it is most efficient to pass _locateTablet rows in sorted order
-      
-      // For this to be efficient, need to avoid fine grained synchronization and fine grained logging.
-      // Therefore methods called by this are not synchronized and should not log.
+    processInvalidated();
+    
+    // for this to be efficient rows need to be in sorted order, but always sorting is slow... therefore only sort the
+    // stuff not in the cache.... it is most efficient to pass _locateTablet rows in sorted order
+    
+    // For this to be efficient, need to avoid fine grained synchronization and fine grained logging.
+    // Therefore methods called by this are not synchronized and should not log.
+    
+    for (Mutation mutation : mutations) {
+      row.set(mutation.getRow());
+      TabletLocation tl = locateTabletInCache(row);
+      if (tl == null)
+        notInCache.add(mutation);
+      else
+        addMutation(binnedMutations, mutation, tl);
       
-      for (Mutation mutation : mutations) {
-        row.set(mutation.getRow());
-        TabletLocation tl = locateTabletInCache(row);
-        if (tl == null)
-          notInCache.add(mutation);
-        else
-          addMutation(binnedMutations, mutation, tl);
-        
-      }
-    } finally {
-      rLock.unlock();
     }
     
     if (notInCache.size() > 0) {
@@ -150,7 +147,7 @@ public class TabletLocatorImpl extends TabletLocator {
         }
       });
       
-      wLock.lock();
+      lookupLock.lock();
       try {
         boolean failed = false;
         for (Mutation mutation : notInCache) {
@@ -173,7 +170,7 @@ public class TabletLocatorImpl extends TabletLocator {
           }
         }
       } finally {
-        wLock.unlock();
+        lookupLock.unlock();
       }
     }
     
@@ -265,31 +262,25 @@ public class TabletLocatorImpl extends TabletLocator {
     if (log.isTraceEnabled())
       opTimer = new OpTimer(log, Level.TRACE).start("Binning " + ranges.size() + " ranges for table " + tableId);
     
-    List<Range> failures;
-    rLock.lock();
-    try {
-      processInvalidated();
-      
-      // for this to be optimal, need to look ranges up in sorted order when
-      // ranges are not present in cache... however do not want to always
-      // sort ranges... therefore try binning ranges using only the cache
-      // and sort whatever fails and retry
-      
-      failures = binRanges(ranges, binnedRanges, true);
-    } finally {
-      rLock.unlock();
-    }
+    processInvalidated();
+    
+    // for this to be optimal, need to look ranges up in sorted order when
+    // ranges are not present in cache... however do not want to always
+    // sort ranges... therefore try binning ranges using only the cache
+    // and sort whatever fails and retry
+    
+    List<Range> failures = binRanges(ranges, binnedRanges, true);
     
     if (failures.size() > 0) {
       // sort failures by range start key
       Collections.sort(failures);
       
       // try lookups again
-      wLock.lock();
+      lookupLock.lock();
       try {
         failures = binRanges(failures, binnedRanges, false);
       } finally {
-        wLock.unlock();
+        lookupLock.unlock();
       }
     }
     
@@ -301,11 +292,11 @@ public class TabletLocatorImpl extends TabletLocator {
   
   @Override
   public void invalidateCache(KeyExtent failedExtent) {
-    wLock.lock();
+    lookupLock.lock();
     try {
       badExtents.add(failedExtent);
     } finally {
-      wLock.unlock();
+      lookupLock.unlock();
     }
     if (log.isTraceEnabled())
       log.trace("Invalidated extent=" + failedExtent);
@@ -313,11 +304,11 @@ public class TabletLocatorImpl extends TabletLocator {
   
   @Override
   public void invalidateCache(Collection<KeyExtent> keySet) {
-    wLock.lock();
+    lookupLock.lock();
     try {
       badExtents.addAll(keySet);
     } finally {
-      wLock.unlock();
+      lookupLock.unlock();
     }
     if (log.isTraceEnabled())
       log.trace("Invalidated " + keySet.size() + " cache entries for table " + tableId);
@@ -327,7 +318,7 @@ public class TabletLocatorImpl extends TabletLocator {
   public void invalidateCache(String server) {
     int invalidatedCount = 0;
     
-    wLock.lock();
+    lookupLock.lock();
     try {
       for (TabletLocation cacheEntry : metaCache.values())
         if (cacheEntry.tablet_location.equals(server)) {
@@ -335,7 +326,7 @@ public class TabletLocatorImpl extends TabletLocator {
           invalidatedCount++;
         }
     } finally {
-      wLock.unlock();
+      lookupLock.unlock();
     }
     
     if (log.isTraceEnabled())
@@ -346,12 +337,12 @@ public class TabletLocatorImpl extends TabletLocator {
   @Override
   public void invalidateCache() {
     int invalidatedCount;
-    wLock.lock();
+    lookupLock.lock();
     try {
       invalidatedCount = metaCache.size();
       metaCache.clear();
     } finally {
-      wLock.unlock();
+      lookupLock.unlock();
     }
     if (log.isTraceEnabled())
       log.trace("invalidated all " + invalidatedCount + " cache entries for table=" + tableId);
@@ -462,11 +453,11 @@ public class TabletLocatorImpl extends TabletLocator {
       er = MAX_TEXT;
     metaCache.put(er, tabletLocation);
     
-    if (badExtents.size() > 0)
+    if (!badExtents.isEmpty())
       removeOverlapping(badExtents, tabletLocation.tablet_extent);
   }
   
-  static void removeOverlapping(TreeMap<Text,TabletLocation> metaCache, KeyExtent nke) {
+  static void removeOverlapping(SortedMap<Text,TabletLocation> metaCache, KeyExtent nke) {
     Iterator<Entry<Text,TabletLocation>> iter = null;
     
     if (nke.getPrevEndRow() == null) {
@@ -500,7 +491,7 @@ public class TabletLocatorImpl extends TabletLocator {
     return row;
   }
   
-  static void removeOverlapping(TreeSet<KeyExtent> extents, KeyExtent nke) {
+  static void removeOverlapping(SortedSet<KeyExtent> extents, KeyExtent nke) {
     for (KeyExtent overlapping : KeyExtent.findOverlapping(nke, extents)) {
       extents.remove(overlapping);
     }
@@ -526,29 +517,24 @@ public class TabletLocatorImpl extends TabletLocator {
       row.append(new byte[] {0}, 0, 1);
     }
     
-    TabletLocation tl;
-    
-    if (lock)
-      rLock.lock();
-    try {
-      processInvalidated();
-      tl = locateTabletInCache(row);
-    } finally {
-      if (lock)
-        rLock.unlock();
-    }
+    processInvalidated();
+    TabletLocation tl = locateTabletInCache(row);
     
     if (tl == null) {
       if (lock)
-        wLock.lock();
+        lookupLock.lock();
       try {
-        // not in cache, so obtain info
-        lookupTabletLocation(row, retry);
-        
+        // another thread may have looked up the same tablet while this thread waited for the lock
         tl = locateTabletInCache(row);
+        if (tl == null) {
+          // not in cache, so obtain info
+          lookupTabletLocation(row, retry);
+          
+          tl = locateTabletInCache(row);
+        }
       } finally {
         if (lock)
-          wLock.unlock();
+          lookupLock.unlock();
       }
     }
     
@@ -557,21 +543,22 @@ public class TabletLocatorImpl extends TabletLocator {
   
   private void processInvalidated() throws AccumuloSecurityException, AccumuloException, TableNotFoundException {
     
-    if (badExtents.size() == 0)
+    if (badExtents.isEmpty())
       return;
     
-    boolean writeLockHeld = rwLock.isWriteLockedByCurrentThread();
+    lookupLock.lock();
     try {
-      if (!writeLockHeld) {
-        rLock.unlock();
-        wLock.lock();
-        if (badExtents.size() == 0)
-          return;
-      }
+      if (badExtents.isEmpty())
+        return;
       
-      List<Range> lookups = new ArrayList<Range>(badExtents.size());
+      // The invalidated extents are removed from the cache and looked up together once. Any that are not found, for example because the tablets are not
+      // assigned yet, are looked up again as rows in them miss the cache, instead of looking up all of them again for every call.
+      List<KeyExtent> invalidated = new ArrayList<KeyExtent>(badExtents);
+      badExtents.removeAll(invalidated);
       
-      for (KeyExtent be : badExtents) {
+      List<Range> lookups = new ArrayList<Range>(invalidated.size());
+      
+      for (KeyExtent be : invalidated) {
         lookups.add(be.toMetadataRange());
         removeOverlapping(metaCache, be);
       }
@@ -594,10 +581,7 @@ public class TabletLocatorImpl extends TabletLocator {
         }
       }
     } finally {
-      if (!writeLockHeld) {
-        rLock.lock();
-        wLock.unlock();
-      }
+      lookupLock.unlock();
     }
   }
   
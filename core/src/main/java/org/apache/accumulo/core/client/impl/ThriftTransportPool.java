@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
@@ -47,9 +48,10 @@ public class ThriftTransportPool {
   private static SecurityPermission TRANSPORT_POOL_PERMISSION = new SecurityPermission("transportPoolPermission");
   
   private static final Random random = new Random();
-  private long killTime = 1000 * 3;
+  private volatile long killTime = 1000 * 3;
   
-  private Map<ThriftTransportKey,List<CachedConnection>> cache = new HashMap<ThriftTransportKey,List<CachedConnection>>();
+  // each server's connections are synchronized on separately, so threads using different servers do not contend
+  private ConcurrentHashMap<ThriftTransportKey,CachedConnections> cache = new ConcurrentHashMap<ThriftTransportKey,CachedConnections>();
   private Map<ThriftTransportKey,Long> errorCount = new HashMap<ThriftTransportKey,Long>();
   private Map<ThriftTransportKey,Long> errorTime = new HashMap<ThriftTransportKey,Long>();
   private Set<ThriftTransportKey> serversWarnedAbout = new HashSet<ThriftTransportKey>();
@@ -69,15 +71,26 @@ public class ThriftTransportPool {
       this.transport.setReserved(reserved);
     }
     
-    boolean isReserved() {
-      return this.transport.reserved;
-    }
-    
     CachedTTransport transport;
     
     long lastReturnTime;
   }
   
+  private static class CachedConnections {
+    // idle connections, most recently returned first, so that the least used connections stay idle long enough to be closed
+    final LinkedList<CachedConnection> unreserved = new LinkedList<CachedConnection>();
+    final Map<CachedTTransport,CachedConnection> reserved = new HashMap<CachedTTransport,CachedConnection>();
+    
+    CachedConnection reserveAny() {
+      CachedConnection cachedConnection = unreserved.poll();
+      if (cachedConnection != null) {
+        cachedConnection.setReserved(true);
+        reserved.put(cachedConnection.transport, cachedConnection);
+      }
+      return cachedConnection;
+    }
+  }
+  
   private static class Closer implements Runnable {
     final ThriftTransportPool pool;
     
@@ -90,25 +103,23 @@ public class ThriftTransportPool {
         
         ArrayList<CachedConnection> connectionsToClose = new ArrayList<CachedConnection>();
         
-        synchronized (pool) {
-          for (List<CachedConnection> ccl : pool.cache.values()) {
-            Iterator<CachedConnection> iter = ccl.iterator();
-            while (iter.hasNext()) {
-              CachedConnection cachedConnection = iter.next();
-              
-              if (!cachedConnection.isReserved() && System.currentTimeMillis() - cachedConnection.lastReturnTime > pool.killTime) {
-                connectionsToClose.add(cachedConnection);
-                iter.remove();
-              }
+        for (CachedConnections ccs : pool.cache.values()) {
+          synchronized (ccs) {
+            // the connections returned longest ago are last
+            while (!ccs.unreserved.isEmpty() && System.currentTimeMillis() - ccs.unreserved.getLast().lastReturnTime > pool.killTime) {
+              connectionsToClose.add(ccs.unreserved.removeLast());
             }
-          }
-          
-          for (List<CachedConnection> ccl : pool.cache.values()) {
-            for (CachedConnection cachedConnection : ccl) {
+            
+            for (CachedConnection cachedConnection : ccs.unreserved) {
+              cachedConnection.transport.checkForStuckIO(STUCK_THRESHOLD);
+            }
+            for (CachedConnection cachedConnection : ccs.reserved.values()) {
               cachedConnection.transport.checkForStuckIO(STUCK_THRESHOLD);
             }
           }
-          
+        }
+        
+        synchronized (pool) {
           Iterator<Entry<ThriftTransportKey,Long>> iter = pool.errorTime.entrySet().iterator();
           while (iter.hasNext()) {
             Entry<ThriftTransportKey,Long> entry = iter.next();
@@ -142,7 +153,6 @@ public class ThriftTransportPool {
     
     private volatile String ioThreadName = null;
     private volatile long ioStartTime = 0;
-    private volatile boolean reserved = false;
     
     private String stuckThreadName = null;
     
@@ -154,7 +164,6 @@ public class ThriftTransportPool {
     }
     
     final void setReserved(boolean reserved) {
-      this.reserved = reserved;
       if (reserved) {
         ioThreadName = Thread.currentThread().getName();
         ioCount = 0;
@@ -381,24 +390,19 @@ public class ThriftTransportPool {
     if (preferCachedConnection) {
       HashSet<ThriftTransportKey> serversSet = new HashSet<ThriftTransportKey>(servers);
       
-      synchronized (this) {
-        
-        // randomly pick a server from the connection cache
-        serversSet.retainAll(cache.keySet());
+      // randomly pick a server from the connection cache
+      serversSet.retainAll(cache.keySet());
+      
+      if (serversSet.size() > 0) {
+        ArrayList<ThriftTransportKey> cachedServers = new ArrayList<ThriftTransportKey>(serversSet);
+        Collections.shuffle(cachedServers, random);
         
-        if (serversSet.size() > 0) {
-          ArrayList<ThriftTransportKey> cachedServers = new ArrayList<ThriftTransportKey>(serversSet);
-          Collections.shuffle(cachedServers, random);
-          
-          for (ThriftTransportKey ttk : cachedServers) {
-            for (CachedConnection cachedConnection : cache.get(ttk)) {
-              if (!cachedConnection.isReserved()) {
-                cachedConnection.setReserved(true);
-                if (log.isTraceEnabled())
-                  log.trace("Using existing connection to " + ttk.getLocation() + ":" + ttk.getPort());
-                return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), cachedConnection.transport);
-              }
-            }
+        for (ThriftTransportKey ttk : cachedServers) {
+          CachedConnection cachedConnection = reserveCachedConnection(ttk);
+          if (cachedConnection != null) {
+            if (log.isTraceEnabled())
+              log.trace("Using existing connection to " + ttk.getLocation() + ":" + ttk.getPort());
+            return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), cachedConnection.transport);
           }
         }
       }
@@ -410,18 +414,11 @@ public class ThriftTransportPool {
       ThriftTransportKey ttk = servers.get(index);
       
       if (!preferCachedConnection) {
-        synchronized (this) {
-          List<CachedConnection> cachedConnList = cache.get(ttk);
-          if (cachedConnList != null) {
-            for (CachedConnection cachedConnection : cachedConnList) {
-              if (!cachedConnection.isReserved()) {
-                cachedConnection.setReserved(true);
-                if (log.isTraceEnabled())
-                  log.trace("Using existing connection to " + ttk.getLocation() + ":" + ttk.getPort() + " timeout " + ttk.getTimeout());
-                return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), cachedConnection.transport);
-              }
-            }
-          }
+        CachedConnection cachedConnection = reserveCachedConnection(ttk);
+        if (cachedConnection != null) {
+          if (log.isTraceEnabled())
+            log.trace("Using existing connection to " + ttk.getLocation() + ":" + ttk.getPort() + " timeout " + ttk.getTimeout());
+          return new Pair<String,TTransport>(ttk.getLocation() + ":" + ttk.getPort(), cachedConnection.transport);
         }
       }
 
@@ -442,28 +439,40 @@ public class ThriftTransportPool {
   }
   
   private TTransport getTransport(ThriftTransportKey cacheKey) throws TTransportException {
-    synchronized (this) {
-      // atomically reserve location if it exist in cache
-      List<CachedConnection> ccl = cache.get(cacheKey);
-      
-      if (ccl == null) {
-        ccl = new LinkedList<CachedConnection>();
-        cache.put(cacheKey, ccl);
-      }
-      
-      for (CachedConnection cachedConnection : ccl) {
-        if (!cachedConnection.isReserved()) {
-          cachedConnection.setReserved(true);
-          if (log.isTraceEnabled())
-            log.trace("Using existing connection to " + cacheKey.getLocation() + ":" + cacheKey.getPort());
-          return cachedConnection.transport;
-        }
-      }
+    // atomically reserve location if it exist in cache
+    CachedConnection cachedConnection = reserveCachedConnection(cacheKey);
+    if (cachedConnection != null) {
+      if (log.isTraceEnabled())
+        log.trace("Using existing connection to " + cacheKey.getLocation() + ":" + cacheKey.getPort());
+      return cachedConnection.transport;
     }
     
     return createNewTransport(cacheKey);
   }
   
+  private CachedConnections getCachedConnections(ThriftTransportKey cacheKey) {
+    CachedConnections ccs = cache.get(cacheKey);
+    if (ccs == null) {
+      CachedConnections existing = cache.putIfAbsent(cacheKey, ccs = new CachedConnections());
+      if (existing != null)
+        ccs = existing;
+    }
+    return ccs;
+  }
+  
+  /**
+   * @return a reserved idle connection to the server, or null if there are none
+   */
+  private CachedConnection reserveCachedConnection(ThriftTransportKey cacheKey) {
+    CachedConnections ccs = cache.get(cacheKey);
+    if (ccs == null)
+      return null;
+    
+    synchronized (ccs) {
+      return ccs.reserveAny();
+    }
+  }
+  
   private TTransport createNewTransport(ThriftTransportKey cacheKey) throws TTransportException {
     TTransport transport;
     if (cacheKey.getTimeout() == 0) {
@@ -486,15 +495,9 @@ public class ThriftTransportPool {
     CachedConnection cc = new CachedConnection(tsc);
     cc.setReserved(true);
     
-    synchronized (this) {
-      List<CachedConnection> ccl = cache.get(cacheKey);
-      
-      if (ccl == null) {
-        ccl = new LinkedList<CachedConnection>();
-        cache.put(cacheKey, ccl);
-      }
-      
-      ccl.add(cc);
+    CachedConnections ccs = getCachedConnections(cacheKey);
+    synchronized (ccs) {
+      ccs.reserved.put(tsc, cc);
     }
     return cc.transport;
   }
@@ -508,37 +511,23 @@ public class ThriftTransportPool {
     CachedTTransport ctsc = (CachedTTransport) tsc;
     
     ArrayList<CachedConnection> closeList = new ArrayList<ThriftTransportPool.CachedConnection>();
-
-    synchronized (this) {
-      List<CachedConnection> ccl = cache.get(ctsc.getCacheKey());
-      for (Iterator<CachedConnection> iterator = ccl.iterator(); iterator.hasNext();) {
-        CachedConnection cachedConnection = iterator.next();
-        if (cachedConnection.transport == tsc) {
+    
+    CachedConnections ccs = cache.get(ctsc.getCacheKey());
+    if (ccs != null) {
+      synchronized (ccs) {
+        CachedConnection cachedConnection = ccs.reserved.remove(ctsc);
+        if (cachedConnection != null) {
           if (ctsc.sawError) {
             closeList.add(cachedConnection);
-            iterator.remove();
             
             if (log.isTraceEnabled())
               log.trace("Returned connection had error " + ctsc.getCacheKey());
             
-            Long ecount = errorCount.get(ctsc.getCacheKey());
-            if (ecount == null)
-              ecount = 0l;
-            ecount++;
-            errorCount.put(ctsc.getCacheKey(), ecount);
-            
-            Long etime = errorTime.get(ctsc.getCacheKey());
-            if (etime == null) {
-              errorTime.put(ctsc.getCacheKey(), System.currentTimeMillis());
-            }
-            
-            if (ecount >= ERROR_THRESHOLD && !serversWarnedAbout.contains(ctsc.getCacheKey())) {
-              log.warn("Server " + ctsc.getCacheKey() + " had " + ecount + " failures in a short time period, will not complain anymore ");
-              serversWarnedAbout.add(ctsc.getCacheKey());
-            }
-            
             cachedConnection.setReserved(false);
             
+            // remove all unreserved cached connection when a sever has an error, not just the connection that was returned
+            closeList.addAll(ccs.unreserved);
+            ccs.unreserved.clear();
           } else {
             
             if (log.isTraceEnabled())
@@ -546,20 +535,29 @@ public class ThriftTransportPool {
             
             cachedConnection.lastReturnTime = System.currentTimeMillis();
             cachedConnection.setReserved(false);
+            ccs.unreserved.addFirst(cachedConnection);
           }
           existInCache = true;
-          break;
         }
       }
-      
-      // remove all unreserved cached connection when a sever has an error, not just the connection that was returned
-      if (ctsc.sawError) {
-        for (Iterator<CachedConnection> iterator = ccl.iterator(); iterator.hasNext();) {
-          CachedConnection cachedConnection = iterator.next();
-          if (!cachedConnection.isReserved()) {
-            closeList.add(cachedConnection);
-            iterator.remove();
-          }
+    }
+    
+    if (existInCache && ctsc.sawError) {
+      synchronized (this) {
+        Long ecount = errorCount.get(ctsc.getCacheKey());
+        if (ecount == null)
+          ecount = 0l;
+        ecount++;
+        errorCount.put(ctsc.getCacheKey(), ecount);
+        
+        Long etime = errorTime.get(ctsc.getCacheKey());
+        if (etime == null) {
+          errorTime.put(ctsc.getCacheKey(), System.currentTimeMillis());
+        }
+        
+        if (ecount >= ERROR_THRESHOLD && !serversWarnedAbout.contains(ctsc.getCacheKey())) {
+          log.warn("Server " + ctsc.getCacheKey() + " had " + ecount + " failures in a short time period, will not complain anymore ");
+          serversWarnedAbout.add(ctsc.getCacheKey());
         }
       }
     }
@@ -585,7 +583,7 @@ public class ThriftTransportPool {
    * 
    * @param time
    */
-  public synchronized void setIdleTime(long time) {
+  public void setIdleTime(long time) {
     this.killTime = time;
     log.debug("Set thrift transport pool idle time to " + time);
   }
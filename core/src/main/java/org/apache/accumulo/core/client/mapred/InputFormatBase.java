@@ -46,6 +46,8 @@ import org.apache.accumulo.core.client.impl.OfflineScanner;
 import org.apache.accumulo.core.client.impl.Tables;
 import org.apache.accumulo.core.client.impl.TabletLocator;
 import org.apache.accumulo.core.client.mapreduce.lib.util.InputConfigurator;
+import org.apache.accumulo.core.client.mapreduce.lib.util.InputSplitPlanner;
+import org.apache.accumulo.core.client.mapreduce.lib.util.InputSplitPlanner.PlannedSplit;
 import org.apache.accumulo.core.client.mock.MockInstance;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.KeyExtent;
@@ -409,6 +411,38 @@ public abstract class InputFormatBase<K,V> implements InputFormat<K,V> {
     return InputConfigurator.getAutoAdjustRanges(CLASS, job);
   }
   
+  /**
+   * Sets the target amount of data, in bytes, each input split should read. When set, and auto-adjust ranges is enabled, small tablets hosted by the same
+   * tablet server are combined into one split, and large tablets are divided using their files' indexes, so map tasks read similar amounts of data. Dividing
+   * tablets requires read access to the Accumulo directory in HDFS; without it large tablets are read by a single split.
+   * 
+   * <p>
+   * By default, this is <b>0</b>, which creates one split per tablet.
+   * 
+   * @param job
+   *          the Hadoop job instance to be configured
+   * @param splitSize
+   *          the target split size in bytes, or 0 to create one split per tablet
+   * @see #setAutoAdjustRanges(JobConf, boolean)
+   * @since 1.6.0
+   */
+  public static void setSplitSize(JobConf job, long splitSize) {
+    InputConfigurator.setSplitSize(CLASS, job, splitSize);
+  }
+  
+  /**
+   * Gets the target input split size.
+   * 
+   * @param job
+   *          the Hadoop context for the configured job
+   * @return the target split size in bytes, or 0 if one split is created per tablet
+   * @since 1.6.0
+   * @see #setSplitSize(JobConf, long)
+   */
+  protected static long getSplitSize(JobConf job) {
+    return InputConfigurator.getSplitSize(CLASS, job);
+  }
+  
   /**
    * Controls the use of the {@link IsolatedScanner} in this job.
    * 
@@ -580,7 +614,7 @@ public abstract class InputFormatBase<K,V> implements InputFormat<K,V> {
     public void initialize(InputSplit inSplit, JobConf job) throws IOException {
       Scanner scanner;
       split = (RangeInputSplit) inSplit;
-      log.debug("Initializing input split: " + split.getRange());
+      log.debug("Initializing input split: " + split.getRanges());
       Instance instance = getInstance(job);
       String user = getUsername(job);
       String tokenClass = getTokenClass(job);
@@ -622,12 +656,15 @@ public abstract class InputFormatBase<K,V> implements InputFormat<K,V> {
         }
       }
       
-      scanner.setRange(split.getRange());
-      
       numKeysRead = 0;
       
       // do this last after setting all scanner options
-      scannerIterator = scanner.iterator();
+      if (split.getRanges().size() == 1) {
+        scanner.setRange(split.getRange());
+        scannerIterator = scanner.iterator();
+      } else {
+        scannerIterator = InputSplitPlanner.scanRanges(scanner, split.getRanges());
+      }
     }
     
     @Override
@@ -749,6 +786,17 @@ public abstract class InputFormatBase<K,V> implements InputFormat<K,V> {
     return binnedRanges;
   }
   
+  private static String getHostName(String tserver, Map<String,String> hostNameCache) throws IOException {
+    String ip = tserver.split(":", 2)[0];
+    String location = hostNameCache.get(ip);
+    if (location == null) {
+      InetAddress inetAddress = InetAddress.getByName(ip);
+      location = inetAddress.getHostName();
+      hostNameCache.put(ip, location);
+    }
+    return location;
+  }
+  
   /**
    * Read the metadata table to get tablets and match up ranges to them.
    */
@@ -810,14 +858,14 @@ public abstract class InputFormatBase<K,V> implements InputFormat<K,V> {
     
     HashMap<String,String> hostNameCache = new HashMap<String,String>();
     
+    if (autoAdjust && getSplitSize(job) > 0 && !(getInstance(job) instanceof MockInstance)) {
+      for (PlannedSplit planned : InputSplitPlanner.planSplits(CLASS, job, binnedRanges))
+        splits.add(new RangeInputSplit(tableName, planned.getRanges(), planned.getSize(), new String[] {getHostName(planned.getLocation(), hostNameCache)}));
+      return splits.toArray(new InputSplit[splits.size()]);
+    }
+    
     for (Entry<String,Map<KeyExtent,List<Range>>> tserverBin : binnedRanges.entrySet()) {
-      String ip = tserverBin.getKey().split(":", 2)[0];
-      String location = hostNameCache.get(ip);
-      if (location == null) {
-        InetAddress inetAddress = InetAddress.getByName(ip);
-        location = inetAddress.getHostName();
-        hostNameCache.put(ip, location);
-      }
+      String location = getHostName(tserverBin.getKey(), hostNameCache);
       
       for (Entry<KeyExtent,List<Range>> extentRanges : tserverBin.getValue().entrySet()) {
         Range ke = extentRanges.getKey().toDataRange();
@@ -860,6 +908,10 @@ public abstract class InputFormatBase<K,V> implements InputFormat<K,V> {
       super(table, range, locations);
     }
     
+    protected RangeInputSplit(String table, List<Range> ranges, long length, String[] locations) {
+      super(table, ranges, length, locations);
+    }
+    
   }
   
 }
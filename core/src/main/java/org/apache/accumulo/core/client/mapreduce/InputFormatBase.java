@@ -53,6 +53,8 @@ import org.apache.accumulo.core.client.impl.OfflineScanner;
 import org.apache.accumulo.core.client.impl.Tables;
 import org.apache.accumulo.core.client.impl.TabletLocator;
 import org.apache.accumulo.core.client.mapreduce.lib.util.InputConfigurator;
+import org.apache.accumulo.core.client.mapreduce.lib.util.InputSplitPlanner;
+import org.apache.accumulo.core.client.mapreduce.lib.util.InputSplitPlanner.PlannedSplit;
 import org.apache.accumulo.core.client.mock.MockInstance;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
@@ -422,6 +424,38 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
     return InputConfigurator.getAutoAdjustRanges(CLASS, context.getConfiguration());
   }
   
+  /**
+   * Sets the target amount of data, in bytes, each input split should read. When set, and auto-adjust ranges is enabled, small tablets hosted by the same
+   * tablet server are combined into one split, and large tablets are divided using their files' indexes, so map tasks read similar amounts of data. Dividing
+   * tablets requires read access to the Accumulo directory in HDFS; without it large tablets are read by a single split.
+   * 
+   * <p>
+   * By default, this is <b>0</b>, which creates one split per tablet.
+   * 
+   * @param job
+   *          the Hadoop job instance to be configured
+   * @param splitSize
+   *          the target split size in bytes, or 0 to create one split per tablet
+   * @see #setAutoAdjustRanges(Job, boolean)
+   * @since 1.6.0
+   */
+  public static void setSplitSize(Job job, long splitSize) {
+    InputConfigurator.setSplitSize(CLASS, job.getConfiguration(), splitSize);
+  }
+  
+  /**
+   * Gets the target input split size.
+   * 
+   * @param context
+   *          the Hadoop context for the configured job
+   * @return the target split size in bytes, or 0 if one split is created per tablet
+   * @since 1.6.0
+   * @see #setSplitSize(Job, long)
+   */
+  protected static long getSplitSize(JobContext context) {
+    return InputConfigurator.getSplitSize(CLASS, context.getConfiguration());
+  }
+  
   /**
    * Controls the use of the {@link IsolatedScanner} in this job.
    * 
@@ -596,7 +630,7 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
     public void initialize(InputSplit inSplit, TaskAttemptContext attempt) throws IOException {
       Scanner scanner;
       split = (RangeInputSplit) inSplit;
-      log.debug("Initializing input split: " + split.range);
+      log.debug("Initializing input split: " + split.getRanges());
       Instance instance = getInstance(attempt);
       String principal = getPrincipal(attempt);
       String tokenClass = getTokenClass(attempt);
@@ -638,12 +672,15 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
         }
       }
       
-      scanner.setRange(split.range);
-      
       numKeysRead = 0;
       
       // do this last after setting all scanner options
-      scannerIterator = scanner.iterator();
+      if (split.getRanges().size() == 1) {
+        scanner.setRange(split.getRange());
+        scannerIterator = scanner.iterator();
+      } else {
+        scannerIterator = InputSplitPlanner.scanRanges(scanner, split.getRanges());
+      }
     }
     
     @Override
@@ -772,6 +809,17 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
     return binnedRanges;
   }
   
+  private static String getHostName(String tserver, Map<String,String> hostNameCache) throws IOException {
+    String ip = tserver.split(":", 2)[0];
+    String location = hostNameCache.get(ip);
+    if (location == null) {
+      InetAddress inetAddress = InetAddress.getByName(ip);
+      location = inetAddress.getHostName();
+      hostNameCache.put(ip, location);
+    }
+    return location;
+  }
+  
   /**
    * Read the metadata table to get tablets and match up ranges to them.
    */
@@ -833,14 +881,14 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
     
     HashMap<String,String> hostNameCache = new HashMap<String,String>();
     
+    if (autoAdjust && getSplitSize(context) > 0 && !(getInstance(context) instanceof MockInstance)) {
+      for (PlannedSplit planned : InputSplitPlanner.planSplits(CLASS, context.getConfiguration(), binnedRanges))
+        splits.add(new RangeInputSplit(tableName, planned.getRanges(), planned.getSize(), new String[] {getHostName(planned.getLocation(), hostNameCache)}));
+      return splits;
+    }
+    
     for (Entry<String,Map<KeyExtent,List<Range>>> tserverBin : binnedRanges.entrySet()) {
-      String ip = tserverBin.getKey().split(":", 2)[0];
-      String location = hostNameCache.get(ip);
-      if (location == null) {
-        InetAddress inetAddress = InetAddress.getByName(ip);
-        location = inetAddress.getHostName();
-        hostNameCache.put(ip, location);
-      }
+      String location = getHostName(tserverBin.getKey(), hostNameCache);
       
       for (Entry<KeyExtent,List<Range>> extentRanges : tserverBin.getValue().entrySet()) {
         Range ke = extentRanges.getKey().toDataRange();
@@ -867,33 +915,62 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
   }
   
   /**
-   * The Class RangeInputSplit. Encapsulates an Accumulo range for use in Map Reduce jobs.
+   * The Class RangeInputSplit. Encapsulates Accumulo ranges for use in Map Reduce jobs. A split holds a single range unless a split size was set with
+   * {@link #setSplitSize(Job, long)}, in which case it may hold several sorted ranges from one tablet server.
    */
   public static class RangeInputSplit extends InputSplit implements Writable {
-    private Range range;
+    private List<Range> ranges;
     private String[] locations;
+    private long length = 0;
     
     public RangeInputSplit() {
-      range = new Range();
+      setRange(new Range());
       locations = new String[0];
     }
     
     public RangeInputSplit(RangeInputSplit split) throws IOException {
-      this.setRange(split.getRange());
+      this.setRanges(split.getRanges());
       this.setLocations(split.getLocations());
+      this.length = split.length;
     }
     
     protected RangeInputSplit(String table, Range range, String[] locations) {
-      this.range = range;
+      setRange(range);
       this.locations = locations;
     }
     
+    protected RangeInputSplit(String table, List<Range> ranges, long length, String[] locations) {
+      setRanges(ranges);
+      this.length = length;
+      this.locations = locations;
+    }
+    
+    /**
+     * @return the first range of this split; use {@link #getRanges()} to get all of them
+     */
     public Range getRange() {
-      return range;
+      return ranges.get(0);
     }
     
     public void setRange(Range range) {
-      this.range = range;
+      this.ranges = new ArrayList<Range>(1);
+      this.ranges.add(range);
+    }
+    
+    /**
+     * @since 1.6.0
+     */
+    public List<Range> getRanges() {
+      return ranges;
+    }
+    
+    /**
+     * @since 1.6.0
+     */
+    public void setRanges(List<Range> ranges) {
+      if (ranges.isEmpty())
+        throw new IllegalArgumentException("A split must have at least one range");
+      this.ranges = new ArrayList<Range>(ranges);
     }
     
     private static byte[] extractBytes(ByteSequence seq, int numBytes) {
@@ -919,6 +996,16 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
     public float getProgress(Key currentKey) {
       if (currentKey == null)
         return 0f;
+      if (ranges.size() == 1)
+        return getProgress(ranges.get(0), currentKey);
+      // count each range as an equal share of the split
+      for (int i = 0; i < ranges.size(); i++)
+        if (!ranges.get(i).afterEndKey(currentKey))
+          return (i + getProgress(ranges.get(i), currentKey)) / ranges.size();
+      return 1f;
+    }
+    
+    private static float getProgress(Range range, Key currentKey) {
       if (range.getStartKey() != null && range.getEndKey() != null) {
         if (!range.getStartKey().equals(range.getEndKey(), PartialKey.ROW)) {
           // just look at the row progress
@@ -940,6 +1027,15 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
      */
     @Override
     public long getLength() throws IOException {
+      if (length > 0)
+        return length;
+      long total = 0;
+      for (Range range : ranges)
+        total += getLength(range);
+      return total;
+    }
+    
+    private static long getLength(Range range) {
       Text startRow = range.isInfiniteStartKey() ? new Text(new byte[] {Byte.MIN_VALUE}) : range.getStartKey().getRow();
       Text stopRow = range.isInfiniteStopKey() ? new Text(new byte[] {Byte.MAX_VALUE}) : range.getEndKey().getRow();
       int maxCommon = Math.min(7, Math.min(startRow.getLength(), stopRow.getLength()));
@@ -969,19 +1065,32 @@ public abstract class InputFormatBase<K,V> extends InputFormat<K,V> {
     
     @Override
     public void readFields(DataInput in) throws IOException {
+      Range range = new Range();
       range.readFields(in);
+      setRange(range);
       int numLocs = in.readInt();
       locations = new String[numLocs];
       for (int i = 0; i < numLocs; ++i)
         locations[i] = in.readUTF();
+      int numRanges = in.readInt();
+      for (int i = 0; i < numRanges; ++i) {
+        range = new Range();
+        range.readFields(in);
+        ranges.add(range);
+      }
+      length = in.readLong();
     }
     
     @Override
     public void write(DataOutput out) throws IOException {
-      range.write(out);
+      ranges.get(0).write(out);
       out.writeInt(locations.length);
       for (int i = 0; i < locations.length; ++i)
         out.writeUTF(locations[i]);
+      out.writeInt(ranges.size() - 1);
+      for (int i = 1; i < ranges.size(); ++i)
+        ranges.get(i).write(out);
+      out.writeLong(length);
     }
   }
   
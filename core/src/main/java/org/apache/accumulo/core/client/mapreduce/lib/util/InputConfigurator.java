@@ -80,6 +80,15 @@ public class InputConfigurator extends ConfiguratorBase {
     AUTO_ADJUST_RANGES, SCAN_ISOLATION, USE_LOCAL_ITERATORS, SCAN_OFFLINE
   }
   
+  /**
+   * Configuration keys for planning input splits.
+   * 
+   * @since 1.6.0
+   */
+  public static enum SplitOpts {
+    SPLIT_SIZE
+  }
+  
   /**
    * Sets the name of the input table, over which this job will scan.
    * 
@@ -345,6 +354,43 @@ public class InputConfigurator extends ConfiguratorBase {
   public static Boolean getAutoAdjustRanges(Class<?> implementingClass, Configuration conf) {
     return conf.getBoolean(enumToConfKey(implementingClass, Features.AUTO_ADJUST_RANGES), true);
   }
+
+  /**
+   * Sets the target amount of data, in bytes, each input split should read. When set, and auto-adjust ranges is enabled, small tablets hosted by the same
+   * tablet server are combined into one split, and tablets larger than the target are divided using their files' indexes. The sizes used are estimates taken
+   * from the metadata table.
+   * 
+   * <p>
+   * By default, this is <b>0</b>, which creates one split per tablet.
+   * 
+   * @param implementingClass
+   *          the class whose name will be used as a prefix for the property configuration key
+   * @param conf
+   *          the Hadoop configuration object to configure
+   * @param splitSize
+   *          the target split size in bytes, or 0 to create one split per tablet
+   * @since 1.6.0
+   */
+  public static void setSplitSize(Class<?> implementingClass, Configuration conf, long splitSize) {
+    if (splitSize < 0)
+      throw new IllegalArgumentException("split size should be >= 0, was " + splitSize);
+    conf.setLong(enumToConfKey(implementingClass, SplitOpts.SPLIT_SIZE), splitSize);
+  }
+  
+  /**
+   * Gets the target input split size from the configuration.
+   * 
+   * @param implementingClass
+   *          the class whose name will be used as a prefix for the property configuration key
+   * @param conf
+   *          the Hadoop configuration object to configure
+   * @return the target split size in bytes, or 0 if one split is created per tablet
+   * @since 1.6.0
+   * @see #setSplitSize(Class, Configuration, long)
+   */
+  public static long getSplitSize(Class<?> implementingClass, Configuration conf) {
+    return conf.getLong(enumToConfKey(implementingClass, SplitOpts.SPLIT_SIZE), 0);
+  }
   
   /**
    * Controls the use of the {@link IsolatedScanner} in this job.
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.mapreduce.lib.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.client.Connector;
+import org.apache.accumulo.core.client.Instance;
+import org.apache.accumulo.core.client.Scanner;
+import org.apache.accumulo.core.client.impl.Tables;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.file.FileUtil;
+import org.apache.accumulo.core.security.thrift.Credential;
+import org.apache.accumulo.core.util.CachedConfiguration;
+import org.apache.accumulo.core.util.MetadataTable.DataFileValue;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.io.Text;
+import org.apache.log4j.Logger;
+
+/**
+ * Plans input splits of roughly equal size from the tablets a job reads. Tablets smaller than the target size are combined with other tablets on the same
+ * tablet server, and tablets larger than the target are divided into pieces using the indexes of their files.
+ * 
+ * @since 1.6.0
+ */
+public class InputSplitPlanner {
+  
+  private static final Logger log = Logger.getLogger(InputSplitPlanner.class);
+  
+  // bounds the number of pieces a single tablet is divided into, and so the work done reading its indexes
+  private static final int MAX_PIECES_PER_TABLET = 1000;
+  
+  /**
+   * The ranges one input split should read, and the tablet server that hosts them.
+   */
+  public static class PlannedSplit {
+    private final String location;
+    private final List<Range> ranges = new ArrayList<Range>();
+    private long size = 0;
+    
+    PlannedSplit(String location) {
+      this.location = location;
+    }
+    
+    /**
+     * @return the tablet server hosting this split's ranges, as host:port
+     */
+    public String getLocation() {
+      return location;
+    }
+    
+    /**
+     * @return this split's ranges, in sorted order
+     */
+    public List<Range> getRanges() {
+      return ranges;
+    }
+    
+    /**
+     * @return the estimated number of bytes this split will read
+     */
+    public long getSize() {
+      return size;
+    }
+  }
+  
+  /**
+   * Finds rows that divide a tablet into pieces of roughly equal size.
+   */
+  public static interface RowSampler {
+    /**
+     * @return at most numPieces - 1 sorted rows within the tablet; an empty list if the tablet can not be divided
+     */
+    List<Text> findSplitRows(KeyExtent extent, int numPieces);
+  }
+  
+  /**
+   * Groups the binned ranges of a table into splits of about splitSize bytes each.
+   * 
+   * @param binnedRanges
+   *          ranges clipped to tablets and grouped by tablet server, as produced by {@link org.apache.accumulo.core.client.impl.TabletLocator#binRanges}
+   * @param tabletSizes
+   *          estimated size of each tablet; a tablet without an estimate gets a split of its own
+   * @param splitSize
+   *          the target split size in bytes
+   * @param sampler
+   *          used to divide tablets larger than splitSize, or null to never divide tablets
+   */
+  public static List<PlannedSplit> planSplits(Map<String,Map<KeyExtent,List<Range>>> binnedRanges, Map<KeyExtent,Long> tabletSizes, long splitSize,
+      RowSampler sampler) {
+    List<PlannedSplit> splits = new ArrayList<PlannedSplit>();
+    
+    for (Entry<String,Map<KeyExtent,List<Range>>> tserverBin : binnedRanges.entrySet()) {
+      String location = tserverBin.getKey();
+      
+      // visit the tablets in order, so a combined split reads its ranges in order
+      List<KeyExtent> extents = new ArrayList<KeyExtent>(tserverBin.getValue().keySet());
+      Collections.sort(extents);
+      
+      PlannedSplit current = null;
+      
+      for (KeyExtent extent : extents) {
+        Range tabletRange = extent.toDataRange();
+        List<Range> clipped = new ArrayList<Range>();
+        for (Range range : tserverBin.getValue().get(extent))
+          clipped.add(tabletRange.clip(range));
+        clipped = Range.mergeOverlapping(clipped);
+        
+        Long size = tabletSizes.get(extent);
+        if (size == null || size >= splitSize) {
+          long tabletSize = size == null ? splitSize : size;
+          List<Text> rows = Collections.emptyList();
+          if (size != null && sampler != null && size >= 2 * splitSize)
+            rows = sampler.findSplitRows(extent, (int) Math.min(MAX_PIECES_PER_TABLET, (size + splitSize - 1) / splitSize));
+          
+          for (Range piece : divide(extent, rows)) {
+            PlannedSplit split = new PlannedSplit(location);
+            for (Range range : clipped) {
+              Range pieceRange = piece.clip(range, true);
+              if (pieceRange != null)
+                split.ranges.add(pieceRange);
+            }
+            if (!split.ranges.isEmpty()) {
+              split.size = tabletSize / (rows.size() + 1);
+              splits.add(split);
+            }
+          }
+          continue;
+        }
+        
+        if (current == null)
+          current = new PlannedSplit(location);
+        current.ranges.addAll(clipped);
+        current.size += size;
+        if (current.size >= splitSize) {
+          splits.add(current);
+          current = null;
+        }
+      }
+      
+      if (current != null)
+        splits.add(current);
+    }
+    
+    return splits;
+  }
+  
+  private static List<Range> divide(KeyExtent extent, List<Text> rows) {
+    List<Range> pieces = new ArrayList<Range>(rows.size() + 1);
+    Text prevRow = extent.getPrevEndRow();
+    for (Text row : rows) {
+      pieces.add(new Range(prevRow, false, row, true));
+      prevRow = row;
+    }
+    pieces.add(new Range(prevRow, false, extent.getEndRow(), true));
+    return pieces;
+  }
+  
+  /**
+   * Plans the splits for a job using tablet sizes read from the metadata table. Tablets are only divided if the indexes of their files can be read from HDFS.
+   * 
+   * @param implementingClass
+   *          the class whose name will be used as a prefix for the property configuration key
+   * @param conf
+   *          the Hadoop configuration object for the job
+   * @param binnedRanges
+   *          ranges clipped to tablets and grouped by tablet server
+   */
+  public static List<PlannedSplit> planSplits(Class<?> implementingClass, Configuration conf, Map<String,Map<KeyExtent,List<Range>>> binnedRanges)
+      throws IOException {
+    long splitSize = InputConfigurator.getSplitSize(implementingClass, conf);
+    
+    try {
+      Instance instance = InputConfigurator.getInstance(implementingClass, conf);
+      Connector conn = instance.getConnector(new Credential(InputConfigurator.getPrincipal(implementingClass, conf), InputConfigurator.getTokenClass(
+          implementingClass, conf), ByteBuffer.wrap(InputConfigurator.getToken(implementingClass, conf)), instance.getInstanceID()));
+      String tableId = Tables.getTableId(instance, InputConfigurator.getInputTableName(implementingClass, conf));
+      
+      Map<KeyExtent,Long> tabletSizes = new HashMap<KeyExtent,Long>();
+      Map<KeyExtent,List<String>> tabletFiles = new HashMap<KeyExtent,List<String>>();
+      readTabletFiles(instance, conn, tableId, tabletSizes, tabletFiles);
+      
+      IndexSampler sampler = new IndexSampler(instance, AccumuloConfiguration.getTableConfiguration(conn, tableId), tabletFiles);
+      return planSplits(binnedRanges, tabletSizes, splitSize, sampler);
+    } catch (IOException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IOException(e);
+    }
+  }
+  
+  private static void readTabletFiles(Instance instance, Connector conn, String tableId, Map<KeyExtent,Long> tabletSizes,
+      Map<KeyExtent,List<String>> tabletFiles) throws Exception {
+    String tablesDir = Constants.getTablesDir(instance.getConfiguration());
+    
+    Scanner scanner = conn.createScanner(Constants.METADATA_TABLE_NAME, Constants.NO_AUTHS);
+    Constants.METADATA_PREV_ROW_COLUMN.fetch(scanner);
+    scanner.fetchColumnFamily(Constants.METADATA_DATAFILE_COLUMN_FAMILY);
+    scanner.setRange(new KeyExtent(new Text(tableId), null, null).toMetadataRange());
+    
+    Text row = null;
+    Text prevRow = null;
+    long size = 0;
+    List<String> files = new ArrayList<String>();
+    
+    // the prev row column sorts after the data files, so each tablet is complete when it is seen
+    for (Entry<Key,Value> entry : scanner) {
+      Key key = entry.getKey();
+      if (row == null || !key.getRow().equals(row)) {
+        row = key.getRow();
+        size = 0;
+        files = new ArrayList<String>();
+      }
+      
+      if (key.getColumnFamily().equals(Constants.METADATA_DATAFILE_COLUMN_FAMILY)) {
+        size += new DataFileValue(entry.getValue().get()).getSize();
+        String relPath = key.getColumnQualifier().toString();
+        if (relPath.startsWith(".."))
+          files.add(tablesDir + relPath.substring(2));
+        else
+          files.add(tablesDir + "/" + tableId + relPath);
+      } else if (Constants.METADATA_PREV_ROW_COLUMN.hasColumns(key)) {
+        KeyExtent extent = new KeyExtent(row, entry.getValue());
+        tabletSizes.put(extent, size);
+        tabletFiles.put(extent, files);
+      }
+    }
+  }
+  
+  private static class IndexSampler implements RowSampler {
+    private final Instance instance;
+    private final AccumuloConfiguration tableConf;
+    private final Map<KeyExtent,List<String>> tabletFiles;
+    private FileSystem fs = null;
+    private boolean failed = false;
+    
+    IndexSampler(Instance instance, AccumuloConfiguration tableConf, Map<KeyExtent,List<String>> tabletFiles) {
+      this.instance = instance;
+      this.tableConf = tableConf;
+      this.tabletFiles = tabletFiles;
+    }
+    
+    @Override
+    public List<Text> findSplitRows(KeyExtent extent, int numPieces) {
+      List<String> files = tabletFiles.get(extent);
+      if (failed || files == null || files.isEmpty())
+        return Collections.emptyList();
+      try {
+        if (fs == null)
+          fs = FileUtil.getFileSystem(CachedConfiguration.getInstance(), instance.getConfiguration());
+        return FileUtil.findSplitRows(fs, tableConf, extent.getPrevEndRow(), extent.getEndRow(), files, numPieces);
+      } catch (IOException e) {
+        // most likely the files can not be read at all, so do not keep trying
+        log.warn("Unable to read indexes to divide " + extent + ", large tablets will not be divided: " + e.getMessage());
+        failed = true;
+        return Collections.emptyList();
+      }
+    }
+  }
+  
+  /**
+   * Reads each of the given ranges in turn with the given scanner.
+   */
+  public static Iterator<Entry<Key,Value>> scanRanges(final Scanner scanner, final List<Range> ranges) {
+    return new Iterator<Entry<Key,Value>>() {
+      private int nextRange = 0;
+      private Iterator<Entry<Key,Value>> iter = null;
+      
+      @Override
+      public boolean hasNext() {
+        while (iter == null || !iter.hasNext()) {
+          if (nextRange >= ranges.size())
+            return false;
+          scanner.setRange(ranges.get(nextRange++));
+          iter = scanner.iterator();
+        }
+        return true;
+      }
+      
+      @Override
+      public Entry<Key,Value> next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        return iter.next();
+      }
+      
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+}
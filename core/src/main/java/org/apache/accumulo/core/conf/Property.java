@@ -151,6 +151,9 @@ public enum Property {
       "The maximum number of concurrent metadata read ahead that will execute."),
   TSERV_MIGRATE_MAXCONCURRENT("tserver.migrations.concurrent.max", "1", PropertyType.COUNT,
       "The maximum number of concurrent tablet migrations for a tablet server"),
+  TSERV_ASSIGNMENT_MAXCONCURRENT("tserver.assignment.concurrent.max", "2", PropertyType.COUNT,
+      "The maximum number of concurrent tablet assignments for a tablet server.  Tablets that need write-ahead log recovery replay their logs"
+          + " concurrently up to this limit."),
   TSERV_MAJC_MAXCONCURRENT("tserver.compaction.major.concurrent.max", "3", PropertyType.COUNT,
       "The maximum number of concurrent major compactions for a tablet server"),
   TSERV_MINC_MAXCONCURRENT("tserver.compaction.minor.concurrent.max", "4", PropertyType.COUNT,
@@ -182,6 +185,9 @@ public enum Property {
   TSERV_BULK_TIMEOUT("tserver.bulk.timeout", "5m", PropertyType.TIMEDURATION, "The time to wait for a tablet server to process a bulk import request."),
   TSERV_MINTHREADS("tserver.server.threads.minimum", "20", PropertyType.COUNT, "The minimum number of threads to use to handle incoming requests."),
   TSERV_THREADCHECK("tserver.server.threadcheck.time", "1s", PropertyType.TIMEDURATION, "The time between adjustments of the server thread pool."),
+  TSERV_SELECTOR_THREADS("tserver.server.selector.threads", "1", PropertyType.COUNT,
+      "The number of threads reading requests from and writing responses to client connections.  With more than one, client connections are spread"
+          + " across that many threads, so reading and writing is not limited to a single core."),
   TSERV_HOLD_TIME_SUICIDE("tserver.hold.time.max", "5m", PropertyType.TIMEDURATION,
       "The maximum time for a tablet server to be in the \"memory full\" state.  If the tablet server cannot write out memory"
           + " in this much time, it will assume there is some failure local to its node, and quit.  A value of zero is equivalent to forever."),
@@ -206,7 +212,15 @@ public enum Property {
   GC_CYCLE_DELAY("gc.cycle.delay", "5m", PropertyType.TIMEDURATION, "Time between garbage collection cycles. In each cycle, old files "
       + "no longer in use are removed from the filesystem."),
   GC_PORT("gc.port.client", "50091", PropertyType.PORT, "The listening port for the garbage collector's monitor service"),
-  GC_DELETE_THREADS("gc.threads.delete", "16", PropertyType.COUNT, "The number of threads used to delete files"),
+  GC_DELETE_THREADS("gc.threads.delete", "16", PropertyType.COUNT,
+      "The number of threads used to delete files, and to list and remove write-ahead logs"),
+  GC_SCAN_THREADS("gc.threads.scan", "1", PropertyType.COUNT,
+      "The number of threads used to scan the METADATA table for files that are still in use.  When greater than one, the METADATA table is partitioned"
+          + " by table and the partitions are scanned concurrently."),
+  GC_CANDIDATE_BATCH_SIZE("gc.candidates.batch.size", "0", PropertyType.COUNT,
+      "The maximum number of deletion candidates the garbage collector processes at once.  Candidates beyond this are collected in subsequent batches,"
+          + " and the position of the next batch is kept in zookeeper so that a restarted garbage collector resumes where it left off.  If zero, candidates"
+          + " are gathered until memory runs low."),
   
   // properties that are specific to the monitor server behavior
   MONITOR_PREFIX("monitor.", null, PropertyType.PREFIX, "Properties in this category affect the behavior of the monitor web server."),
@@ -226,6 +240,10 @@ public enum Property {
   TRACE_TABLE("trace.table", "trace", PropertyType.STRING, "The name of the table to store distributed traces"),
   TRACE_USER("trace.user", "root", PropertyType.STRING, "The name of the user to store distributed traces"),
   TRACE_PASSWORD("trace.password", "secret", PropertyType.STRING, "The password for the user used to store distributed traces"),
+  TRACE_SPAN_TAIL_THRESHOLD("trace.span.tail.threshold", "0", PropertyType.TIMEDURATION,
+      "When set, spans are held in memory until their trace is done, and only traces that took at least this long are sent to the trace table. "
+          + "Each process judges only the spans of a trace it holds, so a slow trace may be stored without the spans of the processes that were fast. "
+          + "Zero sends every trace."),
   
   // per table properties
   TABLE_PREFIX("table.", null, PropertyType.PREFIX, "Properties in this category affect tablet server treatment of tablets, but can be configured "
@@ -244,6 +262,9 @@ public enum Property {
           + "Compactions of idle tablets are only started when regular compactions are not running. Idle "
           + "compactions only take place for tablets that have one or more map files."),
   TABLE_SPLIT_THRESHOLD("table.split.threshold", "1G", PropertyType.MEMORY, "When combined size of files exceeds this amount a tablet is split."),
+  TABLE_SPLIT_BY_LOAD("table.split.load", "false", PropertyType.BOOLEAN,
+      "When a tablet is split, split it at a row that divides its recent reads and writes, rather than its data, if the tablet server has "
+          + "seen enough load to choose one."),
   TABLE_MINC_LOGS_MAX("table.compaction.minor.logs.threshold", "3", PropertyType.COUNT,
       "When there are more than this many write-ahead logs against a tablet, it will be minor compacted.  See comment for property tserver.memory.maps.max"),
   TABLE_MINC_COMPACT_IDLETIME("table.compaction.minor.idle", "5m", PropertyType.TIMEDURATION,
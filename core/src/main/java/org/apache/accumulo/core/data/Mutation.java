@@ -212,11 +212,25 @@ public class Mutation implements Writable {
   
   public Mutation() {}
   
+  /**
+   * Creates a mutation from its thrift form. Where a thrift buffer covers all of its backing array, as buffers read by thrift do, that array is used without
+   * copying, so the thrift mutation should not be changed afterwards.
+   */
   public Mutation(TMutation tmutation) {
-    this.row = ByteBufferUtil.toBytes(tmutation.row);
-    this.data = ByteBufferUtil.toBytes(tmutation.data);
+    this.row = toBytesShared(tmutation.row);
+    this.data = toBytesShared(tmutation.data);
     this.entries = tmutation.entries;
-    this.values = ByteBufferUtil.toBytesList(tmutation.values);
+    if (tmutation.values != null) {
+      this.values = new ArrayList<byte[]>(tmutation.values.size());
+      for (java.nio.ByteBuffer value : tmutation.values)
+        this.values.add(toBytesShared(value));
+    }
+  }
+  
+  private static byte[] toBytesShared(java.nio.ByteBuffer buffer) {
+    if (buffer != null && buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0 && buffer.limit() == buffer.array().length)
+      return buffer.array();
+    return ByteBufferUtil.toBytes(buffer);
   }
   
   public Mutation(Mutation m) {
@@ -356,6 +356,64 @@ public class FileUtil {
     }
   }
   
+  /**
+   * Uses the indexes of the given files to find rows that divide a tablet into pieces with roughly the same number of index entries.
+   * 
+   * @param numPieces
+   *          the number of pieces wanted
+   * @return at most numPieces - 1 distinct rows in sorted order, each after prevEndRow and before endRow
+   */
+  public static List<Text> findSplitRows(FileSystem fs, AccumuloConfiguration acuConf, Text prevEndRow, Text endRow, Collection<String> mapFiles, int numPieces)
+      throws IOException {
+    Configuration conf = CachedConfiguration.getInstance();
+    
+    int maxToOpen = acuConf.getCount(Property.TSERV_TABLET_SPLIT_FINDMIDPOINT_MAXOPEN);
+    if (mapFiles.size() > maxToOpen) {
+      // reducing the indexes needs a tmp dir to write to, so just sample some of them
+      log.debug("Too many indexes (" + mapFiles.size() + ") to open at once for " + endRow + " " + prevEndRow + ", only using " + maxToOpen);
+      mapFiles = new ArrayList<String>(mapFiles).subList(0, maxToOpen);
+    }
+    
+    ArrayList<FileSKVIterator> readers = new ArrayList<FileSKVIterator>(mapFiles.size());
+    
+    try {
+      List<Text> rows = new ArrayList<Text>();
+      
+      long numKeys = countIndexEntries(acuConf, prevEndRow, endRow, mapFiles, true, conf, fs, readers);
+      if (numKeys == 0 || numPieces < 2)
+        return rows;
+      
+      List<SortedKeyValueIterator<Key,Value>> iters = new ArrayList<SortedKeyValueIterator<Key,Value>>(readers);
+      MultiIterator mmfi = new MultiIterator(iters, true);
+      
+      // skip the prevendrow
+      while (prevEndRow != null && mmfi.hasTop() && mmfi.getTopKey().compareRow(prevEndRow) <= 0)
+        mmfi.next();
+      
+      long keysRead = 0;
+      int piece = 1;
+      
+      while (mmfi.hasTop() && piece < numPieces) {
+        Key key = mmfi.getTopKey();
+        if (endRow != null && key.compareRow(endRow) >= 0)
+          break;
+        
+        if (keysRead >= numKeys * piece / numPieces) {
+          if (rows.isEmpty() || key.compareRow(rows.get(rows.size() - 1)) != 0)
+            rows.add(key.getRow());
+          piece++;
+        }
+        
+        keysRead++;
+        mmfi.next();
+      }
+      
+      return rows;
+    } finally {
+      cleanupIndexOp(acuConf, null, fs, readers);
+    }
+  }
+  
   private static void cleanupIndexOp(AccumuloConfiguration acuConf, String tmpDir, FileSystem fs, ArrayList<FileSKVIterator> readers) throws IOException {
     // close all of the index sequence files
     for (FileSKVIterator r : readers) {
@@ -32,6 +32,7 @@ import org.apache.accumulo.core.file.blockfile.cache.CacheEntry;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile.Reader.BlockReader;
 import org.apache.accumulo.core.file.rfile.bcfile.BCFile.Writer.BlockAppender;
+import org.apache.accumulo.core.util.LatencyHistogram;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FSDataOutputStream;
@@ -50,6 +51,13 @@ public class CachableBlockFile {
   
   private static final Logger log = Logger.getLogger(CachableBlockFile.class);
   
+  /**
+   * The name of the {@link LatencyHistogram} of reading blocks into the block caches, which includes reading and decompressing them
+   */
+  public static final String BLOCK_LOAD_LATENCY = "file.block.load";
+  
+  private static final LatencyHistogram blockLoadLatency = LatencyHistogram.get(BLOCK_LOAD_LATENCY);
+  
   public static class Writer implements BlockFileWriter {
     private BCFile.Writer _bc;
     private BlockWrite _bw;
@@ -330,6 +338,7 @@ public class CachableBlockFile {
          * 
          */
         byte b[] = null;
+        long t1 = System.nanoTime();
         try {
           b = new byte[(int) _currBlock.getRawSize()];
           _currBlock.readFully(b);
@@ -346,6 +355,7 @@ public class CachableBlockFile {
         } catch (Exception e) {
           log.warn("Already cached block: " + _lookup, e);
         }
+        blockLoadLatency.record(System.nanoTime() - t1);
         
         if (ce == null)
           return new BlockRead(new DataInputStream(new ByteArrayInputStream(b)), b.length);
@@ -57,6 +57,11 @@ public final class BCFile {
   static final Version API_VERSION = new Version((short) 1, (short) 0);
   static final Log LOG = LogFactory.getLog(BCFile.class);
   
+  /**
+   * The name of the {@link org.apache.accumulo.core.util.LatencyHistogram} of reads from the underlying file system
+   */
+  public static final String READ_LATENCY = "file.read";
+  
   /**
    * Prevent the instantiation of BCFile objects.
    */
@@ -23,6 +23,7 @@ import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 
+import org.apache.accumulo.core.util.LatencyHistogram;
 import org.apache.hadoop.fs.FSDataInputStream;
 
 /**
@@ -31,6 +32,8 @@ import org.apache.hadoop.fs.FSDataInputStream;
  */
 class BoundedRangeFileInputStream extends InputStream {
   
+  private static final LatencyHistogram readLatency = LatencyHistogram.get(BCFile.READ_LATENCY);
+  
   private FSDataInputStream in;
   private long pos;
   private long end;
@@ -94,6 +97,7 @@ class BoundedRangeFileInputStream extends InputStream {
       return -1;
     Integer ret = 0;
     final FSDataInputStream inLocal = in;
+    long t1 = System.nanoTime();
     synchronized (inLocal) {
     	inLocal.seek(pos);
       try {
@@ -109,6 +113,7 @@ class BoundedRangeFileInputStream extends InputStream {
         throw (IOException) e.getException();
       }
     }
+    readLatency.record(System.nanoTime() - t1);
     if (ret < 0) {
       end = pos;
       return -1;
@@ -18,8 +18,8 @@ package org.apache.accumulo.core.file.rfile.bcfile;
 
 import java.util.Comparator;
 
+import org.apache.accumulo.core.util.FastByteComparisons;
 import org.apache.hadoop.io.RawComparator;
-import org.apache.hadoop.io.WritableComparator;
 
 class CompareUtils {
   /**
@@ -83,7 +83,7 @@ class CompareUtils {
   public static final class MemcmpRawComparator implements RawComparator<Object> {
     @Override
     public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
-      return WritableComparator.compareBytes(b1, s1, l1, b2, s2, l2);
+      return FastByteComparisons.compareTo(b1, s1, l1, b2, s2, l2);
     }
     
     @Override
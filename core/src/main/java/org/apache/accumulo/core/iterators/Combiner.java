@@ -161,10 +161,7 @@ public abstract class Combiner extends WrappingIterator implements OptionDescrib
         if (workKey.isDeleted())
           return;
         topKey = workKey;
-        Iterator<Value> viter = new ValueIterator(getSource());
-        topValue = reduce(topKey, viter);
-        while (viter.hasNext())
-          viter.next();
+        topValue = reduceVersions(topKey, getSource());
       }
     }
   }
@@ -205,6 +202,26 @@ public abstract class Combiner extends WrappingIterator implements OptionDescrib
    */
   public abstract Value reduce(Key key, Iterator<Value> iter);
   
+  /**
+   * Reduces the Values of all non-deleted versions of the source's top key, leaving the source positioned after them. The default implementation passes a
+   * {@link ValueIterator} to {@link #reduce(Key, Iterator)}. Subclasses may override this to read Values directly from the source, without copying each one.
+   * 
+   * @param key
+   *          The most recent version of the Key being reduced.
+   * 
+   * @param source
+   *          The source, positioned on the most recent version of the key.
+   * 
+   * @return The combined Value.
+   */
+  protected Value reduceVersions(Key key, SortedKeyValueIterator<Key,Value> source) throws IOException {
+    Iterator<Value> viter = new ValueIterator(source);
+    Value value = reduce(key, viter);
+    while (viter.hasNext())
+      viter.next();
+    return value;
+  }
+  
   private ColumnSet combiners;
   private boolean combineAllColumns;
   
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.conf.AccumuloConfiguration;
@@ -96,7 +97,10 @@ public class IteratorUtil {
     return max;
   }
   
-  private static void parseIterConf(IteratorScope scope, List<IterInfo> iters, Map<String,Map<String,String>> allOptions, AccumuloConfiguration conf) {
+  /**
+   * Reads the iterators configured for a scope, and their options, from a table configuration. The iterators are added to iters in priority order.
+   */
+  public static void parseIterConf(IteratorScope scope, List<IterInfo> iters, Map<String,Map<String,String>> allOptions, AccumuloConfiguration conf) {
     for (Entry<String,String> entry : conf) {
       if (entry.getKey().startsWith(Property.TABLE_ITERATOR_PREFIX.getKey())) {
         
@@ -194,10 +198,26 @@ public class IteratorUtil {
   public static <K extends WritableComparable<?>,V extends Writable> SortedKeyValueIterator<K,V> loadIterators(IteratorScope scope,
       SortedKeyValueIterator<K,V> source, KeyExtent extent, AccumuloConfiguration conf, List<IterInfo> ssiList, Map<String,Map<String,String>> ssio,
       IteratorEnvironment env, boolean useAccumuloClassLoader) throws IOException {
+    List<IterInfo> tableIters = new ArrayList<IterInfo>();
+    Map<String,Map<String,String>> tableOpts = new HashMap<String,Map<String,String>>();
+    
+    parseIterConf(scope, tableIters, tableOpts, conf);
+    
+    return loadIterators(source, tableIters, tableOpts, ssiList, ssio, env, useAccumuloClassLoader, conf.get(Property.TABLE_CLASSPATH));
+  }
+  
+  /**
+   * Loads table iterators that were already read from the table configuration using {@link #parseIterConf}, along with the iterators of a scan. This allows
+   * the table configuration to be read once and used for many scans. The table iterators and their options are not modified.
+   */
+  public static <K extends WritableComparable<?>,V extends Writable> SortedKeyValueIterator<K,V> loadIterators(SortedKeyValueIterator<K,V> source,
+      List<IterInfo> tableIters, Map<String,Map<String,String>> tableOpts, List<IterInfo> ssiList, Map<String,Map<String,String>> ssio,
+      IteratorEnvironment env, boolean useAccumuloClassLoader, String context) throws IOException {
     List<IterInfo> iters = new ArrayList<IterInfo>(ssiList);
-    Map<String,Map<String,String>> allOptions = new HashMap<String,Map<String,String>>();
+    iters.addAll(tableIters);
+    Collections.sort(iters, new IterInfoComparator());
     
-    parseIterConf(scope, iters, allOptions, conf);
+    Map<String,Map<String,String>> allOptions = new HashMap<String,Map<String,String>>(tableOpts);
     
     for (Entry<String,Map<String,String>> entry : ssio.entrySet()) {
       if (entry.getValue() == null)
@@ -206,11 +226,47 @@ public class IteratorUtil {
       if (options == null) {
         allOptions.put(entry.getKey(), entry.getValue());
       } else {
+        options = new HashMap<String,String>(options);
         options.putAll(entry.getValue());
+        allOptions.put(entry.getKey(), options);
       }
     }
     
-    return loadIterators(source, iters, allOptions, env, useAccumuloClassLoader, conf.get(Property.TABLE_CLASSPATH));
+    return loadIterators(source, iters, allOptions, env, useAccumuloClassLoader, context);
+  }
+  
+  /**
+   * Classes loaded by one class loader. Looking up a class through the Accumulo class loaders is synchronized, so resolving every iterator of every scan
+   * through them makes scans contend with each other.
+   */
+  private static class LoadedClasses {
+    final ClassLoader loader;
+    final ConcurrentHashMap<String,Class<?>> classes = new ConcurrentHashMap<String,Class<?>>();
+    
+    LoadedClasses(ClassLoader loader) {
+      this.loader = loader;
+    }
+  }
+  
+  // keyed by class loader context, with the empty string for the system class loader
+  private static final ConcurrentHashMap<String,LoadedClasses> loadedClasses = new ConcurrentHashMap<String,LoadedClasses>();
+  
+  private static LoadedClasses getLoadedClasses(String context) throws IOException {
+    ClassLoader loader;
+    if (context != null && !context.equals(""))
+      loader = AccumuloVFSClassLoader.getContextManager().getClassLoader(context);
+    else {
+      context = "";
+      loader = AccumuloVFSClassLoader.getClassLoader();
+    }
+    
+    LoadedClasses lc = loadedClasses.get(context);
+    if (lc == null || lc.loader != loader) {
+      // the class loader was reloaded, so forget the classes loaded by the old one
+      lc = new LoadedClasses(loader);
+      loadedClasses.put(context, lc);
+    }
+    return lc;
   }
   
   @SuppressWarnings("unchecked")
@@ -220,16 +276,22 @@ public class IteratorUtil {
     // wrap the source in a SynchronizedIterator in case any of the additional configured iterators want to use threading
     SortedKeyValueIterator<K,V> prev = new SynchronizedIterator<K,V>(source);
     
+    if (iters.isEmpty())
+      return prev;
+    
     try {
+      LoadedClasses lc = useAccumuloClassLoader ? getLoadedClasses(context) : null;
+      
       for (IterInfo iterInfo : iters) {
        
         Class<? extends SortedKeyValueIterator<K,V>> clazz;
         if (useAccumuloClassLoader){
-          if (context != null && !context.equals(""))
-            clazz = (Class<? extends SortedKeyValueIterator<K,V>>) AccumuloVFSClassLoader.getContextManager().loadClass(context, iterInfo.className,
-                SortedKeyValueIterator.class);
-          else
-            clazz = (Class<? extends SortedKeyValueIterator<K,V>>) AccumuloVFSClassLoader.loadClass(iterInfo.className, SortedKeyValueIterator.class);
+          Class<?> loaded = lc.classes.get(iterInfo.className);
+          if (loaded == null) {
+            loaded = lc.loader.loadClass(iterInfo.className).asSubclass(SortedKeyValueIterator.class);
+            lc.classes.put(iterInfo.className, loaded);
+          }
+          clazz = (Class<? extends SortedKeyValueIterator<K,V>>) loaded;
         }else{
           clazz = (Class<? extends SortedKeyValueIterator<K,V>>) Class.forName(iterInfo.className).asSubclass(SortedKeyValueIterator.class);
         }
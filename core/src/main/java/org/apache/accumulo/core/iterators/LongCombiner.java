@@ -16,15 +16,12 @@
  */
 package org.apache.accumulo.core.iterators;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.Map;
 
 import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Value;
 import org.apache.hadoop.io.WritableUtils;
 
@@ -61,10 +58,77 @@ public abstract class LongCombiner extends TypedValueCombiner<Long> {
     STRING
   }
   
+  /**
+   * An Encoder that can also translate directly between byte[] and primitive longs.
+   */
+  public static interface PrimitiveEncoder extends Encoder<Long> {
+    public byte[] encodeLong(long l);
+    
+    public long decodeLong(byte[] b) throws ValueFormatException;
+  }
+  
+  /**
+   * A reduce function over primitive longs.
+   */
+  public static interface LongReducer {
+    /**
+     * @return the result of reducing no values
+     */
+    public long initialValue();
+    
+    public long reduce(long accumulator, long value);
+  }
+  
+  private LongReducer reducer = null;
+  private boolean reducerChecked = false;
+  
+  /**
+   * Returns a reduce function over primitive longs equivalent to typedReduce, or null if there is none. When a function is returned, and the encoder is a
+   * {@link PrimitiveEncoder}, values are reduced with it instead of reduce and typedReduce. A subclass of a combiner that returns a function, and that overrides
+   * reduce or typedReduce, must override this method to return null.
+   */
+  protected LongReducer getLongReducer() {
+    return null;
+  }
+  
+  private LongReducer getPrimitiveReducer() {
+    if (!reducerChecked) {
+      LongReducer r = getLongReducer();
+      if (r != null && getEncoder() instanceof PrimitiveEncoder)
+        reducer = r;
+      reducerChecked = true;
+    }
+    return reducer;
+  }
+  
+  @Override
+  protected Value reduceVersions(Key key, SortedKeyValueIterator<Key,Value> source) throws IOException {
+    LongReducer r = getPrimitiveReducer();
+    if (r == null)
+      return super.reduceVersions(key, source);
+    
+    PrimitiveEncoder encoder = (PrimitiveEncoder) getEncoder();
+    boolean lossy = isLossy();
+    Key first = new Key(source.getTopKey());
+    long accumulator = r.initialValue();
+    while (source.hasTop() && !source.getTopKey().isDeleted() && first.equals(source.getTopKey(), PartialKey.ROW_COLFAM_COLQUAL_COLVIS)) {
+      try {
+        accumulator = r.reduce(accumulator, encoder.decodeLong(source.getTopValue().get()));
+      } catch (ValueFormatException vfe) {
+        if (!lossy)
+          throw vfe;
+      }
+      source.next();
+    }
+    return new Value(encoder.encodeLong(accumulator), false);
+  }
+  
   @Override
   public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
     super.init(source, options, env);
     setEncoder(options);
+    reducerChecked = false;
+    reducer = null;
   }
   
   private void setEncoder(Map<String,String> options) {
@@ -113,40 +177,81 @@ public abstract class LongCombiner extends TypedValueCombiner<Long> {
   }
   
   /**
-   * An Encoder that uses a variable-length encoding for Longs. It uses WritableUtils.writeVLong and WritableUtils.readVLong for encoding and decoding.
+   * An Encoder that uses a variable-length encoding for Longs. It uses the same format as WritableUtils.writeVLong and WritableUtils.readVLong.
    */
-  public static class VarLenEncoder implements Encoder<Long> {
+  public static class VarLenEncoder implements PrimitiveEncoder {
     @Override
     public byte[] encode(Long v) {
-      ByteArrayOutputStream baos = new ByteArrayOutputStream();
-      DataOutputStream dos = new DataOutputStream(baos);
+      return encodeLong(v);
+    }
+    
+    @Override
+    public Long decode(byte[] b) {
+      return decodeLong(b);
+    }
+    
+    @Override
+    public byte[] encodeLong(long v) {
+      if (v >= -112 && v <= 127)
+        return new byte[] {(byte) v};
       
-      try {
-        WritableUtils.writeVLong(dos, v);
-      } catch (IOException e) {
-        throw new NumberFormatException(e.getMessage());
+      int len = -112;
+      if (v < 0) {
+        v ^= -1L; // take one's complement
+        len = -120;
       }
       
-      return baos.toByteArray();
+      long tmp = v;
+      while (tmp != 0) {
+        tmp = tmp >> 8;
+        len--;
+      }
+      
+      int size = (len < -120) ? -(len + 120) : -(len + 112);
+      byte[] b = new byte[size + 1];
+      b[0] = (byte) len;
+      for (int idx = size; idx != 0; idx--) {
+        int shiftbits = (idx - 1) * 8;
+        b[size - idx + 1] = (byte) ((v >> shiftbits) & 0xFF);
+      }
+      return b;
     }
     
     @Override
-    public Long decode(byte[] b) {
-      DataInputStream dis = new DataInputStream(new ByteArrayInputStream(b));
-      try {
-        return WritableUtils.readVLong(dis);
-      } catch (IOException e) {
-        throw new ValueFormatException(e);
+    public long decodeLong(byte[] b) {
+      if (b.length == 0)
+        throw new ValueFormatException("empty value");
+      byte firstByte = b[0];
+      int len = WritableUtils.decodeVIntSize(firstByte);
+      if (len == 1)
+        return firstByte;
+      if (b.length < len)
+        throw new ValueFormatException("trying to read a variable length long of " + len + " bytes, but only found " + b.length);
+      long i = 0;
+      for (int idx = 1; idx < len; idx++) {
+        i = i << 8;
+        i = i | (b[idx] & 0xFF);
       }
+      return WritableUtils.isNegativeVInt(firstByte) ? (i ^ -1L) : i;
     }
   }
   
   /**
    * An Encoder that uses an 8-byte encoding for Longs.
    */
-  public static class FixedLenEncoder implements Encoder<Long> {
+  public static class FixedLenEncoder implements PrimitiveEncoder {
     @Override
     public byte[] encode(Long l) {
+      return encodeLong(l);
+    }
+    
+    @Override
+    public Long decode(byte[] b) {
+      return decode(b, 0);
+    }
+    
+    @Override
+    public byte[] encodeLong(long l) {
       byte[] b = new byte[8];
       b[0] = (byte) (l >>> 56);
       b[1] = (byte) (l >>> 48);
@@ -160,7 +265,7 @@ public abstract class LongCombiner extends TypedValueCombiner<Long> {
     }
     
     @Override
-    public Long decode(byte[] b) {
+    public long decodeLong(byte[] b) {
       return decode(b, 0);
     }
     
@@ -175,14 +280,24 @@ public abstract class LongCombiner extends TypedValueCombiner<Long> {
   /**
    * An Encoder that uses a String representation of Longs. It uses Long.toString and Long.parseLong for encoding and decoding.
    */
-  public static class StringEncoder implements Encoder<Long> {
+  public static class StringEncoder implements PrimitiveEncoder {
     @Override
     public byte[] encode(Long v) {
-      return Long.toString(v).getBytes();
+      return encodeLong(v);
     }
     
     @Override
     public Long decode(byte[] b) {
+      return decodeLong(b);
+    }
+    
+    @Override
+    public byte[] encodeLong(long l) {
+      return Long.toString(l).getBytes();
+    }
+    
+    @Override
+    public long decodeLong(byte[] b) {
       try {
         return Long.parseLong(new String(b));
       } catch (NumberFormatException nfe) {
@@ -122,6 +122,20 @@ public abstract class TypedValueCombiner<V> extends Combiner {
     this.encoder = encoder;
   }
   
+  /**
+   * @return the Encoder<V> used to translate Values to V and back
+   */
+  protected Encoder<V> getEncoder() {
+    return encoder;
+  }
+  
+  /**
+   * @return true if Values that fail to decode are skipped rather than causing an error
+   */
+  protected boolean isLossy() {
+    return lossy;
+  }
+  
   /**
    * Instantiates and sets the Encoder<V> used to translate Values to V and back.
    * 
@@ -180,6 +194,7 @@ public abstract class TypedValueCombiner<V> extends Combiner {
   public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
     TypedValueCombiner<V> newInstance = (TypedValueCombiner<V>) super.deepCopy(env);
     newInstance.setEncoder(encoder);
+    newInstance.lossy = lossy;
     return newInstance;
   }
   
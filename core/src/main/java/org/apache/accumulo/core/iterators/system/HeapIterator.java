@@ -17,27 +17,32 @@
 package org.apache.accumulo.core.iterators.system;
 
 import java.io.IOException;
+import java.util.Comparator;
+import java.util.PriorityQueue;
 
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
-import org.apache.commons.collections.buffer.PriorityBuffer;
 
+/**
+ * Merges sorted sources. The source with the smallest key is kept out of the heap, along with the smallest key of the sources in the heap. Advancing that
+ * source costs one comparison as long as it is still smallest, which is common when one large file holds most of the data, and the heap is only touched when
+ * another source takes over.
+ */
 public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value> {
-  private PriorityBuffer heap;
-  private SortedKeyValueIterator<Key,Value> currentIter;
   
-  private static class Index implements Comparable<Index> {
-    SortedKeyValueIterator<Key,Value> iter;
-    
-    public Index(SortedKeyValueIterator<Key,Value> iter) {
-      this.iter = iter;
-    }
-    
-    public int compareTo(Index o) {
-      return iter.getTopKey().compareTo(o.iter.getTopKey());
+  private static final Comparator<SortedKeyValueIterator<Key,Value>> TOP_KEY_COMPARATOR = new Comparator<SortedKeyValueIterator<Key,Value>>() {
+    @Override
+    public int compare(SortedKeyValueIterator<Key,Value> si1, SortedKeyValueIterator<Key,Value> si2) {
+      return si1.getTopKey().compareTo(si2.getTopKey());
     }
-  }
+  };
+  
+  private PriorityQueue<SortedKeyValueIterator<Key,Value>> heap;
+  // the source with the smallest key, not in the heap
+  private SortedKeyValueIterator<Key,Value> topIdx = null;
+  // the smallest key of the sources in the heap, or null if the heap is empty
+  private Key nextKey = null;
   
   protected HeapIterator() {
     heap = null;
@@ -51,65 +56,68 @@ public abstract class HeapIterator implements SortedKeyValueIterator<Key,Value>
     if (heap != null)
       throw new IllegalStateException("heap already exist");
     
-    heap = new PriorityBuffer(maxSize == 0 ? 1 : maxSize);
+    heap = new PriorityQueue<SortedKeyValueIterator<Key,Value>>(maxSize == 0 ? 1 : maxSize, TOP_KEY_COMPARATOR);
   }
   
   @Override
   final public Key getTopKey() {
-    return currentIter.getTopKey();
+    return topIdx.getTopKey();
   }
   
   @Override
   final public Value getTopValue() {
-    return currentIter.getTopValue();
+    return topIdx.getTopValue();
   }
   
   @Override
   final public boolean hasTop() {
-    return heap.size() > 0;
+    return topIdx != null;
   }
   
   @Override
   final public void next() throws IOException {
-    switch (heap.size()) {
-      case 0:
-        throw new IllegalStateException("Called next() when there is no top");
-      case 1:
-        // optimization for case when heap contains one entry,
-        // avoids remove and add
-        currentIter.next();
-        if (!currentIter.hasTop()) {
-          heap.remove();
-          currentIter = null;
-        }
-        break;
-      default:
-        Index idx = (Index) heap.remove();
-        idx.iter.next();
-        if (idx.iter.hasTop()) {
-          heap.add(idx);
-        }
-        // to get to the default case heap has at least
-        // two entries, therefore there must be at least
-        // one entry when get() is called below
-        currentIter = ((Index) heap.get()).iter;
+    if (topIdx == null)
+      throw new IllegalStateException("Called next() when there is no top");
+    
+    topIdx.next();
+    if (!topIdx.hasTop()) {
+      if (nextKey == null) {
+        // the last source is exhausted
+        topIdx = null;
+        return;
+      }
+      
+      pullReferencesFromHeap();
+    } else if (nextKey != null && topIdx.getTopKey().compareTo(nextKey) > 0) {
+      // another source now has the smallest key
+      heap.add(topIdx);
+      pullReferencesFromHeap();
     }
   }
   
+  private void pullReferencesFromHeap() {
+    topIdx = heap.poll();
+    if (heap.isEmpty())
+      nextKey = null;
+    else
+      nextKey = heap.peek().getTopKey();
+  }
+  
   final protected void clear() {
     heap.clear();
-    currentIter = null;
+    topIdx = null;
+    nextKey = null;
   }
   
   final protected void addSource(SortedKeyValueIterator<Key,Value> source) {
     
     if (source.hasTop())
-      heap.add(new Index(source));
+      heap.add(source);
     
-    if (heap.size() > 0)
-      currentIter = ((Index) heap.get()).iter;
-    else
-      currentIter = null;
+    if (topIdx != null)
+      heap.add(topIdx);
+    
+    pullReferencesFromHeap();
   }
   
 }
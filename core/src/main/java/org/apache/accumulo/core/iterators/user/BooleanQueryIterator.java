@@ -0,0 +1,586 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.iterators.user;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.PartialKey;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.util.TextUtil;
+import org.apache.commons.codec.binary.Base64;
+import org.apache.hadoop.io.Text;
+
+/**
+ * This iterator evaluates boolean queries over a document-partitioned index, using the same table structure as {@link IntersectingIterator}:
+ * 
+ * row: shardID, colfam: term, colqual: docID
+ * 
+ * A query is a tree of terms combined with {@link #and(Query...)}, {@link #or(Query...)} and {@link #not(Query)}, evaluated in a single pass over the
+ * partition. Each docID matching the query is returned as:
+ * 
+ * row: shardID, colfam: (empty), colqual: docID
+ * 
+ * The clauses of an and are visited in order of how often each has rejected a candidate, which is an estimate of how selective it is, so that the rarest term
+ * drives the intersection and the others are only asked about its candidates. A term is advanced with a few calls to next() before falling back to a seek. The
+ * number of next() calls it is given grows while they reach their target and shrinks when they do not, so dense terms mostly step and sparse terms mostly
+ * seek.
+ * 
+ * This iterator will *ignore* any columnFamilies passed to {@link #seek(Range, Collection, boolean)}.
+ */
+public class BooleanQueryIterator implements SortedKeyValueIterator<Key,Value> {
+  
+  private static final String QUERY_OPTION = "query";
+  
+  private static final int MAX_NEXTS_BEFORE_SEEK = 64;
+  private static final int REORDER_INTERVAL = 128;
+  
+  private static final byte[] ZERO_BYTE = new byte[] {0};
+  private static final Text EMPTY_TEXT = new Text();
+  
+  /**
+   * Description of a query, which is encoded into the iterator's options with {@link BooleanQueryIterator#setQuery(IteratorSetting, Query)}.
+   */
+  public static abstract class Query {
+    private Query() {}
+    
+    abstract void encode(StringBuilder sb);
+    
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      encode(sb);
+      return sb.toString();
+    }
+  }
+  
+  private static class TermQuery extends Query {
+    private final Text term;
+    
+    TermQuery(Text term) {
+      this.term = term;
+    }
+    
+    @Override
+    void encode(StringBuilder sb) {
+      sb.append(new String(Base64.encodeBase64(TextUtil.getBytes(term))));
+    }
+  }
+  
+  private static class NotQuery extends Query {
+    private final Query clause;
+    
+    NotQuery(Query clause) {
+      this.clause = clause;
+    }
+    
+    @Override
+    void encode(StringBuilder sb) {
+      sb.append('!');
+      clause.encode(sb);
+    }
+  }
+  
+  private static class BooleanQuery extends Query {
+    private final char op;
+    private final List<Query> clauses;
+    
+    BooleanQuery(char op, List<Query> clauses) {
+      this.op = op;
+      this.clauses = clauses;
+    }
+    
+    @Override
+    void encode(StringBuilder sb) {
+      sb.append(op).append('(');
+      String sep = "";
+      for (Query clause : clauses) {
+        sb.append(sep);
+        clause.encode(sb);
+        sep = ",";
+      }
+      sb.append(')');
+    }
+  }
+  
+  public static Query term(Text term) {
+    if (term == null)
+      throw new IllegalArgumentException("term is null");
+    return new TermQuery(new Text(term));
+  }
+  
+  public static Query term(String term) {
+    return term(new Text(term));
+  }
+  
+  /**
+   * Matches documents that match every clause. At least one clause must not be a {@link #not(Query)}.
+   */
+  public static Query and(Query... clauses) {
+    if (clauses.length == 0)
+      throw new IllegalArgumentException("and requires at least one clause");
+    boolean positive = false;
+    for (Query clause : clauses)
+      positive |= !(clause instanceof NotQuery);
+    if (!positive)
+      throw new IllegalArgumentException("and requires at least one clause that is not negated");
+    return new BooleanQuery('&', Arrays.asList(clauses));
+  }
+  
+  /**
+   * Matches documents that match any clause. Clauses can not be negated.
+   */
+  public static Query or(Query... clauses) {
+    if (clauses.length == 0)
+      throw new IllegalArgumentException("or requires at least one clause");
+    for (Query clause : clauses)
+      if (clause instanceof NotQuery)
+        throw new IllegalArgumentException("negated clauses are only allowed in an and");
+    return new BooleanQuery('|', Arrays.asList(clauses));
+  }
+  
+  /**
+   * Excludes documents matching the clause. Only valid as a clause of {@link #and(Query...)}.
+   */
+  public static Query not(Query clause) {
+    if (clause instanceof NotQuery)
+      throw new IllegalArgumentException("double negation");
+    return new NotQuery(clause);
+  }
+  
+  /**
+   * Sets the query to evaluate.
+   */
+  public static void setQuery(IteratorSetting cfg, Query query) {
+    if (query instanceof NotQuery)
+      throw new IllegalArgumentException("negated clauses are only allowed in an and");
+    cfg.addOption(QUERY_OPTION, query.toString());
+  }
+  
+  static Query parseQuery(String encoded) {
+    int[] pos = new int[] {0};
+    Query query = parseQuery(encoded, pos);
+    if (pos[0] != encoded.length())
+      throw new IllegalArgumentException("Unexpected characters at " + pos[0] + " in query " + encoded);
+    return query;
+  }
+  
+  private static Query parseQuery(String encoded, int[] pos) {
+    if (pos[0] >= encoded.length())
+      throw new IllegalArgumentException("Unexpected end of query " + encoded);
+    
+    char c = encoded.charAt(pos[0]);
+    if (c == '!') {
+      pos[0]++;
+      return not(parseQuery(encoded, pos));
+    } else if (c == '&' || c == '|') {
+      if (pos[0] + 1 >= encoded.length() || encoded.charAt(pos[0] + 1) != '(')
+        throw new IllegalArgumentException("Expected ( at " + (pos[0] + 1) + " in query " + encoded);
+      pos[0] += 2;
+      List<Query> clauses = new ArrayList<Query>();
+      while (true) {
+        clauses.add(parseQuery(encoded, pos));
+        if (pos[0] >= encoded.length())
+          throw new IllegalArgumentException("Unexpected end of query " + encoded);
+        char sep = encoded.charAt(pos[0]++);
+        if (sep == ')')
+          break;
+        if (sep != ',')
+          throw new IllegalArgumentException("Expected , or ) at " + (pos[0] - 1) + " in query " + encoded);
+      }
+      Query[] array = clauses.toArray(new Query[clauses.size()]);
+      return c == '&' ? and(array) : or(array);
+    } else {
+      int end = pos[0];
+      while (end < encoded.length() && "(),".indexOf(encoded.charAt(end)) < 0)
+        end++;
+      if (end == pos[0])
+        throw new IllegalArgumentException("Expected term at " + pos[0] + " in query " + encoded);
+      Text term = new Text(Base64.decodeBase64(encoded.substring(pos[0], end).getBytes()));
+      pos[0] = end;
+      return new TermQuery(term);
+    }
+  }
+  
+  private static int compare(Text partition1, Text docID1, Text partition2, Text docID2) {
+    int cmp = partition1.compareTo(partition2);
+    if (cmp == 0)
+      cmp = docID1.compareTo(docID2);
+    return cmp;
+  }
+  
+  /**
+   * Evaluates part of a query, positioned on a document.
+   */
+  private static abstract class Node {
+    final Text partition = new Text();
+    final Text docID = new Text();
+    boolean positioned = false;
+    boolean exhausted = false;
+    int rejections = 0;
+    
+    /**
+     * Positions this node on the first document it matches at or after the given document. The documents passed in must not decrease between calls, until the
+     * node is reset.
+     * 
+     * @return false if there is no such document in the range
+     */
+    abstract boolean moveTo(Text targetPartition, Text targetDocID) throws IOException;
+    
+    void reset() {
+      positioned = false;
+      exhausted = false;
+    }
+    
+    boolean atOrAfter(Text targetPartition, Text targetDocID) {
+      return positioned && compare(partition, docID, targetPartition, targetDocID) >= 0;
+    }
+    
+    void setPosition(Text newPartition, Text newDocID) {
+      partition.set(newPartition);
+      docID.set(newDocID);
+      positioned = true;
+    }
+  }
+  
+  private class TermNode extends Node {
+    private final SortedKeyValueIterator<Key,Value> iter;
+    private final Text term;
+    private final Collection<ByteSequence> seekColfams;
+    private int nextsBeforeSeek = 1;
+    private boolean seeked = false;
+    
+    TermNode(SortedKeyValueIterator<Key,Value> iter, Text term) {
+      this.iter = iter;
+      this.term = term;
+      this.seekColfams = Collections.<ByteSequence> singletonList(new ArrayByteSequence(term.getBytes(), 0, term.getLength()));
+    }
+    
+    @Override
+    void reset() {
+      super.reset();
+      seeked = false;
+    }
+    
+    @Override
+    boolean moveTo(Text targetPartition, Text targetDocID) throws IOException {
+      if (exhausted)
+        return false;
+      if (atOrAfter(targetPartition, targetDocID))
+        return true;
+      
+      if (seeked) {
+        for (int i = 0; i < nextsBeforeSeek; i++) {
+          iter.next();
+          if (!readPosition())
+            return false;
+          if (atOrAfter(targetPartition, targetDocID)) {
+            nextsBeforeSeek = Math.min(nextsBeforeSeek * 2, MAX_NEXTS_BEFORE_SEEK);
+            return true;
+          }
+        }
+        nextsBeforeSeek = Math.max(nextsBeforeSeek / 2, 1);
+      }
+      
+      seek(new Key(targetPartition, term, targetDocID));
+      return readPosition();
+    }
+    
+    private void seek(Key key) throws IOException {
+      iter.seek(new Range(key, true, null, false), seekColfams, true);
+      seeked = true;
+    }
+    
+    /**
+     * Reads the position of the source, moving it to the next key for this term if it is on another column family.
+     */
+    private boolean readPosition() throws IOException {
+      while (true) {
+        if (!iter.hasTop() || pastEnd(iter.getTopKey())) {
+          exhausted = true;
+          positioned = false;
+          return false;
+        }
+        
+        Key top = iter.getTopKey();
+        int cmp = top.compareColumnFamily(term);
+        if (cmp == 0) {
+          top.getRow(partition);
+          top.getColumnQualifier(docID);
+          positioned = true;
+          return true;
+        } else if (cmp < 0) {
+          seek(new Key(top.getRow(), term));
+        } else {
+          seek(new Key(top.followingKey(PartialKey.ROW).getRow(), term));
+        }
+      }
+    }
+  }
+  
+  private static class AndNode extends Node {
+    private final Node[] required;
+    private final Node[] excluded;
+    private final Text targetPartition = new Text();
+    private final Text targetDocID = new Text();
+    private int matches = 0;
+    
+    private static final Comparator<Node> REJECTIONS_DESCENDING = new Comparator<Node>() {
+      @Override
+      public int compare(Node n1, Node n2) {
+        return n2.rejections - n1.rejections;
+      }
+    };
+    
+    AndNode(Node[] required, Node[] excluded) {
+      this.required = required;
+      this.excluded = excluded;
+    }
+    
+    @Override
+    void reset() {
+      super.reset();
+      for (Node node : required)
+        node.reset();
+      for (Node node : excluded)
+        node.reset();
+    }
+    
+    @Override
+    boolean moveTo(Text minPartition, Text minDocID) throws IOException {
+      if (exhausted)
+        return false;
+      if (atOrAfter(minPartition, minDocID))
+        return true;
+      
+      targetPartition.set(minPartition);
+      targetDocID.set(minDocID);
+      
+      candidates: while (true) {
+        for (Node node : required) {
+          if (!node.moveTo(targetPartition, targetDocID)) {
+            exhausted = true;
+            positioned = false;
+            return false;
+          }
+          if (compare(node.partition, node.docID, targetPartition, targetDocID) > 0) {
+            // this clause does not match the target, so its position is the next possible match
+            node.rejections++;
+            targetPartition.set(node.partition);
+            targetDocID.set(node.docID);
+            continue candidates;
+          }
+        }
+        
+        for (Node node : excluded) {
+          if (node.moveTo(targetPartition, targetDocID) && compare(node.partition, node.docID, targetPartition, targetDocID) == 0) {
+            targetDocID.append(ZERO_BYTE, 0, 1);
+            continue candidates;
+          }
+        }
+        
+        break;
+      }
+      
+      setPosition(targetPartition, targetDocID);
+      
+      if (++matches % REORDER_INTERVAL == 0) {
+        Arrays.sort(required, REJECTIONS_DESCENDING);
+        // decay the counts so the order can adapt as the distribution of terms changes across partitions
+        for (Node node : required)
+          node.rejections /= 2;
+      }
+      
+      return true;
+    }
+  }
+  
+  private static class OrNode extends Node {
+    private final Node[] clauses;
+    
+    OrNode(Node[] clauses) {
+      this.clauses = clauses;
+    }
+    
+    @Override
+    void reset() {
+      super.reset();
+      for (Node node : clauses)
+        node.reset();
+    }
+    
+    @Override
+    boolean moveTo(Text minPartition, Text minDocID) throws IOException {
+      if (exhausted)
+        return false;
+      if (atOrAfter(minPartition, minDocID))
+        return true;
+      
+      Node min = null;
+      for (Node node : clauses) {
+        if (node.moveTo(minPartition, minDocID) && (min == null || compare(node.partition, node.docID, min.partition, min.docID) < 0))
+          min = node;
+      }
+      
+      if (min == null) {
+        exhausted = true;
+        positioned = false;
+        return false;
+      }
+      
+      setPosition(min.partition, min.docID);
+      return true;
+    }
+  }
+  
+  private SortedKeyValueIterator<Key,Value> source;
+  private IteratorEnvironment env;
+  private Query query;
+  private Node root;
+  private boolean sourceUsed;
+  
+  private Range overallRange;
+  private Text endRow;
+  
+  private final Text nextPartition = new Text();
+  private final Text nextDocID = new Text();
+  
+  private Key topKey = null;
+  private Value value = new Value(new byte[0]);
+  
+  public BooleanQueryIterator() {}
+  
+  private BooleanQueryIterator(BooleanQueryIterator other, IteratorEnvironment env) {
+    this.source = other.source.deepCopy(env);
+    this.env = env;
+    this.query = other.query;
+    this.root = buildNode(query);
+  }
+  
+  @Override
+  public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
+    return new BooleanQueryIterator(this, env);
+  }
+  
+  @Override
+  public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
+    String encoded = options.get(QUERY_OPTION);
+    if (encoded == null)
+      throw new IllegalArgumentException(QUERY_OPTION + " option not set");
+    
+    this.source = source;
+    this.env = env;
+    this.query = parseQuery(encoded);
+    if (query instanceof NotQuery)
+      throw new IllegalArgumentException("negated clauses are only allowed in an and");
+    this.root = buildNode(query);
+  }
+  
+  private Node buildNode(Query q) {
+    if (q instanceof TermQuery) {
+      // the first term uses the source it was given, the others need their own copy
+      SortedKeyValueIterator<Key,Value> iter = sourceUsed ? source.deepCopy(env) : source;
+      sourceUsed = true;
+      return new TermNode(iter, ((TermQuery) q).term);
+    }
+    
+    BooleanQuery bq = (BooleanQuery) q;
+    List<Node> positive = new ArrayList<Node>();
+    List<Node> negative = new ArrayList<Node>();
+    for (Query clause : bq.clauses) {
+      if (clause instanceof NotQuery)
+        negative.add(buildNode(((NotQuery) clause).clause));
+      else
+        positive.add(buildNode(clause));
+    }
+    
+    if (bq.op == '&')
+      return new AndNode(positive.toArray(new Node[positive.size()]), negative.toArray(new Node[negative.size()]));
+    return new OrNode(positive.toArray(new Node[positive.size()]));
+  }
+  
+  private boolean pastEnd(Key key) {
+    if (endRow == null)
+      return false;
+    int cmp = key.compareRow(endRow);
+    return cmp > 0 || (cmp == 0 && !overallRange.isEndKeyInclusive());
+  }
+  
+  @Override
+  public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
+    overallRange = new Range(range);
+    endRow = range.getEndKey() == null ? null : range.getEndKey().getRow();
+    root.reset();
+    
+    if (range.getStartKey() == null) {
+      nextPartition.clear();
+      nextDocID.clear();
+    } else {
+      range.getStartKey().getRow(nextPartition);
+      range.getStartKey().getColumnQualifier(nextDocID);
+      if (!range.isStartKeyInclusive())
+        nextDocID.append(ZERO_BYTE, 0, 1);
+    }
+    
+    findTop();
+  }
+  
+  private void findTop() throws IOException {
+    if (root.moveTo(nextPartition, nextDocID))
+      topKey = new Key(root.partition, EMPTY_TEXT, root.docID);
+    else
+      topKey = null;
+  }
+  
+  @Override
+  public void next() throws IOException {
+    if (topKey == null)
+      return;
+    nextPartition.set(root.partition);
+    nextDocID.set(root.docID);
+    nextDocID.append(ZERO_BYTE, 0, 1);
+    findTop();
+  }
+  
+  @Override
+  public boolean hasTop() {
+    return topKey != null;
+  }
+  
+  @Override
+  public Key getTopKey() {
+    return topKey;
+  }
+  
+  @Override
+  public Value getTopValue() {
+    return value;
+  }
+}
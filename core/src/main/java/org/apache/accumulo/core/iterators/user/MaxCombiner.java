@@ -25,6 +25,23 @@ import org.apache.accumulo.core.iterators.LongCombiner;
  * A Combiner that interprets Values as Longs and returns the largest Long among them.
  */
 public class MaxCombiner extends LongCombiner {
+  private static final LongReducer MAX = new LongReducer() {
+    @Override
+    public long initialValue() {
+      return Long.MIN_VALUE;
+    }
+    
+    @Override
+    public long reduce(long accumulator, long value) {
+      return Math.max(accumulator, value);
+    }
+  };
+  
+  @Override
+  protected LongReducer getLongReducer() {
+    return MAX;
+  }
+  
   @Override
   public Long typedReduce(Key key, Iterator<Long> iter) {
     long max = Long.MIN_VALUE;
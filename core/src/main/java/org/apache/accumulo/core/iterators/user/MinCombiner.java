@@ -25,6 +25,23 @@ import org.apache.accumulo.core.iterators.LongCombiner;
  * A Combiner that interprets Values as Longs and returns the smallest Long among them.
  */
 public class MinCombiner extends LongCombiner {
+  private static final LongReducer MIN = new LongReducer() {
+    @Override
+    public long initialValue() {
+      return Long.MAX_VALUE;
+    }
+    
+    @Override
+    public long reduce(long accumulator, long value) {
+      return Math.min(accumulator, value);
+    }
+  };
+  
+  @Override
+  protected LongReducer getLongReducer() {
+    return MIN;
+  }
+  
   @Override
   public Long typedReduce(Key key, Iterator<Long> iter) {
     long min = Long.MAX_VALUE;
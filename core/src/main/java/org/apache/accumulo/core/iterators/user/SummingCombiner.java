@@ -25,6 +25,23 @@ import org.apache.accumulo.core.iterators.LongCombiner;
  * A Combiner that interprets Values as Longs and returns their sum.
  */
 public class SummingCombiner extends LongCombiner {
+  private static final LongReducer SUM = new LongReducer() {
+    @Override
+    public long initialValue() {
+      return 0;
+    }
+    
+    @Override
+    public long reduce(long accumulator, long value) {
+      return safeAdd(accumulator, value);
+    }
+  };
+  
+  @Override
+  protected LongReducer getLongReducer() {
+    return SUM;
+  }
+  
   @Override
   public Long typedReduce(Key key, Iterator<Long> iter) {
     long sum = 0;
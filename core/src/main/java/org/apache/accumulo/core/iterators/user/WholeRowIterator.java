@@ -16,18 +16,21 @@
  */
 package org.apache.accumulo.core.iterators.user;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
+import org.apache.accumulo.core.client.IteratorSetting;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.PartialKey;
@@ -49,16 +52,29 @@ import org.apache.hadoop.io.Text;
  * scan after swapping out sources.
  * 
  * <p>
- * To regain the original key/value pairs of the row, call the decodeRow function on the key/value pair that this iterator returned.
+ * To regain the original key/value pairs of the row, call the decodeRow function on the key/value pair that this iterator returned. To read many rows without
+ * building a map for each, pass the scanner's iterator to {@link #decodeEntries(Iterator)} and, to group the entries by row, wrap the result in a
+ * {@link org.apache.accumulo.core.client.RowIterator}.
+ * 
+ * <p>
+ * Rows are held in memory on the tablet server and in the client while they are encoded. To bound that memory use {@link #setMaxRowSize(IteratorSetting, long)}.
+ * A row larger than the limit is returned in several pieces, each keyed by the last key it contains, so the row is no longer seen atomically and
+ * {@link #filter(Text, List, List)} is called for each piece separately. Rows within the limit are returned as before.
  * 
  * @see RowFilter
  */
 public class WholeRowIterator implements SortedKeyValueIterator<Key,Value> {
   
+  private static final String MAX_ROW_SIZE_OPTION = "maxRowSize";
+  
   private SortedKeyValueIterator<Key,Value> sourceIter;
   private Key topKey = null;
   private Value topValue = null;
   
+  private long maxRowSize = 0;
+  // set while the rest of this row is being returned in pieces
+  private Text continuingRow = null;
+  
   public WholeRowIterator() {
     
   }
@@ -67,84 +83,145 @@ public class WholeRowIterator implements SortedKeyValueIterator<Key,Value> {
     this.sourceIter = source;
   }
   
+  WholeRowIterator(SortedKeyValueIterator<Key,Value> source, long maxRowSize) {
+    this.sourceIter = source;
+    this.maxRowSize = maxRowSize;
+  }
+  
+  /**
+   * Limits the amount of row data encoded into a single key/value pair. Rows with more data than this are returned in pieces, and are not isolated.
+   * 
+   * @param maxRowSize
+   *          maximum number of bytes of keys and values to encode together, or 0 for no limit
+   */
+  public static void setMaxRowSize(IteratorSetting cfg, long maxRowSize) {
+    if (maxRowSize < 0)
+      throw new IllegalArgumentException("maxRowSize must be non-negative " + maxRowSize);
+    cfg.addOption(MAX_ROW_SIZE_OPTION, Long.toString(maxRowSize));
+  }
+  
   // decode a bunch of key value pairs that have been encoded into a single value
   public static final SortedMap<Key,Value> decodeRow(Key rowKey, Value rowValue) throws IOException {
     SortedMap<Key,Value> map = new TreeMap<Key,Value>();
-    ByteArrayInputStream in = new ByteArrayInputStream(rowValue.get());
-    DataInputStream din = new DataInputStream(in);
-    int numKeys = din.readInt();
-    for (int i = 0; i < numKeys; i++) {
-      byte[] cf;
-      byte[] cq;
-      byte[] cv;
-      byte[] valBytes;
-      // read the col fam
-      {
-        int len = din.readInt();
-        cf = new byte[len];
-        din.read(cf);
-      }
-      // read the col qual
-      {
-        int len = din.readInt();
-        cq = new byte[len];
-        din.read(cq);
+    Iterator<Entry<Key,Value>> entries = new RowDecoder(rowKey, rowValue);
+    while (entries.hasNext()) {
+      Entry<Key,Value> entry = entries.next();
+      map.put(entry.getKey(), entry.getValue());
+    }
+    return map;
+  }
+  
+  /**
+   * Decodes the key/value pairs returned by this iterator back into the original entries, in sorted order, one entry at a time. Unlike
+   * {@link #decodeRow(Key, Value)} this does not build a map for each row, and the keys of a row share one copy of the row.
+   */
+  public static Iterator<Entry<Key,Value>> decodeEntries(final Iterator<Entry<Key,Value>> encodedRows) {
+    return new Iterator<Entry<Key,Value>>() {
+      private Iterator<Entry<Key,Value>> current = Collections.<Entry<Key,Value>> emptyList().iterator();
+      
+      @Override
+      public boolean hasNext() {
+        while (!current.hasNext() && encodedRows.hasNext()) {
+          Entry<Key,Value> encoded = encodedRows.next();
+          current = new RowDecoder(encoded.getKey(), encoded.getValue());
+        }
+        return current.hasNext();
       }
-      // read the col visibility
-      {
-        int len = din.readInt();
-        cv = new byte[len];
-        din.read(cv);
+      
+      @Override
+      public Entry<Key,Value> next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        return current.next();
       }
-      // read the timestamp
-      long timestamp = din.readLong();
-      // read the value
-      {
-        int len = din.readInt();
-        valBytes = new byte[len];
-        din.read(valBytes);
+      
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
       }
-      map.put(new Key(rowKey.getRowData().toArray(), cf, cq, cv, timestamp, false, false), new Value(valBytes, false));
+    };
+  }
+  
+  /**
+   * Reads encoded entries directly from the bytes of the value as they are requested.
+   */
+  private static class RowDecoder implements Iterator<Entry<Key,Value>> {
+    private final byte[] row;
+    private final ByteBuffer buffer;
+    private int remaining;
+    
+    RowDecoder(Key rowKey, Value rowValue) {
+      this.row = rowKey.getRowData().toArray();
+      this.buffer = ByteBuffer.wrap(rowValue.get());
+      this.remaining = buffer.getInt();
     }
-    return map;
+    
+    private byte[] readBytes() {
+      byte[] bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      return bytes;
+    }
+    
+    @Override
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+    
+    @Override
+    public Entry<Key,Value> next() {
+      if (remaining <= 0)
+        throw new NoSuchElementException();
+      remaining--;
+      byte[] cf = readBytes();
+      byte[] cq = readBytes();
+      byte[] cv = readBytes();
+      long timestamp = buffer.getLong();
+      byte[] valBytes = readBytes();
+      return new SimpleImmutableEntry<Key,Value>(new Key(row, cf, cq, cv, timestamp, false, false), new Value(valBytes, false));
+    }
+    
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+  
+  private static void writeBytes(ByteBuffer buffer, ByteSequence bs) {
+    buffer.putInt(bs.length());
+    buffer.put(bs.getBackingArray(), bs.offset(), bs.length());
   }
   
   // take a stream of keys and values and output a value that encodes everything but their row
   // keys and values must be paired one for one
   public static final Value encodeRow(List<Key> keys, List<Value> values) throws IOException {
-    ByteArrayOutputStream out = new ByteArrayOutputStream();
-    DataOutputStream dout = new DataOutputStream(out);
-    dout.writeInt(keys.size());
+    // compute the exact size first, so the entries are copied once straight into the value's array
+    int size = 4;
+    for (int i = 0; i < keys.size(); i++) {
+      Key k = keys.get(i);
+      size += 4 + k.getColumnFamilyData().length() + 4 + k.getColumnQualifierData().length() + 4 + k.getColumnVisibilityData().length() + 8 + 4
+          + values.get(i).getSize();
+    }
+    
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(keys.size());
     for (int i = 0; i < keys.size(); i++) {
       Key k = keys.get(i);
       Value v = values.get(i);
       // write the colfam
-      {
-        ByteSequence bs = k.getColumnFamilyData();
-        dout.writeInt(bs.length());
-        dout.write(bs.getBackingArray(), bs.offset(), bs.length());
-      }
+      writeBytes(buffer, k.getColumnFamilyData());
       // write the colqual
-      {
-        ByteSequence bs = k.getColumnQualifierData();
-        dout.writeInt(bs.length());
-        dout.write(bs.getBackingArray(), bs.offset(), bs.length());
-      }
+      writeBytes(buffer, k.getColumnQualifierData());
       // write the column visibility
-      {
-        ByteSequence bs = k.getColumnVisibilityData();
-        dout.writeInt(bs.length());
-        dout.write(bs.getBackingArray(), bs.offset(), bs.length());
-      }
+      writeBytes(buffer, k.getColumnVisibilityData());
       // write the timestamp
-      dout.writeLong(k.getTimestamp());
+      buffer.putLong(k.getTimestamp());
       // write the value
       byte[] valBytes = v.get();
-      dout.writeInt(valBytes.length);
-      dout.write(valBytes);
+      buffer.putInt(valBytes.length);
+      buffer.put(valBytes);
     }
     
-    return new Value(out.toByteArray());
+    return new Value(buffer.array(), false);
   }
   
   List<Key> keys = new ArrayList<Key>();
@@ -154,20 +231,32 @@ public class WholeRowIterator implements SortedKeyValueIterator<Key,Value> {
     if (topKey != null)
       return;
     Text currentRow;
+    boolean piece;
     do {
       if (sourceIter.hasTop() == false)
         return;
       currentRow = new Text(sourceIter.getTopKey().getRow());
+      piece = currentRow.equals(continuingRow);
       keys.clear();
       values.clear();
+      long size = 0;
       while (sourceIter.hasTop() && sourceIter.getTopKey().getRow().equals(currentRow)) {
-        keys.add(new Key(sourceIter.getTopKey()));
-        values.add(new Value(sourceIter.getTopValue()));
+        if (maxRowSize > 0 && size >= maxRowSize) {
+          piece = true;
+          break;
+        }
+        Key k = new Key(sourceIter.getTopKey());
+        Value v = new Value(sourceIter.getTopValue());
+        size += k.getSize() + v.getSize();
+        keys.add(k);
+        values.add(v);
         sourceIter.next();
       }
+      continuingRow = piece && sourceIter.hasTop() && sourceIter.getTopKey().getRow().equals(currentRow) ? currentRow : null;
     } while (!filter(currentRow, keys, values));
     
-    topKey = new Key(currentRow);
+    // a piece of a row is keyed by its last key, so a scan restarted after it continues with the next piece
+    topKey = piece ? keys.get(keys.size() - 1) : new Key(currentRow);
     topValue = encodeRow(keys, values);
     
   }
@@ -189,8 +278,8 @@ public class WholeRowIterator implements SortedKeyValueIterator<Key,Value> {
   @Override
   public SortedKeyValueIterator<Key,Value> deepCopy(IteratorEnvironment env) {
     if (sourceIter != null)
-      return new WholeRowIterator(sourceIter.deepCopy(env));
-    return new WholeRowIterator();
+      return new WholeRowIterator(sourceIter.deepCopy(env), maxRowSize);
+    return new WholeRowIterator(null, maxRowSize);
   }
   
   @Override
@@ -211,6 +300,8 @@ public class WholeRowIterator implements SortedKeyValueIterator<Key,Value> {
   @Override
   public void init(SortedKeyValueIterator<Key,Value> source, Map<String,String> options, IteratorEnvironment env) throws IOException {
     sourceIter = source;
+    if (options.containsKey(MAX_ROW_SIZE_OPTION))
+      maxRowSize = Long.parseLong(options.get(MAX_ROW_SIZE_OPTION));
   }
   
   @Override
@@ -224,6 +315,7 @@ public class WholeRowIterator implements SortedKeyValueIterator<Key,Value> {
   public void seek(Range range, Collection<ByteSequence> columnFamilies, boolean inclusive) throws IOException {
     topKey = null;
     topValue = null;
+    continuingRow = null;
     
     Key sk = range.getStartKey();
     
@@ -236,6 +328,9 @@ public class WholeRowIterator implements SortedKeyValueIterator<Key,Value> {
         return;
       
       range = new Range(sk.followingKey(PartialKey.ROW), true, range.getEndKey(), range.isEndKeyInclusive());
+    } else if (maxRowSize > 0 && sk != null && !sk.equals(new Key(sk.getRow()))) {
+      // starting in the middle of a row, most likely after a piece of it was returned, so return the rest of it in pieces
+      continuingRow = sk.getRow();
     }
     
     sourceIter.seek(range, columnFamilies, inclusive);
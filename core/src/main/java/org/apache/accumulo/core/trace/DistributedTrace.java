@@ -21,8 +21,11 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 
 import org.apache.accumulo.trace.instrument.Tracer;
+import org.apache.accumulo.trace.instrument.receivers.SlowTraceReceiver;
+import org.apache.accumulo.trace.instrument.receivers.SpanReceiver;
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.Instance;
+import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.zookeeper.ZooUtil;
 import org.apache.accumulo.fate.zookeeper.ZooReader;
 import org.apache.zookeeper.KeeperException;
@@ -38,6 +41,10 @@ public class DistributedTrace {
         address = "unknown";
       }
     }
-    Tracer.getInstance().addReceiver(new ZooTraceClient(zoo, path, address, application, 1000));
+    SpanReceiver receiver = new ZooTraceClient(zoo, path, address, application, 1000);
+    long tailThreshold = instance.getConfiguration().getTimeInMillis(Property.TRACE_SPAN_TAIL_THRESHOLD);
+    if (tailThreshold > 0)
+      receiver = new SlowTraceReceiver(receiver, tailThreshold);
+    Tracer.getInstance().addReceiver(receiver);
   }
 }
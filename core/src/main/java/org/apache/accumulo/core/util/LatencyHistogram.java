@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.util;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A histogram of latencies, in nanoseconds, that many threads can record into without locking or contending with each other. Each thread records into its own
+ * counts, which are merged when a snapshot is taken. Buckets are log-linear, as in HDR histograms, so percentiles are accurate to within about 3%.
+ * 
+ * Histograms are shared by name using {@link #get(String)}, so code recording latencies and code reporting them need not know about each other.
+ * 
+ * @since 1.6.0
+ */
+public class LatencyHistogram {
+  
+  // each power of two is divided into this many buckets
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  
+  // latencies of 2^40 nanoseconds, about 18 minutes, or more are all counted in the last bucket
+  private static final int MAX_EXPONENT = 40;
+  
+  static final int NUM_BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+  
+  private static final ConcurrentHashMap<String,LatencyHistogram> histograms = new ConcurrentHashMap<String,LatencyHistogram>();
+  
+  /**
+   * @return the histogram with the given name, which is created if needed
+   */
+  public static LatencyHistogram get(String name) {
+    LatencyHistogram histogram = histograms.get(name);
+    if (histogram == null) {
+      histograms.putIfAbsent(name, new LatencyHistogram());
+      histogram = histograms.get(name);
+    }
+    return histogram;
+  }
+  
+  static int bucket(long value) {
+    if (value < SUB_BUCKETS)
+      return value < 0 ? 0 : (int) value;
+    
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    if (exponent >= MAX_EXPONENT)
+      return NUM_BUCKETS - 1;
+    
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) | subBucket;
+  }
+  
+  /**
+   * @return the largest value counted in a bucket
+   */
+  static long highestValue(int bucket) {
+    if (bucket < SUB_BUCKETS)
+      return bucket;
+    
+    int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+    long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+    return lowest + (1l << shift) - 1;
+  }
+  
+  private static class Recorder {
+    final WeakReference<Thread> owner = new WeakReference<Thread>(Thread.currentThread());
+    final AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    final AtomicLong total = new AtomicLong();
+    
+    boolean isRetired() {
+      Thread thread = owner.get();
+      return thread == null || !thread.isAlive();
+    }
+  }
+  
+  private final CopyOnWriteArrayList<Recorder> recorders = new CopyOnWriteArrayList<Recorder>();
+  
+  private final ThreadLocal<Recorder> recorder = new ThreadLocal<Recorder>() {
+    @Override
+    protected Recorder initialValue() {
+      Recorder r = new Recorder();
+      synchronized (LatencyHistogram.this) {
+        // drop the recorders of exited threads as new ones arrive, so a pool that keeps replacing threads does not grow the list between snapshots
+        retireRecorders();
+        recorders.add(r);
+      }
+      return r;
+    }
+  };
+  
+  // counts from threads that have exited, and the counts at the last reset, guarded by this
+  private final long[] retiredCounts = new long[NUM_BUCKETS];
+  private long retiredTotal = 0;
+  private long[] resetCounts = new long[NUM_BUCKETS];
+  private long resetTotal = 0;
+  
+  /**
+   * Records a latency. Apart from the first latency recorded by each thread, this does not block, and only writes to memory owned by the calling thread.
+   */
+  public void record(long nanos) {
+    if (nanos < 0)
+      nanos = 0;
+    
+    Recorder r = recorder.get();
+    int bucket = bucket(nanos);
+    
+    // only the owning thread writes to a recorder, so the increments need not be atomic; lazySet just publishes them to the merging thread
+    r.counts.lazySet(bucket, r.counts.get(bucket) + 1);
+    r.total.lazySet(r.total.get() + nanos);
+  }
+  
+  int getRecorderCount() {
+    return recorders.size();
+  }
+  
+  /**
+   * Merges the latencies recorded by all threads since the last reset.
+   */
+  public synchronized Snapshot getSnapshot() {
+    long[] counts = new long[NUM_BUCKETS];
+    long total = mergeRecorders(counts);
+    
+    for (int i = 0; i < NUM_BUCKETS; i++)
+      counts[i] -= resetCounts[i];
+    
+    return new Snapshot(counts, total - resetTotal);
+  }
+  
+  /**
+   * Discards the latencies recorded so far from later snapshots.
+   */
+  public synchronized void reset() {
+    resetCounts = new long[NUM_BUCKETS];
+    resetTotal = mergeRecorders(resetCounts);
+  }
+  
+  // folds the counts of threads that have exited into the retired counts, so their recorders can be dropped
+  private synchronized void retireRecorders() {
+    Iterator<Recorder> iter = recorders.iterator();
+    while (iter.hasNext()) {
+      Recorder r = iter.next();
+      if (r.isRetired()) {
+        for (int i = 0; i < NUM_BUCKETS; i++)
+          retiredCounts[i] += r.counts.get(i);
+        retiredTotal += r.total.get();
+        recorders.remove(r);
+      }
+    }
+  }
+  
+  // adds the counts of all threads, ever, to counts and returns their total
+  private long mergeRecorders(long[] counts) {
+    retireRecorders();
+    
+    long total = retiredTotal;
+    System.arraycopy(retiredCounts, 0, counts, 0, NUM_BUCKETS);
+    for (Recorder r : recorders) {
+      for (int i = 0; i < NUM_BUCKETS; i++)
+        counts[i] += r.counts.get(i);
+      total += r.total.get();
+    }
+    return total;
+  }
+  
+  /**
+   * The latencies recorded by a histogram at one point in time.
+   */
+  public static class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long total;
+    
+    Snapshot(long[] counts, long total) {
+      this.counts = counts;
+      this.total = total;
+      
+      long count = 0;
+      for (long c : counts)
+        count += c;
+      this.count = count;
+    }
+    
+    public long getCount() {
+      return count;
+    }
+    
+    /**
+     * @return the mean latency in nanoseconds, or 0 if none were recorded
+     */
+    public double getMean() {
+      return count == 0 ? 0 : (double) total / count;
+    }
+    
+    /**
+     * @param percentile
+     *          a percentile between 0 and 100
+     * @return the latency in nanoseconds at or below which the given percent of latencies fall, or 0 if none were recorded
+     */
+    public long getPercentile(double percentile) {
+      if (count == 0)
+        return 0;
+      
+      long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank)
+          return highestValue(i);
+      }
+      return highestValue(counts.length - 1);
+    }
+    
+    /**
+     * @return the largest latency in nanoseconds, to within the accuracy of the histogram
+     */
+    public long getMax() {
+      return getPercentile(100);
+    }
+  }
+}
@@ -1257,4 +1257,58 @@ public class TabletLocatorImplTest extends TestCase {
     locateTabletTest(tab0TabletCache, "a", ke1, "tserver7");
     
   }
+  
+  public void testInvalidateServer() throws Exception {
+    KeyExtent ke1 = nke("foo", "h", null);
+    KeyExtent ke2 = nke("foo", "t", "h");
+    KeyExtent ke3 = nke("foo", null, "t");
+    
+    TServers tservers = new TServers();
+    final int[] bulkLookups = new int[1];
+    TestTabletLocationObtainer ttlo = new TestTabletLocationObtainer(tservers) {
+      @Override
+      public List<TabletLocation> lookupTablets(String tserver, Map<KeyExtent,List<Range>> map, TabletLocator parent) throws AccumuloSecurityException {
+        bulkLookups[0]++;
+        return super.lookupTablets(tserver, map, parent);
+      }
+    };
+    TestInstance testInstance = new TestInstance("instance1", "tserver1");
+    
+    RootTabletLocator rtl = new RootTabletLocator(testInstance);
+    TabletLocatorImpl rootTabletCache = new TabletLocatorImpl(new Text(Constants.METADATA_TABLE_ID), rtl, ttlo);
+    TabletLocatorImpl metaCache = new TabletLocatorImpl(new Text("foo"), rootTabletCache, ttlo);
+    
+    setLocation(tservers, "tserver1", RTE, MTE, "tserver2");
+    setLocation(tservers, "tserver2", MTE, ke1, "l1");
+    setLocation(tservers, "tserver2", MTE, ke2, "l1");
+    setLocation(tservers, "tserver2", MTE, ke3, "l2");
+    
+    locateTabletTest(metaCache, "a", ke1, "l1");
+    locateTabletTest(metaCache, "i", ke2, "l1");
+    locateTabletTest(metaCache, "u", ke3, "l2");
+    
+    // the tablets of a dead server move, and are looked up together
+    setLocation(tservers, "tserver2", MTE, ke1, "l3");
+    setLocation(tservers, "tserver2", MTE, ke2, "l4");
+    metaCache.invalidateCache("l1");
+    
+    locateTabletTest(metaCache, "a", ke1, "l3");
+    assertEquals(1, bulkLookups[0]);
+    locateTabletTest(metaCache, "i", ke2, "l4");
+    locateTabletTest(metaCache, "u", ke3, "l2");
+    assertEquals(1, bulkLookups[0]);
+    
+    // tablets that are not assigned yet are only looked up together once, after that each lookup is for the row that missed the cache
+    tservers.tservers.get("tserver2").get(MTE).remove(new Key(ke2.getMetadataEntry(), Constants.METADATA_CURRENT_LOCATION_COLUMN_FAMILY, new Text()));
+    metaCache.invalidateCache("l4");
+    
+    locateTabletTest(metaCache, "i", null, null);
+    locateTabletTest(metaCache, "i", null, null);
+    locateTabletTest(metaCache, "a", ke1, "l3");
+    assertEquals(2, bulkLookups[0]);
+    
+    setLocation(tservers, "tserver2", MTE, ke2, "l5");
+    locateTabletTest(metaCache, "i", ke2, "l5");
+    assertEquals(2, bulkLookups[0]);
+  }
 }
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.impl;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import org.apache.thrift.transport.TTransport;
+import org.junit.Test;
+
+public class ThriftTransportPoolTest {
+  
+  @Test
+  public void testReuse() throws Exception {
+    // connections are made, but nothing is ever read or written
+    ServerSocket server = new ServerSocket(0, 10, InetAddress.getByName("127.0.0.1"));
+    try {
+      ThriftTransportPool pool = ThriftTransportPool.getInstance();
+      
+      TTransport t1 = pool.getTransport("127.0.0.1", server.getLocalPort(), 60000);
+      TTransport t2 = pool.getTransport("127.0.0.1", server.getLocalPort(), 60000);
+      assertNotSame(t1, t2);
+      
+      // the most recently returned connection is used first
+      pool.returnTransport(t1);
+      pool.returnTransport(t2);
+      assertSame(t2, pool.getTransport("127.0.0.1", server.getLocalPort(), 60000));
+      assertSame(t1, pool.getTransport("127.0.0.1", server.getLocalPort(), 60000));
+      
+      // connections with another timeout are kept separately
+      TTransport t3 = pool.getTransport("127.0.0.1", server.getLocalPort(), 30000);
+      assertNotSame(t1, t3);
+      assertNotSame(t2, t3);
+      
+      pool.returnTransport(t1);
+      pool.returnTransport(t2);
+      pool.returnTransport(t3);
+    } finally {
+      server.close();
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.client.mapreduce.lib.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.core.client.mapreduce.InputFormatBase.RangeInputSplit;
+import org.apache.accumulo.core.client.mapreduce.lib.util.InputSplitPlanner.PlannedSplit;
+import org.apache.accumulo.core.client.mapreduce.lib.util.InputSplitPlanner.RowSampler;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.core.data.Range;
+import org.apache.hadoop.io.Text;
+import org.junit.Test;
+
+public class InputSplitPlannerTest {
+  
+  private static KeyExtent nke(String prevEndRow, String endRow) {
+    return new KeyExtent(new Text("1"), endRow == null ? null : new Text(endRow), prevEndRow == null ? null : new Text(prevEndRow));
+  }
+  
+  private static void bin(Map<String,Map<KeyExtent,List<Range>>> binnedRanges, String tserver, KeyExtent extent, Range range) {
+    Map<KeyExtent,List<Range>> tablets = binnedRanges.get(tserver);
+    if (tablets == null) {
+      tablets = new HashMap<KeyExtent,List<Range>>();
+      binnedRanges.put(tserver, tablets);
+    }
+    tablets.put(extent, Collections.singletonList(range));
+  }
+  
+  private static List<PlannedSplit> splitsFor(List<PlannedSplit> splits, String tserver) {
+    List<PlannedSplit> result = new ArrayList<PlannedSplit>();
+    for (PlannedSplit split : splits)
+      if (split.getLocation().equals(tserver))
+        result.add(split);
+    return result;
+  }
+  
+  @Test
+  public void testCombineSmallTablets() {
+    Map<String,Map<KeyExtent,List<Range>>> binnedRanges = new HashMap<String,Map<KeyExtent,List<Range>>>();
+    Map<KeyExtent,Long> sizes = new HashMap<KeyExtent,Long>();
+    
+    // ten small tablets alternating between two servers
+    String[] rows = new String[] {null, "b", "c", "d", "e", "f", "g", "h", "i", "j", null};
+    for (int i = 0; i < 10; i++) {
+      KeyExtent extent = nke(rows[i], rows[i + 1]);
+      bin(binnedRanges, i % 2 == 0 ? "ts1:9997" : "ts2:9997", extent, new Range());
+      sizes.put(extent, 10l);
+    }
+    
+    List<PlannedSplit> splits = InputSplitPlanner.planSplits(binnedRanges, sizes, 25, null);
+    
+    // each server has five tablets of 10, so splits of 30 and 20
+    for (String tserver : new String[] {"ts1:9997", "ts2:9997"}) {
+      List<PlannedSplit> tserverSplits = splitsFor(splits, tserver);
+      assertEquals(2, tserverSplits.size());
+      assertEquals(3, tserverSplits.get(0).getRanges().size());
+      assertEquals(30, tserverSplits.get(0).getSize());
+      assertEquals(2, tserverSplits.get(1).getRanges().size());
+      assertEquals(20, tserverSplits.get(1).getSize());
+    }
+    
+    // the ranges of a split are sorted, and clipped to their tablets
+    List<Range> ranges = splitsFor(splits, "ts1:9997").get(0).getRanges();
+    assertEquals(nke(null, "b").toDataRange(), ranges.get(0));
+    assertEquals(nke("c", "d").toDataRange(), ranges.get(1));
+    assertEquals(nke("e", "f").toDataRange(), ranges.get(2));
+  }
+  
+  @Test
+  public void testDivideLargeTablet() {
+    Map<String,Map<KeyExtent,List<Range>>> binnedRanges = new HashMap<String,Map<KeyExtent,List<Range>>>();
+    Map<KeyExtent,Long> sizes = new HashMap<KeyExtent,Long>();
+    
+    final KeyExtent large = nke(null, "m");
+    KeyExtent small = nke("m", null);
+    KeyExtent unknown = nke("z", null);
+    bin(binnedRanges, "ts1:9997", large, new Range(new Text("c"), new Text("x")));
+    bin(binnedRanges, "ts1:9997", small, new Range(new Text("c"), new Text("x")));
+    bin(binnedRanges, "ts2:9997", unknown, new Range());
+    sizes.put(large, 400l);
+    sizes.put(small, 1l);
+    
+    final List<Integer> requestedPieces = new ArrayList<Integer>();
+    RowSampler sampler = new RowSampler() {
+      @Override
+      public List<Text> findSplitRows(KeyExtent extent, int numPieces) {
+        assertEquals(large, extent);
+        requestedPieces.add(numPieces);
+        return Arrays.asList(new Text("b"), new Text("e"), new Text("h"));
+      }
+    };
+    
+    List<PlannedSplit> splits = InputSplitPlanner.planSplits(binnedRanges, sizes, 100, sampler);
+    assertEquals(Collections.singletonList(4), requestedPieces);
+    
+    // the piece before "b" is outside the range, so only three pieces of the large tablet are read
+    List<PlannedSplit> ts1Splits = splitsFor(splits, "ts1:9997");
+    assertEquals(4, ts1Splits.size());
+    assertEquals(Collections.singletonList(new Range(new Text("c"), true, new Text("e"), true)), ts1Splits.get(0).getRanges());
+    assertEquals(Collections.singletonList(new Range(new Text("e"), false, new Text("h"), true)), ts1Splits.get(1).getRanges());
+    assertEquals(Collections.singletonList(new Range(new Text("h"), false, new Text("m"), true)), ts1Splits.get(2).getRanges());
+    for (int i = 0; i < 3; i++)
+      assertEquals(100, ts1Splits.get(i).getSize());
+    assertEquals(Collections.singletonList(new Range(new Text("m"), false, new Text("x"), true)), ts1Splits.get(3).getRanges());
+    
+    // a tablet missing from the sizes is read on its own
+    assertEquals(1, splitsFor(splits, "ts2:9997").size());
+  }
+  
+  @Test
+  public void testMultiRangeSplit() throws IOException {
+    List<Range> ranges = Arrays.asList(new Range(new Text("a"), new Text("b")), new Range(new Text("c"), new Text("d")));
+    RangeInputSplit split = new RangeInputSplit();
+    split.setRanges(ranges);
+    split.setLocations(new String[] {"ts1"});
+    
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    split.write(new DataOutputStream(baos));
+    RangeInputSplit copy = new RangeInputSplit();
+    copy.readFields(new DataInputStream(new ByteArrayInputStream(baos.toByteArray())));
+    assertEquals(ranges, copy.getRanges());
+    assertEquals("ts1", copy.getLocations()[0]);
+    
+    // progress moves through the ranges in order
+    float first = copy.getProgress(new Key("a"));
+    float second = copy.getProgress(new Key("c"));
+    assertTrue(first >= 0 && first < .5);
+    assertTrue(second >= .5 && second < 1);
+  }
+}
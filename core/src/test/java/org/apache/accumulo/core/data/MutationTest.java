@@ -21,11 +21,13 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.apache.accumulo.core.data.thrift.TMutation;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.hadoop.io.Text;
 
@@ -473,6 +475,39 @@ public class MutationTest extends TestCase {
     
   }
   
+  public void testThrift() throws Exception {
+    Mutation m1 = new Mutation("r1");
+    m1.put("cf1", "cq1", "v1");
+    m1.putDelete("cf2", "cq2");
+    StringBuilder bigVal = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      bigVal.append('b');
+    }
+    m1.put("cf3", "big", bigVal.toString());
+    
+    Mutation m2 = new Mutation(m1.toThrift());
+    assertEquals(m1, m2);
+    assertEquals(3, m2.getUpdates().size());
+    assertEquals(m2.getUpdates().get(0), "cf1", "cq1", "", 0l, false, false, "v1");
+    assertEquals(m2.getUpdates().get(1), "cf2", "cq2", "", 0l, false, true, "");
+    assertEquals(m2.getUpdates().get(2), "cf3", "big", "", 0l, false, false, bigVal.toString());
+    
+    // buffers that only cover part of their array must be copied
+    TMutation tm = m1.toThrift();
+    tm.row = slice(tm.row);
+    tm.data = slice(tm.data);
+    tm.values.set(0, slice(tm.values.get(0)));
+    Mutation m3 = new Mutation(tm);
+    assertEquals(m1, m3);
+    assertEquals(m3.getUpdates().get(2), "cf3", "big", "", 0l, false, false, bigVal.toString());
+  }
+  
+  private static ByteBuffer slice(ByteBuffer bb) {
+    byte[] padded = new byte[bb.remaining() + 2];
+    bb.duplicate().get(padded, 1, bb.remaining());
+    return ByteBuffer.wrap(padded, 1, bb.remaining());
+  }
+  
   public void testReserialize() throws Exception {
     // test reading in a new mutation from an old mutation and reserializing the new mutation... this was failing
     OldMutation om = new OldMutation("r1");
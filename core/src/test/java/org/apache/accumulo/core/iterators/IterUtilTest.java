@@ -16,12 +16,16 @@
  */
 package org.apache.accumulo.core.iterators;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
@@ -33,6 +37,7 @@ import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.KeyExtent;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.data.thrift.IterInfo;
 import org.apache.accumulo.core.iterators.IteratorUtil.IteratorScope;
 import org.apache.accumulo.core.iterators.system.MultiIteratorTest;
 import org.apache.accumulo.core.iterators.user.AgeOffFilter;
@@ -276,4 +281,40 @@ public class IterUtilTest {
     assertFalse(iter.hasTop());
     
   }
+  
+  @Test
+  public void testParsedConf() throws IOException {
+    ConfigurationCopy conf = new ConfigurationCopy();
+    
+    conf.set(Property.TABLE_ITERATOR_PREFIX + IteratorScope.scan.name() + ".filter", "1," + AgeOffFilter.class.getName());
+    conf.set(Property.TABLE_ITERATOR_PREFIX + IteratorScope.scan.name() + ".filter.opt.ttl", "100");
+    conf.set(Property.TABLE_ITERATOR_PREFIX + IteratorScope.scan.name() + ".filter.opt.currentTime", "1000");
+    
+    List<IterInfo> tableIters = new ArrayList<IterInfo>();
+    Map<String,Map<String,String>> tableOpts = new HashMap<String,Map<String,String>>();
+    IteratorUtil.parseIterConf(IteratorScope.scan, tableIters, tableOpts, conf);
+    assertEquals(1, tableIters.size());
+    
+    TreeMap<Key,Value> tm = new TreeMap<Key,Value>();
+    MultiIteratorTest.nkv(tm, 1, 850, false, "1");
+    MultiIteratorTest.nkv(tm, 2, 950, false, "2");
+    
+    // the options of a scan override the table's options, without changing them for later scans
+    Map<String,Map<String,String>> ssio = new HashMap<String,Map<String,String>>();
+    ssio.put("filter", Collections.singletonMap("ttl", "1000"));
+    List<IterInfo> ssiList = Collections.emptyList();
+    SortedKeyValueIterator<Key,Value> iter = IteratorUtil.loadIterators(new SortedMapIterator(tm), tableIters, tableOpts, ssiList, ssio,
+        new DefaultIteratorEnvironment(conf), true, null);
+    iter.seek(new Range(), EMPTY_COL_FAMS, false);
+    assertTrue(iter.getTopKey().equals(MultiIteratorTest.nk(1, 850)));
+    
+    Map<String,Map<String,String>> noOpts = Collections.emptyMap();
+    for (int i = 0; i < 2; i++) {
+      iter = IteratorUtil.loadIterators(new SortedMapIterator(tm), tableIters, tableOpts, ssiList, noOpts, new DefaultIteratorEnvironment(conf), true, null);
+      iter.seek(new Range(), EMPTY_COL_FAMS, false);
+      assertTrue(iter.getTopKey().equals(MultiIteratorTest.nk(2, 950)));
+      iter.next();
+      assertFalse(iter.hasTop());
+    }
+  }
 }
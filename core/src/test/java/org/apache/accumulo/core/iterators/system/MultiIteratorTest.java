@@ -255,6 +255,24 @@ public class MultiIteratorTest extends TestCase {
     }
   }
   
+  public void testDominantSource() throws IOException {
+    // one source holds most of the keys, and the others take over only briefly
+    int numKeys = 1000;
+    List<TreeMap<Key,Value>> maps = new ArrayList<TreeMap<Key,Value>>();
+    for (int m = 0; m < 10; m++)
+      maps.add(new TreeMap<Key,Value>());
+    
+    for (int i = 0; i < numKeys; i++) {
+      int m = i % 13 == 0 ? 1 + (i / 13) % 9 : 0;
+      nkv(maps.get(m), i, 0, false, "v" + i);
+    }
+    
+    verify(0, numKeys, null, null, null, false, true, maps);
+    verify(0, numKeys, null, null, null, true, true, maps);
+    verify(500, numKeys, nk(500, 0), null, null, true, true, maps);
+    verify(601, 800, nk(601, 0), nr(799), nr(600), true, true, maps);
+  }
+  
   public void test6() throws IOException {
     // TEst setting an endKey
     TreeMap<Key,Value> tm1 = new TreeMap<Key,Value>();
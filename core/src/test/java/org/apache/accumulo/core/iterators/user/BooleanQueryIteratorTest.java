@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.iterators.user;
+
+import static org.apache.accumulo.core.iterators.user.BooleanQueryIterator.and;
+import static org.apache.accumulo.core.iterators.user.BooleanQueryIterator.not;
+import static org.apache.accumulo.core.iterators.user.BooleanQueryIterator.or;
+import static org.apache.accumulo.core.iterators.user.BooleanQueryIterator.term;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import junit.framework.TestCase;
+
+import org.apache.accumulo.core.client.IteratorSetting;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Range;
+import org.apache.accumulo.core.data.Value;
+import org.apache.accumulo.core.iterators.DefaultIteratorEnvironment;
+import org.apache.accumulo.core.iterators.IteratorEnvironment;
+import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.iterators.SortedMapIterator;
+import org.apache.accumulo.core.iterators.user.BooleanQueryIterator.Query;
+import org.apache.hadoop.io.Text;
+
+public class BooleanQueryIteratorTest extends TestCase {
+  
+  private static final Collection<ByteSequence> EMPTY_COL_FAMS = new ArrayList<ByteSequence>();
+  private static IteratorEnvironment env = new DefaultIteratorEnvironment();
+  
+  private static final String[] TERMS = new String[] {"a", "b", "c", "d", "e"};
+  // probability of each term appearing in a document, so the terms have very different cardinalities
+  private static final double[] TERM_PROBABILITY = new double[] {0.9, 0.5, 0.1, 0.02, 0.3};
+  
+  private TreeMap<Key,Value> map = new TreeMap<Key,Value>();
+  // partition -> docID -> terms
+  private Map<String,Map<String,Set<String>>> docs = new TreeMap<String,Map<String,Set<String>>>();
+  
+  @Override
+  protected void setUp() {
+    Random r = new Random(42);
+    Value v = new Value(new byte[0]);
+    for (int p = 0; p < 5; p++) {
+      String partition = String.format("%04d", p);
+      Map<String,Set<String>> partitionDocs = new HashMap<String,Set<String>>();
+      docs.put(partition, partitionDocs);
+      for (int d = 0; d < 500; d++) {
+        String docID = String.format("doc%06d", r.nextInt(1000000));
+        Set<String> terms = new HashSet<String>();
+        for (int t = 0; t < TERMS.length; t++) {
+          if (r.nextDouble() < TERM_PROBABILITY[t]) {
+            terms.add(TERMS[t]);
+            map.put(new Key(new Text(partition), new Text(TERMS[t]), new Text(docID)), v);
+          }
+        }
+        // other columns the query should skip over
+        map.put(new Key(new Text(partition), new Text("aa"), new Text(docID)), v);
+        map.put(new Key(new Text(partition), new Text("z"), new Text(docID)), v);
+        partitionDocs.put(docID, terms);
+      }
+    }
+  }
+  
+  private interface Matcher {
+    boolean matches(Set<String> terms);
+  }
+  
+  private TreeSet<Key> expected(Matcher matcher, String startPartition, String endPartition) {
+    TreeSet<Key> expected = new TreeSet<Key>();
+    for (Map.Entry<String,Map<String,Set<String>>> partition : docs.entrySet()) {
+      if (startPartition != null && partition.getKey().compareTo(startPartition) < 0)
+        continue;
+      if (endPartition != null && partition.getKey().compareTo(endPartition) > 0)
+        continue;
+      for (Map.Entry<String,Set<String>> doc : partition.getValue().entrySet())
+        if (matcher.matches(doc.getValue()))
+          expected.add(new Key(new Text(partition.getKey()), new Text(), new Text(doc.getKey())));
+    }
+    return expected;
+  }
+  
+  private BooleanQueryIterator createIterator(Query query) throws IOException {
+    IteratorSetting is = new IteratorSetting(1, BooleanQueryIterator.class);
+    BooleanQueryIterator.setQuery(is, query);
+    BooleanQueryIterator iter = new BooleanQueryIterator();
+    iter.init(new SortedMapIterator(map), is.getOptions(), env);
+    return iter;
+  }
+  
+  private List<Key> scan(SortedKeyValueIterator<Key,Value> iter, Range range) throws IOException {
+    List<Key> results = new ArrayList<Key>();
+    iter.seek(range, EMPTY_COL_FAMS, false);
+    while (iter.hasTop()) {
+      results.add(new Key(iter.getTopKey()));
+      iter.next();
+    }
+    return results;
+  }
+  
+  private void check(Query query, Matcher matcher) throws IOException {
+    TreeSet<Key> expected = expected(matcher, null, null);
+    assertTrue(expected.size() > 0);
+    
+    BooleanQueryIterator iter = createIterator(query);
+    assertEquals(new ArrayList<Key>(expected), scan(iter, new Range()));
+    
+    // the iterator should give the same results when used again, and when copied
+    assertEquals(new ArrayList<Key>(expected), scan(iter, new Range()));
+    assertEquals(new ArrayList<Key>(expected), scan(iter.deepCopy(env), new Range()));
+    
+    // restarting a scan after a returned key, as a tablet server does when a batch is full, should pick up after that key
+    List<Key> expectedList = new ArrayList<Key>(expected);
+    Key restart = expectedList.get(expectedList.size() / 2);
+    assertEquals(expectedList.subList(expectedList.size() / 2 + 1, expectedList.size()), scan(iter, new Range(restart, false, null, true)));
+    
+    // a range covering some partitions
+    assertEquals(new ArrayList<Key>(expected(matcher, "0001", "0002")), scan(iter, new Range(new Text("0001"), new Text("0002"))));
+  }
+  
+  public void testAnd() throws IOException {
+    check(and(term("a"), term("b"), term("c")), new Matcher() {
+      @Override
+      public boolean matches(Set<String> terms) {
+        return terms.contains("a") && terms.contains("b") && terms.contains("c");
+      }
+    });
+  }
+  
+  public void testAndNot() throws IOException {
+    check(and(term("a"), not(term("b")), not(term("e"))), new Matcher() {
+      @Override
+      public boolean matches(Set<String> terms) {
+        return terms.contains("a") && !terms.contains("b") && !terms.contains("e");
+      }
+    });
+  }
+  
+  public void testOr() throws IOException {
+    check(or(term("c"), term("d")), new Matcher() {
+      @Override
+      public boolean matches(Set<String> terms) {
+        return terms.contains("c") || terms.contains("d");
+      }
+    });
+  }
+  
+  public void testTree() throws IOException {
+    check(and(or(term("c"), term("d")), term("a"), not(and(term("b"), term("e")))), new Matcher() {
+      @Override
+      public boolean matches(Set<String> terms) {
+        return (terms.contains("c") || terms.contains("d")) && terms.contains("a") && !(terms.contains("b") && terms.contains("e"));
+      }
+    });
+  }
+  
+  public void testMissingTerm() throws IOException {
+    BooleanQueryIterator iter = createIterator(and(term("a"), term("nothere")));
+    assertEquals(0, scan(iter, new Range()).size());
+    
+    iter = createIterator(and(term("d"), not(term("nothere"))));
+    assertEquals(new ArrayList<Key>(expected(new Matcher() {
+      @Override
+      public boolean matches(Set<String> terms) {
+        return terms.contains("d");
+      }
+    }, null, null)), scan(iter, new Range()));
+  }
+  
+  public void testEncoding() {
+    Query query = and(term("a"), or(term(new Text(new byte[] {0, '(', ','})), term("b")), not(term("c")));
+    assertEquals(query.toString(), BooleanQueryIterator.parseQuery(query.toString()).toString());
+    
+    try {
+      and(not(term("a")));
+      fail();
+    } catch (IllegalArgumentException e) {}
+    
+    try {
+      or(term("a"), not(term("b")));
+      fail();
+    } catch (IllegalArgumentException e) {}
+    
+    try {
+      BooleanQueryIterator.parseQuery("&(YQ==");
+      fail();
+    } catch (IllegalArgumentException e) {}
+  }
+}
@@ -20,11 +20,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.TreeMap;
 
@@ -44,8 +47,10 @@ import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
 import org.apache.accumulo.core.iterators.SortedMapIterator;
 import org.apache.accumulo.core.iterators.TypedValueCombiner;
 import org.apache.accumulo.core.iterators.TypedValueCombiner.Encoder;
+import org.apache.accumulo.core.iterators.ValueFormatException;
 import org.apache.accumulo.core.iterators.system.MultiIterator;
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.WritableUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -602,7 +607,7 @@ public class CombinerTest {
     assertFalse(iter2.hasTop());
   }
   
-
+  
   
   @Test
   public void maxMinTest() throws IOException {
@@ -788,4 +793,112 @@ public class CombinerTest {
     assertEquals(LongCombiner.safeAdd(Long.MAX_VALUE - 5, 5), Long.MAX_VALUE);
   }
   
+  @Test
+  public void testVarLenEncoderFormat() throws IOException {
+    long[] values = new long[] {0, 1, -1, 127, 128, -112, -113, 255, 256, -256, -257, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE};
+    LongCombiner.VarLenEncoder encoder = new LongCombiner.VarLenEncoder();
+    for (long v : values) {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      WritableUtils.writeVLong(new DataOutputStream(baos), v);
+      assertBytesEqual(baos.toByteArray(), encoder.encodeLong(v));
+      assertEquals(v, encoder.decodeLong(baos.toByteArray()));
+    }
+  }
+  
+  public static class BoxedSummingCombiner extends SummingCombiner {
+    @Override
+    protected LongReducer getLongReducer() {
+      return null;
+    }
+    
+    @Override
+    public Long typedReduce(Key key, Iterator<Long> iter) {
+      // adds one to show this was called rather than the primitive reducer
+      return super.typedReduce(key, iter) + 1;
+    }
+  }
+  
+  public static class CountingSummingCombiner extends SummingCombiner {
+    @Override
+    protected LongReducer getLongReducer() {
+      return null;
+    }
+    
+    @Override
+    public Value reduce(Key key, Iterator<Value> iter) {
+      // counts the values, to show this was called rather than the primitive reducer
+      long count = 0;
+      while (iter.hasNext()) {
+        iter.next();
+        count++;
+      }
+      return new Value(FIXED_LEN_ENCODER.encode(count));
+    }
+  }
+  
+  public static class PrimitiveSummingCombiner extends SummingCombiner {
+    @Override
+    public Long typedReduce(Key key, Iterator<Long> iter) {
+      // the primitive reducer is still returned, so this is never called
+      throw new UnsupportedOperationException();
+    }
+  }
+  
+  @Test
+  public void testPrimitiveReduce() throws IOException {
+    TreeMap<Key,Value> tm1 = new TreeMap<Key,Value>();
+    for (int i = 1; i <= 100; i++)
+      nkv(tm1, 1, 1, 1, i, false, (long) i, SummingCombiner.FIXED_LEN_ENCODER);
+    tm1.put(nk(1, 1, 1, 101), new Value("bad".getBytes()));
+    nkv(tm1, 1, 1, 2, 1, false, 7l, SummingCombiner.FIXED_LEN_ENCODER);
+    
+    IteratorSetting is = new IteratorSetting(1, SummingCombiner.class);
+    LongCombiner.setEncodingType(is, LongCombiner.Type.FIXEDLEN);
+    Combiner.setCombineAllColumns(is, true);
+    TypedValueCombiner.setLossyness(is, true);
+    
+    Combiner ai = new SummingCombiner();
+    ai.init(new SortedMapIterator(tm1), is.getOptions(), null);
+    ai.seek(new Range(), EMPTY_COL_FAMS, false);
+    assertTrue(ai.hasTop());
+    assertEquals(nk(1, 1, 1, 101), ai.getTopKey());
+    assertEquals(5050l, (long) SummingCombiner.FIXED_LEN_ENCODER.decode(ai.getTopValue().get()));
+    ai.next();
+    assertEquals(nk(1, 1, 2, 1), ai.getTopKey());
+    assertEquals(7l, (long) SummingCombiner.FIXED_LEN_ENCODER.decode(ai.getTopValue().get()));
+    ai.next();
+    assertFalse(ai.hasTop());
+    
+    // a copy should also skip the bad value
+    SortedKeyValueIterator<Key,Value> copy = ai.deepCopy(null);
+    copy.seek(new Range(), EMPTY_COL_FAMS, false);
+    assertEquals(5050l, (long) SummingCombiner.FIXED_LEN_ENCODER.decode(copy.getTopValue().get()));
+    
+    // a subclass overriding typedReduce and returning no primitive reducer has typedReduce called
+    ai = new BoxedSummingCombiner();
+    ai.init(new SortedMapIterator(tm1), is.getOptions(), null);
+    ai.seek(new Range(), EMPTY_COL_FAMS, false);
+    assertEquals(5051l, (long) SummingCombiner.FIXED_LEN_ENCODER.decode(ai.getTopValue().get()));
+    
+    // as does a subclass overriding reduce
+    ai = new CountingSummingCombiner();
+    ai.init(new SortedMapIterator(tm1), is.getOptions(), null);
+    ai.seek(new Range(), EMPTY_COL_FAMS, false);
+    assertEquals(101l, (long) SummingCombiner.FIXED_LEN_ENCODER.decode(ai.getTopValue().get()));
+    
+    // a subclass that still returns a primitive reducer is reduced with it
+    ai = new PrimitiveSummingCombiner();
+    ai.init(new SortedMapIterator(tm1), is.getOptions(), null);
+    ai.seek(new Range(), EMPTY_COL_FAMS, false);
+    assertEquals(5050l, (long) SummingCombiner.FIXED_LEN_ENCODER.decode(ai.getTopValue().get()));
+    
+    // without lossy the bad value is an error
+    TypedValueCombiner.setLossyness(is, false);
+    ai = new MaxCombiner();
+    ai.init(new SortedMapIterator(tm1), is.getOptions(), null);
+    try {
+      ai.seek(new Range(), EMPTY_COL_FAMS, false);
+      assertTrue(false);
+    } catch (ValueFormatException e) {}
+  }
 }
@@ -17,16 +17,20 @@
 package org.apache.accumulo.core.iterators.user;
 
 import java.io.IOException;
+import java.util.AbstractMap.SimpleImmutableEntry;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
 import junit.framework.TestCase;
 
+import org.apache.accumulo.core.client.RowIterator;
 import org.apache.accumulo.core.data.ByteSequence;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Range;
@@ -180,4 +184,63 @@ public class WholeRowIteratorTest extends TestCase {
     
   }
   
+  public void testMaxRowSize() throws Exception {
+    SortedMap<Key,Value> map = new TreeMap<Key,Value>();
+    pkv(map, "row1", "cf1", "cq1", "cv1", 5, "foo");
+    for (int i = 0; i < 100; i++)
+      pkv(map, "row2", "cf1", String.format("cq%03d", i), "cv1", 5, "value" + i);
+    pkv(map, "row3", "cf1", "cq1", "cv1", 5, "foo");
+    pkv(map, "row3", "cf1", "cq2", "cv1", 5, "bar");
+    
+    WholeRowIterator iter = new WholeRowIterator(new SortedMapIterator(map), 200);
+    
+    // read every key/value pair, restarting the scan after each one as the tablet server and client do
+    List<Entry<Key,Value>> encoded = new ArrayList<Entry<Key,Value>>();
+    Range range = new Range();
+    while (true) {
+      iter.seek(range, new ArrayList<ByteSequence>(), false);
+      if (!iter.hasTop())
+        break;
+      encoded.add(new SimpleImmutableEntry<Key,Value>(new Key(iter.getTopKey()), new Value(iter.getTopValue())));
+      range = new Range(iter.getTopKey(), false, null, true);
+    }
+    
+    // small rows are still returned whole, the wide row in several pieces
+    assertEquals(new Key("row1"), encoded.get(0).getKey());
+    assertEquals(new Key("row3"), encoded.get(encoded.size() - 1).getKey());
+    assertTrue(encoded.size() > 5);
+    for (int i = 1; i < encoded.size(); i++) {
+      assertTrue(encoded.get(i - 1).getKey().compareTo(encoded.get(i).getKey()) < 0);
+      assertTrue(WholeRowIterator.decodeRow(encoded.get(i).getKey(), encoded.get(i).getValue()).size() < 20);
+    }
+    
+    // reading without restarts gives the same pieces
+    iter.seek(new Range(), new ArrayList<ByteSequence>(), false);
+    for (Entry<Key,Value> entry : encoded) {
+      assertTrue(iter.hasTop());
+      assertEquals(entry.getKey(), iter.getTopKey());
+      assertEquals(entry.getValue(), iter.getTopValue());
+      iter.next();
+    }
+    assertFalse(iter.hasTop());
+    
+    SortedMap<Key,Value> decoded = new TreeMap<Key,Value>();
+    Iterator<Entry<Key,Value>> entries = WholeRowIterator.decodeEntries(encoded.iterator());
+    Key last = null;
+    while (entries.hasNext()) {
+      Entry<Key,Value> entry = entries.next();
+      assertTrue(last == null || last.compareTo(entry.getKey()) < 0);
+      last = entry.getKey();
+      decoded.put(entry.getKey(), entry.getValue());
+    }
+    assertEquals(map, decoded);
+    
+    int rows = 0;
+    RowIterator rowIter = new RowIterator(WholeRowIterator.decodeEntries(encoded.iterator()));
+    while (rowIter.hasNext()) {
+      rowIter.next();
+      rows++;
+    }
+    assertEquals(3, rows);
+  }
 }
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.util;
+
+import java.util.Random;
+
+import org.apache.hadoop.io.WritableComparator;
+import org.junit.Test;
+
+public class FastByteComparisonsPerformanceTest {
+  
+  @Test
+  public void test() {
+    
+  }
+  
+  private static byte[][] keys(int count, int length, int prefix) {
+    Random random = new Random(42);
+    byte[] common = new byte[prefix];
+    random.nextBytes(common);
+    byte[][] keys = new byte[count][length];
+    for (byte[] key : keys) {
+      random.nextBytes(key);
+      System.arraycopy(common, 0, key, 0, prefix);
+    }
+    return keys;
+  }
+  
+  private static void time(String name, byte[][] keys, int passes) {
+    for (int run = 0; run < 3; run++) {
+      int sum = 0;
+      long now = System.currentTimeMillis();
+      for (int pass = 0; pass < passes; pass++)
+        for (int i = 1; i < keys.length; i++)
+          sum += WritableComparator.compareBytes(keys[i - 1], 0, keys[i - 1].length, keys[i], 0, keys[i].length);
+      long slow = System.currentTimeMillis() - now;
+      
+      now = System.currentTimeMillis();
+      for (int pass = 0; pass < passes; pass++)
+        for (int i = 1; i < keys.length; i++)
+          sum -= FastByteComparisons.compareTo(keys[i - 1], 0, keys[i - 1].length, keys[i], 0, keys[i].length);
+      long fast = System.currentTimeMillis() - now;
+      
+      System.out.println(String.format("%s : WritableComparator took %d millis, FastByteComparisons took %d millis (%d)", name, slow, fast, sum));
+    }
+  }
+  
+  public static void main(String[] args) {
+    System.out.println("eight bytes at a time : " + FastByteComparisons.isUnsafeAvailable());
+    int passes = 1000;
+    time("differ at byte 0 of 16", keys(10000, 16, 0), passes);
+    time("differ at byte 32 of 40", keys(10000, 40, 32), passes);
+    time("differ at byte 96 of 128", keys(10000, 128, 96), passes);
+  }
+}
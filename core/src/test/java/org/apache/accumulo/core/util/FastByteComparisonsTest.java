@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.util;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.hadoop.io.WritableComparator;
+
+public class FastByteComparisonsTest extends TestCase {
+  
+  private static void check(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2) {
+    int expected = Integer.signum(WritableComparator.compareBytes(b1, s1, l1, b2, s2, l2));
+    assertEquals(expected, Integer.signum(FastByteComparisons.compareTo(b1, s1, l1, b2, s2, l2)));
+    assertEquals(-expected, Integer.signum(FastByteComparisons.compareTo(b2, s2, l2, b1, s1, l1)));
+  }
+  
+  public void testRandom() {
+    Random random = new Random(42);
+    for (int i = 0; i < 10000; i++) {
+      byte[] b1 = new byte[random.nextInt(40)];
+      random.nextBytes(b1);
+      byte[] b2 = b1.clone();
+      // usually change one byte, so most comparisons have a long common prefix
+      if (b2.length > 0 && random.nextInt(4) != 0)
+        b2[random.nextInt(b2.length)] = (byte) random.nextInt(256);
+      
+      int s1 = b1.length == 0 ? 0 : random.nextInt(b1.length);
+      int s2 = random.nextBoolean() ? s1 : (b2.length == 0 ? 0 : random.nextInt(b2.length));
+      int l1 = random.nextInt(b1.length - s1 + 1);
+      int l2 = random.nextBoolean() ? Math.min(l1, b2.length - s2) : random.nextInt(b2.length - s2 + 1);
+      check(b1, s1, l1, b2, s2, l2);
+      check(b1, 0, b1.length, b2, 0, b2.length);
+    }
+  }
+  
+  public void testUnsigned() {
+    byte[] low = new byte[] {0, 1, 2, 3, 4, 5, 6, 7, 8, 9};
+    byte[] high = low.clone();
+    // bytes with the high bit set sort after all others
+    for (int i = 0; i < low.length; i++) {
+      high[i] = (byte) 0x80;
+      check(low, 0, low.length, high, 0, high.length);
+      assertTrue(FastByteComparisons.compareTo(low, high) < 0);
+      high[i] = low[i];
+    }
+    assertEquals(0, FastByteComparisons.compareTo(low, high));
+    
+    // a prefix sorts first
+    assertTrue(FastByteComparisons.compareTo(low, 0, 9, low, 0, 10) < 0);
+    assertTrue(FastByteComparisons.compareTo(new byte[0], low) < 0);
+  }
+  
+  public void testBounds() {
+    try {
+      FastByteComparisons.compareTo(new byte[8], 1, 8, new byte[9], 0, 9);
+      fail();
+    } catch (ArrayIndexOutOfBoundsException e) {}
+  }
+}
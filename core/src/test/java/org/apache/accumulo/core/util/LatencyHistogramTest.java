@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.core.util;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.accumulo.core.util.LatencyHistogram.Snapshot;
+
+public class LatencyHistogramTest extends TestCase {
+  
+  public void testBuckets() {
+    Random random = new Random(42);
+    int lastBucket = -1;
+    for (long value = 0; value < 100000; value++) {
+      int bucket = LatencyHistogram.bucket(value);
+      assertTrue(bucket == lastBucket || bucket == lastBucket + 1);
+      assertTrue(LatencyHistogram.highestValue(bucket) >= value);
+      lastBucket = bucket;
+    }
+    
+    for (int i = 0; i < 10000; i++) {
+      long value = random.nextLong() >>> (24 + random.nextInt(40));
+      long highest = LatencyHistogram.highestValue(LatencyHistogram.bucket(value));
+      assertTrue(highest >= value);
+      assertTrue(highest - value <= value / 32);
+    }
+    
+    assertEquals(LatencyHistogram.NUM_BUCKETS - 1, LatencyHistogram.bucket(Long.MAX_VALUE));
+    assertEquals(0, LatencyHistogram.bucket(-5));
+  }
+  
+  public void testPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    assertEquals(0, histogram.getSnapshot().getCount());
+    assertEquals(0, histogram.getSnapshot().getPercentile(99));
+    
+    for (long i = 1; i <= 10000; i++)
+      histogram.record(i * 1000);
+    
+    Snapshot snapshot = histogram.getSnapshot();
+    assertEquals(10000, snapshot.getCount());
+    assertEquals(5000500.0, snapshot.getMean(), 0.001);
+    assertNear(5000000, snapshot.getPercentile(50));
+    assertNear(9900000, snapshot.getPercentile(99));
+    assertNear(9990000, snapshot.getPercentile(99.9));
+    assertNear(10000000, snapshot.getMax());
+    
+    histogram.reset();
+    histogram.record(7);
+    snapshot = histogram.getSnapshot();
+    assertEquals(1, snapshot.getCount());
+    assertEquals(7, snapshot.getPercentile(50));
+    assertEquals(7, snapshot.getMax());
+  }
+  
+  public void testThreads() throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    
+    Thread threads[] = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final int latency = (t + 1) * 100;
+      threads[t] = new Thread() {
+        @Override
+        public void run() {
+          for (int i = 0; i < 1000; i++)
+            histogram.record(latency);
+        }
+      };
+      threads[t].start();
+    }
+    for (Thread thread : threads)
+      thread.join();
+    
+    // the counts of exited threads are kept
+    histogram.record(5000);
+    Snapshot snapshot = histogram.getSnapshot();
+    assertEquals(8001, snapshot.getCount());
+    assertNear(500, snapshot.getPercentile(50));
+    assertNear(5000, snapshot.getMax());
+    assertEquals(8001, histogram.getSnapshot().getCount());
+  }
+  
+  public void testThreadChurn() throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    
+    // threads that come and go, with no snapshot taken, must not accumulate recorders
+    for (int t = 0; t < 100; t++) {
+      Thread thread = new Thread() {
+        @Override
+        public void run() {
+          histogram.record(100);
+        }
+      };
+      thread.start();
+      thread.join();
+      assertTrue(histogram.getRecorderCount() <= 1);
+    }
+    assertEquals(100, histogram.getSnapshot().getCount());
+  }
+  
+  private static void assertNear(long expected, long actual) {
+    long delta = expected / 32;
+    assertTrue(actual + " is not within " + delta + " of " + expected, Math.abs(expected - actual) <= delta);
+  }
+  
+  public void testSharedByName() {
+    assertSame(LatencyHistogram.get("test.shared"), LatencyHistogram.get("test.shared"));
+    assertNotSame(LatencyHistogram.get("test.shared"), LatencyHistogram.get("test.other"));
+  }
+}
@@ -36,6 +36,12 @@ public class Fate<T> {
   private static final String EXCEPTION_PROP = "exception";
   private static final String RETURN_PROP = "return";
   
+  /** Priority for short operations that a user is typically waiting on */
+  public static final int HIGH_PRIORITY = 1;
+  public static final int NORMAL_PRIORITY = 0;
+  /** Priority for long running or bulk operations, which should not hold up other operations when many are queued */
+  public static final int LOW_PRIORITY = -1;
+  
   final private static Logger log = Logger.getLogger(Fate.class);
   
   private TStore<T> store;
@@ -155,6 +161,11 @@ public class Fate<T> {
   // start work in the transaction.. it is safe to call this
   // multiple times for a transaction... but it will only seed once
   public void seedTransaction(long tid, Repo<T> repo, boolean autoCleanUp) {
+    seedTransaction(tid, repo, autoCleanUp, NORMAL_PRIORITY);
+  }
+  
+  // when many transactions are ready to run, those with a higher priority are run first
+  public void seedTransaction(long tid, Repo<T> repo, boolean autoCleanUp, int priority) {
     store.reserve(tid);
     try {
       if (store.getStatus(tid) == TStatus.NEW) {
@@ -172,6 +183,8 @@ public class Fate<T> {
         
         store.setProperty(tid, DEBUG_PROP, repo.getDescription());
         
+        store.setProperty(tid, TStore.PRIORITY_PROP, Integer.toString(priority));
+        
         store.setStatus(tid, TStatus.IN_PROGRESS);
       }
     } finally {
@@ -29,6 +29,12 @@ import java.util.List;
  */
 public interface TStore<T> {
   
+  /**
+   * Property holding a transaction's priority as a decimal string. Stores may use it to order {@link #reserve()}, handing out transactions with a higher
+   * priority first.
+   */
+  public static final String PRIORITY_PROP = "priority";
+  
   public enum TStatus {
     /** Unseeded transaction */
     NEW,
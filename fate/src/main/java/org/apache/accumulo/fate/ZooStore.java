@@ -25,6 +25,7 @@ import java.io.Serializable;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -47,7 +48,8 @@ public class ZooStore<T> implements TStore<T> {
   
   private String path;
   private IZooReaderWriter zk;
-  private String lastReserved = "";
+  private Map<Integer,String> lastReserved;
+  private Map<Long,Integer> priorities;
   private Set<Long> reserved;
   private Map<Long,Long> defered;
   private SecureRandom idgenerator;
@@ -93,6 +95,8 @@ public class ZooStore<T> implements TStore<T> {
     this.zk = zk;
     this.reserved = new HashSet<Long>();
     this.defered = new HashMap<Long,Long>();
+    this.lastReserved = new HashMap<Integer,String>();
+    this.priorities = new HashMap<Long,Integer>();
     this.idgenerator = new SecureRandom();
     
     zk.putPersistentData(path, new byte[0], NodeExistsPolicy.SKIP);
@@ -125,22 +129,46 @@ public class ZooStore<T> implements TStore<T> {
         }
         
         List<String> txdirs = new ArrayList<String>(zk.getChildren(path));
-        Collections.sort(txdirs);
         
+        final Map<String,Integer> txPriorities = new HashMap<String,Integer>();
+        Set<Long> tids = new HashSet<Long>();
+        for (String txdir : txdirs) {
+          long tid = parseTid(txdir);
+          tids.add(tid);
+          txPriorities.put(txdir, getPriority(tid));
+        }
+        
+        final Map<Integer,String> lastReservedCopy;
         synchronized (this) {
-          if (txdirs.size() > 0 && txdirs.get(txdirs.size() - 1).compareTo(lastReserved) <= 0)
-            lastReserved = "";
+          priorities.keySet().retainAll(tids);
+          lastReservedCopy = new HashMap<Integer,String>(lastReserved);
         }
         
+        // Visit transactions with a higher priority first. Within a priority, start after the transaction last reserved so that reserve cycles through all
+        // of them as it is repeatedly called.... failing to do so can lead to starvation where fate ops that sort higher and hold a lock are never reserved.
+        Collections.sort(txdirs, new Comparator<String>() {
+          @Override
+          public int compare(String tx1, String tx2) {
+            int p1 = txPriorities.get(tx1);
+            int p2 = txPriorities.get(tx2);
+            if (p1 != p2)
+              return p1 > p2 ? -1 : 1;
+            
+            String last = lastReservedCopy.get(p1);
+            if (last != null) {
+              boolean wrapped1 = tx1.compareTo(last) <= 0;
+              boolean wrapped2 = tx2.compareTo(last) <= 0;
+              if (wrapped1 != wrapped2)
+                return wrapped1 ? 1 : -1;
+            }
+            return tx1.compareTo(tx2);
+          }
+        });
+        
         for (String txdir : txdirs) {
           long tid = parseTid(txdir);
           
           synchronized (this) {
-            // this check makes reserve pick up where it left off, so that it cycles through all as it is repeatedly called.... failing to do so can lead to
-            // starvation where fate ops that sort higher and hold a lock are never reserved.
-            if (txdir.compareTo(lastReserved) <= 0)
-              continue;
-
             if (defered.containsKey(tid)) {
               if (defered.get(tid) < System.currentTimeMillis())
                 defered.remove(tid);
@@ -149,7 +177,7 @@ public class ZooStore<T> implements TStore<T> {
             }
             if (!reserved.contains(tid)) {
               reserved.add(tid);
-              lastReserved = txdir;
+              lastReserved.put(txPriorities.get(txdir), txdir);
             }
             else
               continue;
@@ -190,6 +218,38 @@ public class ZooStore<T> implements TStore<T> {
     }
   }
   
+  /**
+   * The priority of a transaction is set once, when it is seeded through this store, so it is only read from zookeeper the first time a transaction is seen.
+   * A transaction that has not been seeded yet gets the normal priority until {@link #setProperty(long, String, Serializable)} sets it.
+   */
+  private int getPriority(long tid) throws KeeperException, InterruptedException {
+    synchronized (this) {
+      Integer priority = priorities.get(tid);
+      if (priority != null)
+        return priority;
+    }
+    
+    int priority = parsePriority(readProperty(tid, PRIORITY_PROP));
+    synchronized (this) {
+      // setProperty may have cached the priority while zookeeper was read, and its value is newer than what was read
+      Integer cached = priorities.get(tid);
+      if (cached != null)
+        return cached;
+      priorities.put(tid, priority);
+    }
+    return priority;
+  }
+  
+  private static int parsePriority(Serializable value) {
+    if (value == null)
+      return Fate.NORMAL_PRIORITY;
+    try {
+      return Integer.parseInt(value.toString());
+    } catch (NumberFormatException nfe) {
+      return Fate.NORMAL_PRIORITY;
+    }
+  }
+  
   public void reserve(long tid) {
     synchronized (this) {
       reservationsWaiting++;
@@ -399,12 +459,26 @@ public class ZooStore<T> implements TStore<T> {
     } catch (Exception e2) {
       throw new RuntimeException(e2);
     }
+    
+    if (prop.equals(PRIORITY_PROP)) {
+      synchronized (this) {
+        priorities.put(tid, parsePriority(so));
+      }
+    }
   }
   
   @Override
   public Serializable getProperty(long tid, String prop) {
     verifyReserved(tid);
     
+    try {
+      return readProperty(tid, prop);
+    } catch (Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+  
+  private Serializable readProperty(long tid, String prop) throws KeeperException, InterruptedException {
     try {
       byte[] data = zk.getData(getTXPath(tid) + "/prop_" + prop, null);
       
@@ -419,8 +493,6 @@ public class ZooStore<T> implements TStore<T> {
       }
     } catch (NoNodeException nne) {
       return null;
-    } catch (Exception e) {
-      throw new RuntimeException(e);
     }
   }
   
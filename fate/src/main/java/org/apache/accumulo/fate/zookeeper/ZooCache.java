@@ -21,14 +21,24 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.log4j.Logger;
+import org.apache.zookeeper.AsyncCallback.DataCallback;
+import org.apache.zookeeper.AsyncCallback.StatCallback;
 import org.apache.zookeeper.KeeperException;
 import org.apache.zookeeper.KeeperException.Code;
 import org.apache.zookeeper.WatchedEvent;
@@ -39,16 +49,35 @@ import org.apache.zookeeper.data.Stat;
 /**
  * Caches values stored in zookeeper and keeps them up to date as they change in zookeeper.
  * 
+ * Cache hits do not take any lock. A miss locks one of a fixed set of stripes, chosen by path, while it reads from zookeeper; watcher events are applied by a
+ * background thread that takes the same stripe, so an invalidation can never be overtaken by the put of a read that started before the change.
  */
 public class ZooCache {
   private static final Logger log = Logger.getLogger(ZooCache.class);
   
+  private static final int NUM_STRIPES = 32;
+  
   private ZCacheWatcher watcher = new ZCacheWatcher();
   private Watcher externalWatcher = null;
   
-  private HashMap<String,byte[]> cache;
-  private HashMap<String,Stat> statCache;
-  private HashMap<String,List<String>> childrenCache;
+  /**
+   * A cached node. Non-existence is cached as an entry with null data and stat, since the maps below do not allow null values.
+   */
+  private static class CachedData {
+    final byte[] data;
+    final Stat stat;
+    
+    CachedData(byte[] data, Stat stat) {
+      this.data = data;
+      this.stat = stat;
+    }
+  }
+  
+  private ConcurrentHashMap<String,CachedData> cache;
+  private ConcurrentHashMap<String,List<String>> childrenCache;
+  
+  private final ReentrantLock[] stripes;
+  private final ExecutorService eventExecutor;
   
   private ZooReader zReader;
   
@@ -58,42 +87,57 @@ public class ZooCache {
   
   private class ZCacheWatcher implements Watcher {
     @Override
-    public void process(WatchedEvent event) {
+    public void process(final WatchedEvent event) {
       
       if (log.isTraceEnabled())
         log.trace(event);
       
-      switch (event.getType()) {
-        case NodeDataChanged:
-        case NodeChildrenChanged:
-        case NodeCreated:
-        case NodeDeleted:
-          remove(event.getPath());
-          break;
-        case None:
-          switch (event.getState()) {
-            case Disconnected:
-              if (log.isTraceEnabled())
-                log.trace("Zoo keeper connection disconnected, clearing cache");
-              clear();
-              break;
-            case SyncConnected:
-              break;
-            case Expired:
-              if (log.isTraceEnabled())
-                log.trace("Zoo keeper connection expired, clearing cache");
-              clear();
-              break;
-            default:
-              log.warn("Unhandled: " + event);
-          }
-          break;
-        default:
-          log.warn("Unhandled: " + event);
-      }
-      
-      if (externalWatcher != null) {
+      // called on the zookeeper event thread, so events are queued in the order they were delivered
+      eventExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          processEvent(event);
+        }
+      });
+    }
+  }
+  
+  private void processEvent(WatchedEvent event) {
+    switch (event.getType()) {
+      case NodeDataChanged:
+      case NodeChildrenChanged:
+      case NodeCreated:
+      case NodeDeleted:
+        remove(event.getPath());
+        break;
+      case None:
+        switch (event.getState()) {
+          case Disconnected:
+            if (log.isTraceEnabled())
+              log.trace("Zoo keeper connection disconnected, clearing cache");
+            clear();
+            break;
+          case SyncConnected:
+            break;
+          case Expired:
+            if (log.isTraceEnabled())
+              log.trace("Zoo keeper connection expired, clearing cache");
+            clear();
+            break;
+          default:
+            log.warn("Unhandled: " + event);
+        }
+        break;
+      default:
+        log.warn("Unhandled: " + event);
+    }
+    
+    // the external watcher runs after the cache was updated, so it sees the new state when it reads through this cache
+    if (externalWatcher != null) {
+      try {
         externalWatcher.process(event);
+      } catch (RuntimeException e) {
+        log.warn("Watcher failed processing " + event, e);
       }
     }
   }
@@ -108,17 +152,46 @@ public class ZooCache {
   
   public ZooCache(ZooReader reader, Watcher watcher) {
     this.zReader = reader;
-    this.cache = new HashMap<String,byte[]>();
-    this.statCache = new HashMap<String,Stat>();
-    this.childrenCache = new HashMap<String,List<String>>();
+    this.cache = new ConcurrentHashMap<String,CachedData>();
+    this.childrenCache = new ConcurrentHashMap<String,List<String>>();
     this.externalWatcher = watcher;
+    
+    this.stripes = new ReentrantLock[NUM_STRIPES];
+    for (int i = 0; i < stripes.length; i++)
+      stripes[i] = new ReentrantLock();
+    
+    // a single thread keeps events in order; it exits when idle so caches that are rarely notified do not hold a thread
+    ThreadPoolExecutor tpe = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "ZooCache event processor");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    tpe.allowCoreThreadTimeOut(true);
+    this.eventExecutor = tpe;
+  }
+  
+  private ReentrantLock getStripe(String zPath) {
+    return stripes[(zPath.hashCode() & Integer.MAX_VALUE) % stripes.length];
+  }
+  
+  private void lockAllStripes() {
+    for (ReentrantLock stripe : stripes)
+      stripe.lock();
+  }
+  
+  private void unlockAllStripes() {
+    for (int i = stripes.length - 1; i >= 0; i--)
+      stripes[i].unlock();
   }
   
   private static interface ZooRunnable {
     void run(ZooKeeper zooKeeper) throws KeeperException, InterruptedException;
   }
   
-  private synchronized void retry(ZooRunnable op) {
+  private void retry(String zPath, ZooRunnable op) {
     
     int sleepTime = 100;
     
@@ -126,6 +199,8 @@ public class ZooCache {
       
       ZooKeeper zooKeeper = getZooKeeper();
       
+      ReentrantLock stripe = getStripe(zPath);
+      stripe.lock();
       try {
         op.run(zooKeeper);
         return;
@@ -139,11 +214,13 @@ public class ZooCache {
         log.info("Zookeeper error, will retry", e);
       } catch (ConcurrentModificationException e) {
         log.debug("Zookeeper was modified, will retry");
+      } finally {
+        stripe.unlock();
       }
       
       try {
         // do not hold lock while sleeping
-        wait(sleepTime);
+        Thread.sleep(sleepTime);
       } catch (InterruptedException e) {
         e.printStackTrace();
       }
@@ -153,19 +230,32 @@ public class ZooCache {
     }
   }
   
-  public synchronized List<String> getChildren(final String zPath) {
+  public List<String> getChildren(final String zPath) {
+    
+    List<String> children = childrenCache.get(zPath);
+    if (children != null)
+      return children;
+    
+    // the value read is kept here, an invalidation may remove it from the cache before this thread returns it
+    final List<List<String>> result = new ArrayList<List<String>>(1);
     
     ZooRunnable zr = new ZooRunnable() {
       
       @Override
       public void run(ZooKeeper zooKeeper) throws KeeperException, InterruptedException {
         
-        if (childrenCache.containsKey(zPath))
+        result.clear();
+        
+        List<String> children = childrenCache.get(zPath);
+        if (children != null) {
+          result.add(children);
           return;
+        }
         
         try {
-          List<String> children = zooKeeper.getChildren(zPath, watcher);
+          children = Collections.unmodifiableList(zooKeeper.getChildren(zPath, watcher));
           childrenCache.put(zPath, children);
+          result.add(children);
         } catch (KeeperException ke) {
           if (ke.code() != Code.NONODE) {
             throw ke;
@@ -175,134 +265,242 @@ public class ZooCache {
       
     };
     
-    retry(zr);
+    retry(zPath, zr);
     
-    List<String> children = childrenCache.get(zPath);
-    if (children == null) {
-      return null;
-    }
-    return Collections.unmodifiableList(children);
+    return result.isEmpty() ? null : result.get(0);
   }
   
-  public synchronized byte[] get(final String zPath) {
+  public byte[] get(final String zPath) {
     return get(zPath, null);
   }
   
-  public synchronized byte[] get(final String zPath, Stat stat) {
-    ZooRunnable zr = new ZooRunnable() {
+  public byte[] get(final String zPath, Stat stat) {
+    
+    CachedData cached = cache.get(zPath);
+    
+    if (cached == null) {
+      // the value read is kept here, an invalidation may remove it from the cache before this thread returns it
+      final List<CachedData> result = new ArrayList<CachedData>(1);
       
-      @Override
-      public void run(ZooKeeper zooKeeper) throws KeeperException, InterruptedException {
-        
-        if (cache.containsKey(zPath))
-          return;
-        
-        /*
-         * The following call to exists() is important, since we are caching that a node does not exist. Once the node comes into existance, it will be added to
-         * the cache. But this notification of a node coming into existance will only be given if exists() was previously called.
-         * 
-         * If the call to exists() is bypassed and only getData() is called with a special case that looks for Code.NONODE in the KeeperException, then
-         * non-existance can not be cached.
-         */
-        
-        Stat stat = zooKeeper.exists(zPath, watcher);
+      ZooRunnable zr = new ZooRunnable() {
         
-        byte[] data = null;
-        
-        if (stat == null) {
-          if (log.isTraceEnabled())
-            log.trace("zookeeper did not contain " + zPath);
-        } else {
-          try {
-            data = zooKeeper.getData(zPath, watcher, stat);
-          } catch (KeeperException.BadVersionException e1) {
-            throw new ConcurrentModificationException();
-          } catch (KeeperException.NoNodeException e2) {
-            throw new ConcurrentModificationException();
+        @Override
+        public void run(ZooKeeper zooKeeper) throws KeeperException, InterruptedException {
+          
+          result.clear();
+          
+          CachedData cached = cache.get(zPath);
+          if (cached != null) {
+            result.add(cached);
+            return;
           }
-          if (log.isTraceEnabled())
-            log.trace("zookeeper contained " + zPath + " " + (data == null ? null : new String(data)));
+          
+          /*
+           * The following call to exists() is important, since we are caching that a node does not exist. Once the node comes into existance, it will be added
+           * to the cache. But this notification of a node coming into existance will only be given if exists() was previously called.
+           * 
+           * If the call to exists() is bypassed and only getData() is called with a special case that looks for Code.NONODE in the KeeperException, then
+           * non-existance can not be cached.
+           */
+          
+          Stat stat = zooKeeper.exists(zPath, watcher);
+          
+          byte[] data = null;
+          
+          if (stat == null) {
+            if (log.isTraceEnabled())
+              log.trace("zookeeper did not contain " + zPath);
+          } else {
+            try {
+              data = zooKeeper.getData(zPath, watcher, stat);
+            } catch (KeeperException.BadVersionException e1) {
+              throw new ConcurrentModificationException();
+            } catch (KeeperException.NoNodeException e2) {
+              throw new ConcurrentModificationException();
+            }
+            if (log.isTraceEnabled())
+              log.trace("zookeeper contained " + zPath + " " + (data == null ? null : new String(data)));
+          }
+          result.add(put(zPath, data, stat));
         }
-        if (log.isTraceEnabled())
-          log.trace("putting " + zPath + " " + (data == null ? null : new String(data)) + " in cache");
-        put(zPath, data, stat);
-      }
+        
+      };
       
-    };
+      retry(zPath, zr);
+      
+      cached = result.get(0);
+    }
+    
+    if (stat != null && cached != null && cached.stat != null) {
+      copyStat(cached.stat, stat);
+    }
+    
+    return cached == null ? null : cached.data;
+  }
+  
+  /**
+   * Ensures the given nodes are cached. Nodes that are not already cached are read using asynchronous zookeeper calls that are all issued before waiting on
+   * any of them, so reading many siblings costs about one round trip instead of one per node. Nodes that could not be read are left for {@link #get(String)}
+   * to retry. If the reads have not all completed within the session timeout, for example because the connection was lost, the nodes still missing are read
+   * with {@link #get(String)}.
+   */
+  public void prefetch(Collection<String> zPaths) {
+    List<String> missing = new ArrayList<String>();
+    for (String zPath : zPaths)
+      if (!cache.containsKey(zPath))
+        missing.add(zPath);
+    
+    if (missing.isEmpty())
+      return;
     
-    retry(zr);
+    final CountDownLatch latch = new CountDownLatch(missing.size());
+    final ZooKeeper zooKeeper = getZooKeeper();
     
-    if (stat != null) {
-      Stat cstat = statCache.get(zPath);
-      if (cstat != null) {
+    /*
+     * The callbacks run on the zookeeper event thread, in order with watcher events. So any event for a change made after a read is queued for processing after
+     * that read was put in the cache. Like get(), exists() is called first so that non-existence can be cached.
+     */
+    final DataCallback dataCallback = new DataCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx, byte[] data, Stat stat) {
         try {
-          ByteArrayOutputStream baos = new ByteArrayOutputStream();
-          DataOutputStream dos = new DataOutputStream(baos);
-          cstat.write(dos);
-          dos.close();
-          
-          ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
-          DataInputStream dis = new DataInputStream(bais);
-          stat.readFields(dis);
-          
-          dis.close();
-        } catch (IOException e) {
-          throw new RuntimeException(e);
+          if (rc == Code.OK.intValue())
+            putIfAbsent(path, data, stat);
+          else if (log.isTraceEnabled())
+            log.trace("prefetch of " + path + " failed " + Code.get(rc));
+        } finally {
+          latch.countDown();
+        }
+      }
+    };
+    
+    StatCallback existsCallback = new StatCallback() {
+      @Override
+      public void processResult(int rc, String path, Object ctx, Stat stat) {
+        boolean done = true;
+        try {
+          if (rc == Code.NONODE.intValue()) {
+            putIfAbsent(path, null, null);
+          } else if (rc == Code.OK.intValue()) {
+            zooKeeper.getData(path, watcher, dataCallback, null);
+            done = false;
+          } else if (log.isTraceEnabled()) {
+            log.trace("prefetch of " + path + " failed " + Code.get(rc));
+          }
+        } finally {
+          if (done)
+            latch.countDown();
         }
       }
+    };
+    
+    for (String zPath : missing)
+      zooKeeper.exists(zPath, watcher, existsCallback, null);
+    
+    try {
+      if (latch.await(zooKeeper.getSessionTimeout(), TimeUnit.MILLISECONDS))
+        return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
     }
     
-    return cache.get(zPath);
+    for (String zPath : missing)
+      if (!cache.containsKey(zPath))
+        get(zPath);
   }
   
-  private synchronized void put(String zPath, byte[] data, Stat stat) {
-    cache.put(zPath, data);
-    statCache.put(zPath, stat);
+  private static void copyStat(Stat source, Stat dest) {
+    try {
+      ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      DataOutputStream dos = new DataOutputStream(baos);
+      source.write(dos);
+      dos.close();
+      
+      ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
+      DataInputStream dis = new DataInputStream(bais);
+      dest.readFields(dis);
+      
+      dis.close();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
   }
   
-  private synchronized void remove(String zPath) {
+  private CachedData put(String zPath, byte[] data, Stat stat) {
     if (log.isTraceEnabled())
-      log.trace("removing " + zPath + " from cache");
-    cache.remove(zPath);
-    childrenCache.remove(zPath);
-    statCache.remove(zPath);
+      log.trace("putting " + zPath + " " + (data == null ? null : new String(data)) + " in cache");
+    CachedData cached = new CachedData(data, stat);
+    cache.put(zPath, cached);
+    return cached;
   }
   
-  public synchronized void clear() {
-    cache.clear();
-    childrenCache.clear();
-    statCache.clear();
+  private void putIfAbsent(String zPath, byte[] data, Stat stat) {
+    ReentrantLock stripe = getStripe(zPath);
+    stripe.lock();
+    try {
+      if (!cache.containsKey(zPath))
+        put(zPath, data, stat);
+    } finally {
+      stripe.unlock();
+    }
   }
   
-  public synchronized void clear(String zPath) {
-    
-    for (Iterator<String> i = cache.keySet().iterator(); i.hasNext();) {
-      String path = i.next();
-      if (path.startsWith(zPath))
-        i.remove();
+  private void remove(String zPath) {
+    if (log.isTraceEnabled())
+      log.trace("removing " + zPath + " from cache");
+    ReentrantLock stripe = getStripe(zPath);
+    stripe.lock();
+    try {
+      cache.remove(zPath);
+      childrenCache.remove(zPath);
+    } finally {
+      stripe.unlock();
     }
-    
-    for (Iterator<String> i = childrenCache.keySet().iterator(); i.hasNext();) {
-      String path = i.next();
-      if (path.startsWith(zPath))
-        i.remove();
+  }
+  
+  public void clear() {
+    lockAllStripes();
+    try {
+      cache.clear();
+      childrenCache.clear();
+    } finally {
+      unlockAllStripes();
     }
-    
-    for (Iterator<String> i = statCache.keySet().iterator(); i.hasNext();) {
-      String path = i.next();
-      if (path.startsWith(zPath))
-        i.remove();
+  }
+  
+  public void clear(String zPath) {
+    lockAllStripes();
+    try {
+      for (Iterator<String> i = cache.keySet().iterator(); i.hasNext();) {
+        String path = i.next();
+        if (path.startsWith(zPath))
+          i.remove();
+      }
+      
+      for (Iterator<String> i = childrenCache.keySet().iterator(); i.hasNext();) {
+        String path = i.next();
+        if (path.startsWith(zPath))
+          i.remove();
+      }
+    } finally {
+      unlockAllStripes();
     }
   }
   
-  private static Map<String,ZooCache> instances = new HashMap<String,ZooCache>();
+  private static ConcurrentHashMap<String,ZooCache> instances = new ConcurrentHashMap<String,ZooCache>();
   
-  public static synchronized ZooCache getInstance(String zooKeepers, int sessionTimeout) {
+  public static ZooCache getInstance(String zooKeepers, int sessionTimeout) {
     String key = zooKeepers + ":" + sessionTimeout;
     ZooCache zc = instances.get(key);
     if (zc == null) {
-      zc = new ZooCache(zooKeepers, sessionTimeout);
-      instances.put(key, zc);
+      synchronized (instances) {
+        zc = instances.get(key);
+        if (zc == null) {
+          zc = new ZooCache(zooKeepers, sessionTimeout);
+          instances.put(key, zc);
+        }
+      }
     }
     
     return zc;
@@ -0,0 +1,237 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.fate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.apache.accumulo.fate.TStore.TStatus;
+import org.apache.accumulo.fate.zookeeper.IZooReaderWriter;
+import org.apache.accumulo.fate.zookeeper.ZooReaderWriter.Mutator;
+import org.apache.accumulo.fate.zookeeper.ZooUtil.LockID;
+import org.apache.accumulo.fate.zookeeper.ZooUtil.NodeExistsPolicy;
+import org.apache.accumulo.fate.zookeeper.ZooUtil.NodeMissingPolicy;
+import org.apache.zookeeper.KeeperException;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.ACL;
+import org.apache.zookeeper.data.Stat;
+import org.junit.Test;
+
+public class ZooStoreTest {
+  
+  /**
+   * Keeps the nodes ZooStore uses in memory.
+   */
+  private static class MemoryZooReaderWriter implements IZooReaderWriter {
+    private final TreeMap<String,byte[]> nodes = new TreeMap<String,byte[]>();
+    private int sequence = 0;
+    
+    @Override
+    public synchronized byte[] getData(String zPath, Stat stat) throws KeeperException {
+      byte[] data = nodes.get(zPath);
+      if (data == null)
+        throw new KeeperException.NoNodeException(zPath);
+      return data;
+    }
+    
+    @Override
+    public synchronized List<String> getChildren(String zPath) throws KeeperException {
+      if (!nodes.containsKey(zPath))
+        throw new KeeperException.NoNodeException(zPath);
+      List<String> children = new ArrayList<String>();
+      for (String path : nodes.tailMap(zPath + "/").keySet()) {
+        if (!path.startsWith(zPath + "/"))
+          break;
+        String child = path.substring(zPath.length() + 1);
+        if (child.indexOf('/') < 0)
+          children.add(child);
+      }
+      return children;
+    }
+    
+    @Override
+    public synchronized boolean putPersistentData(String zPath, byte[] data, NodeExistsPolicy policy) throws KeeperException {
+      if (nodes.containsKey(zPath)) {
+        if (policy == NodeExistsPolicy.FAIL)
+          throw new KeeperException.NodeExistsException(zPath);
+        if (policy == NodeExistsPolicy.SKIP)
+          return false;
+      }
+      nodes.put(zPath, data);
+      return true;
+    }
+    
+    @Override
+    public synchronized String putPersistentSequential(String zPath, byte[] data) {
+      String path = String.format("%s%010d", zPath, sequence++);
+      nodes.put(path, data);
+      return path;
+    }
+    
+    @Override
+    public synchronized void recursiveDelete(String zPath, NodeMissingPolicy policy) {
+      List<String> doomed = new ArrayList<String>();
+      for (Entry<String,byte[]> entry : nodes.tailMap(zPath).entrySet())
+        if (entry.getKey().equals(zPath) || entry.getKey().startsWith(zPath + "/"))
+          doomed.add(entry.getKey());
+      nodes.keySet().removeAll(doomed);
+    }
+    
+    @Override
+    public Stat getStatus(String zPath) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public Stat getStatus(String zPath, Watcher watcher) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public List<String> getChildren(String zPath, Watcher watcher) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public boolean exists(String zPath) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public boolean exists(String zPath, Watcher watcher) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void sync(String path) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public ZooKeeper getZooKeeper() {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void recursiveDelete(String zPath, int version, NodeMissingPolicy policy) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public boolean putPrivatePersistentData(String zPath, byte[] data, NodeExistsPolicy policy) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void putPersistentData(String zPath, byte[] data, int version, NodeExistsPolicy policy) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public String putEphemeralSequential(String zPath, byte[] data) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public String putEphemeralData(String zPath, byte[] data) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void recursiveCopyPersistent(String source, String destination, NodeExistsPolicy policy) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void delete(String path, int version) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public byte[] mutate(String zPath, byte[] createValue, List<ACL> acl, Mutator mutator) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public boolean isLockHeld(LockID lockID) {
+      throw new UnsupportedOperationException();
+    }
+    
+    @Override
+    public void mkdirs(String path) {
+      throw new UnsupportedOperationException();
+    }
+  }
+  
+  // creates a transaction that is ready to run, as Fate.seedTransaction does
+  private static long seed(TStore<String> store, int priority) {
+    long tid = store.create();
+    store.reserve(tid);
+    store.setProperty(tid, TStore.PRIORITY_PROP, Integer.toString(priority));
+    store.setStatus(tid, TStatus.IN_PROGRESS);
+    store.unreserve(tid, 0);
+    return tid;
+  }
+  
+  @Test
+  public void testReservePriority() throws Exception {
+    ZooStore<String> zooStore = new ZooStore<String>("/fate", new MemoryZooReaderWriter());
+    AgeOffStore<String> store = new AgeOffStore<String>(zooStore, 60 * 1000);
+    
+    long low = seed(store, Fate.LOW_PRIORITY);
+    long normal1 = seed(store, Fate.NORMAL_PRIORITY);
+    long high = seed(store, Fate.HIGH_PRIORITY);
+    long normal2 = seed(store, Fate.NORMAL_PRIORITY);
+    // not seeded yet, so never reserved
+    store.create();
+    
+    // the high priority transaction is reserved first, every time it is available
+    assertEquals(high, store.reserve());
+    store.unreserve(high, 0);
+    assertEquals(high, store.reserve());
+    
+    // while it is held, transactions of equal priority are reserved in turn
+    long first = store.reserve();
+    assertFalse(first == low);
+    store.unreserve(first, 0);
+    long second = store.reserve();
+    assertFalse(second == low);
+    assertFalse(second == first);
+    store.unreserve(second, 0);
+    assertEquals(first, store.reserve());
+    assertEquals(second, store.reserve());
+    
+    Set<Long> normals = new HashSet<Long>();
+    normals.add(first);
+    normals.add(second);
+    Set<Long> expected = new HashSet<Long>();
+    expected.add(normal1);
+    expected.add(normal2);
+    assertEquals(expected, normals);
+    
+    // the low priority transaction is only reserved once nothing else is available
+    assertEquals(low, store.reserve());
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.fate.zookeeper;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.zookeeper.AsyncCallback.DataCallback;
+import org.apache.zookeeper.AsyncCallback.StatCallback;
+import org.apache.zookeeper.KeeperException.Code;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+import org.apache.zookeeper.Watcher.Event.EventType;
+import org.apache.zookeeper.Watcher.Event.KeeperState;
+import org.apache.zookeeper.ZooKeeper;
+import org.apache.zookeeper.data.Stat;
+import org.easymock.EasyMock;
+import org.easymock.IAnswer;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ZooCacheTest {
+  
+  // the contents of the mock zookeeper
+  private final Map<String,byte[]> nodes = new ConcurrentHashMap<String,byte[]>();
+  private final Map<String,List<String>> children = new ConcurrentHashMap<String,List<String>>();
+  private final AtomicInteger reads = new AtomicInteger();
+  
+  // the watcher the cache registered, used to deliver events as zookeeper would
+  private volatile Watcher cacheWatcher;
+  
+  // what the external watcher saw in the cache when it was called
+  private final BlockingQueue<Object> seen = new LinkedBlockingQueue<Object>();
+  
+  // called by the mock before answering an asynchronous getData
+  private volatile Runnable beforeAsyncData = null;
+  
+  // when set, the mock never answers an asynchronous getData, as if the connection was lost
+  private volatile boolean dropAsyncData = false;
+  
+  private ZooCache zc;
+  
+  @Before
+  public void setUp() throws Exception {
+    final ZooKeeper zk = EasyMock.createMock(ZooKeeper.class);
+    
+    expect(zk.exists(anyObject(String.class), anyObject(Watcher.class))).andAnswer(new IAnswer<Stat>() {
+      @Override
+      public Stat answer() {
+        cacheWatcher = (Watcher) getCurrentArguments()[1];
+        reads.incrementAndGet();
+        return nodes.containsKey(getCurrentArguments()[0]) ? new Stat() : null;
+      }
+    }).anyTimes();
+    
+    expect(zk.getData(anyObject(String.class), anyObject(Watcher.class), anyObject(Stat.class))).andAnswer(new IAnswer<byte[]>() {
+      @Override
+      public byte[] answer() {
+        reads.incrementAndGet();
+        return nodes.get(getCurrentArguments()[0]);
+      }
+    }).anyTimes();
+    
+    expect(zk.getChildren(anyObject(String.class), anyObject(Watcher.class))).andAnswer(new IAnswer<List<String>>() {
+      @Override
+      public List<String> answer() {
+        cacheWatcher = (Watcher) getCurrentArguments()[1];
+        reads.incrementAndGet();
+        return new ArrayList<String>(children.get(getCurrentArguments()[0]));
+      }
+    }).anyTimes();
+    
+    // the asynchronous calls answer on the calling thread, which is enough to check the cache does not depend on where they run
+    zk.exists(anyObject(String.class), anyObject(Watcher.class), anyObject(StatCallback.class), anyObject());
+    expectLastCall().andAnswer(new IAnswer<Object>() {
+      @Override
+      public Object answer() {
+        String path = (String) getCurrentArguments()[0];
+        boolean exists = nodes.containsKey(path);
+        ((StatCallback) getCurrentArguments()[2]).processResult(exists ? Code.OK.intValue() : Code.NONODE.intValue(), path, null, exists ? new Stat() : null);
+        return null;
+      }
+    }).anyTimes();
+    
+    zk.getData(anyObject(String.class), anyObject(Watcher.class), anyObject(DataCallback.class), anyObject());
+    expectLastCall().andAnswer(new IAnswer<Object>() {
+      @Override
+      public Object answer() {
+        String path = (String) getCurrentArguments()[0];
+        byte[] data = nodes.get(path);
+        if (dropAsyncData)
+          return null;
+        if (beforeAsyncData != null)
+          beforeAsyncData.run();
+        ((DataCallback) getCurrentArguments()[2]).processResult(Code.OK.intValue(), path, null, data, new Stat());
+        return null;
+      }
+    }).anyTimes();
+    
+    expect(zk.getSessionTimeout()).andReturn(100).anyTimes();
+    
+    EasyMock.replay(zk);
+    
+    ZooReader reader = new ZooReader("unused", 30000) {
+      @Override
+      protected ZooKeeper getZooKeeper() {
+        return zk;
+      }
+    };
+    
+    zc = new ZooCache(reader, new Watcher() {
+      @Override
+      public void process(WatchedEvent event) {
+        if (event.getType() == EventType.NodeChildrenChanged)
+          seen.add(zc.getChildren(event.getPath()));
+        else {
+          byte[] data = zc.get(event.getPath());
+          seen.add(data == null ? "null" : new String(data));
+        }
+      }
+    });
+  }
+  
+  private Object fire(EventType type, String path) throws InterruptedException {
+    cacheWatcher.process(new WatchedEvent(type, KeeperState.SyncConnected, path));
+    Object result = seen.poll(30, TimeUnit.SECONDS);
+    assertNotNull("external watcher was not called", result);
+    return result;
+  }
+  
+  @Test
+  public void testDataChanged() throws Exception {
+    nodes.put("/a", "1".getBytes());
+    assertArrayEquals("1".getBytes(), zc.get("/a"));
+    int readsBefore = reads.get();
+    nodes.put("/a", "2".getBytes());
+    assertArrayEquals("1".getBytes(), zc.get("/a"));
+    assertEquals(readsBefore, reads.get());
+    
+    // the external watcher is called after the entry is cleared, so it reads the new value
+    assertEquals("2", fire(EventType.NodeDataChanged, "/a"));
+    assertArrayEquals("2".getBytes(), zc.get("/a"));
+  }
+  
+  @Test
+  public void testDeleted() throws Exception {
+    nodes.put("/a", "1".getBytes());
+    assertArrayEquals("1".getBytes(), zc.get("/a"));
+    nodes.remove("/a");
+    assertEquals("null", fire(EventType.NodeDeleted, "/a"));
+    assertNull(zc.get("/a"));
+    
+    // non existence is cached until the node is created
+    int readsBefore = reads.get();
+    assertNull(zc.get("/a"));
+    assertEquals(readsBefore, reads.get());
+    nodes.put("/a", "3".getBytes());
+    assertEquals("3", fire(EventType.NodeCreated, "/a"));
+  }
+  
+  @Test
+  public void testChildrenChanged() throws Exception {
+    children.put("/p", Arrays.asList("a"));
+    assertEquals(Arrays.asList("a"), zc.getChildren("/p"));
+    children.put("/p", Arrays.asList("a", "b"));
+    assertEquals(Arrays.asList("a"), zc.getChildren("/p"));
+    assertEquals(Arrays.asList("a", "b"), fire(EventType.NodeChildrenChanged, "/p"));
+    assertEquals(Arrays.asList("a", "b"), zc.getChildren("/p"));
+  }
+  
+  @Test
+  public void testPrefetch() throws Exception {
+    nodes.put("/p/a", "a1".getBytes());
+    nodes.put("/p/b", "b1".getBytes());
+    nodes.put("/p/c", "c1".getBytes());
+    
+    // already cached nodes are not read again
+    assertArrayEquals("a1".getBytes(), zc.get("/p/a"));
+    nodes.put("/p/a", "a2".getBytes());
+    
+    // while the prefetch of c is in flight, c changes and a get caches the newer value; the prefetched value must not replace it
+    beforeAsyncData = new Runnable() {
+      @Override
+      public void run() {
+        if (nodes.get("/p/c")[1] == '1') {
+          nodes.put("/p/c", "c2".getBytes());
+          zc.get("/p/c");
+        }
+      }
+    };
+    
+    zc.prefetch(Arrays.asList("/p/a", "/p/b", "/p/c", "/p/d"));
+    beforeAsyncData = null;
+    
+    int readsBefore = reads.get();
+    assertArrayEquals("a1".getBytes(), zc.get("/p/a"));
+    assertArrayEquals("b1".getBytes(), zc.get("/p/b"));
+    assertArrayEquals("c2".getBytes(), zc.get("/p/c"));
+    assertNull(zc.get("/p/d"));
+    assertEquals(readsBefore, reads.get());
+  }
+  
+  @Test
+  public void testPrefetchTimeout() throws Exception {
+    nodes.put("/p/a", "a1".getBytes());
+    nodes.put("/p/b", "b1".getBytes());
+    
+    // reads that never complete are given up on after the session timeout, and the nodes are read directly instead
+    dropAsyncData = true;
+    zc.prefetch(Arrays.asList("/p/a", "/p/b", "/p/c"));
+    dropAsyncData = false;
+    
+    int readsBefore = reads.get();
+    assertArrayEquals("a1".getBytes(), zc.get("/p/a"));
+    assertArrayEquals("b1".getBytes(), zc.get("/p/b"));
+    assertNull(zc.get("/p/c"));
+    assertEquals(readsBefore, reads.get());
+  }
+}
@@ -23,6 +23,7 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -32,6 +33,12 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.client.AccumuloException;
@@ -69,6 +76,8 @@ import org.apache.accumulo.core.security.thrift.Credential;
 import org.apache.accumulo.core.security.tokens.PasswordToken;
 import org.apache.accumulo.core.security.tokens.SecurityToken;
 import org.apache.accumulo.core.util.ByteBufferUtil;
+import org.apache.accumulo.core.util.NamingThreadFactory;
+import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.core.util.TextUtil;
 import org.apache.accumulo.proxy.thrift.AccumuloProxy;
 import org.apache.accumulo.proxy.thrift.BatchScanOptions;
@@ -104,11 +113,33 @@ public class ProxyServer implements AccumuloProxy.Iface {
   static protected class ScannerPlusIterator {
     public ScannerBase scanner;
     public Iterator<Map.Entry<Key,Value>> iterator;
+    // entries read from the iterator but not yet returned to the client
+    public LinkedList<KeyValue> buffered = new LinkedList<KeyValue>();
+    // reading the next batch while the client processes the current one, or null
+    public volatile Future<List<KeyValue>> readAhead;
   }
   
-  static class CloseWriter implements RemovalListener<UUID,BatchWriter> {
+  static class ReadAhead implements Callable<List<KeyValue>> {
+    private final Iterator<Map.Entry<Key,Value>> iterator;
+    private final int k;
+    
+    ReadAhead(Iterator<Map.Entry<Key,Value>> iterator, int k) {
+      this.iterator = iterator;
+      this.k = k;
+    }
+    
     @Override
-    public void onRemoval(RemovalNotification<UUID,BatchWriter> notification) {
+    public List<KeyValue> call() {
+      List<KeyValue> batch = new ArrayList<KeyValue>(k);
+      while (batch.size() < k && iterator.hasNext())
+        batch.add(toKeyValue(iterator.next()));
+      return batch;
+    }
+  }
+  
+  static class CloseWriter implements RemovalListener<Object,BatchWriter> {
+    @Override
+    public void onRemoval(RemovalNotification<Object,BatchWriter> notification) {
       try {
         notification.getValue().close();
       } catch (MutationsRejectedException e) {
@@ -119,9 +150,72 @@ public class ProxyServer implements AccumuloProxy.Iface {
     public CloseWriter() {}
   }
   
+  /**
+   * A writer in the shared writer cache, which is only closed once it is removed from the cache and no call is still writing through it.
+   */
+  static class SharedWriter {
+    final BatchWriter writer;
+    private int users = 0;
+    private boolean removed = false;
+    
+    SharedWriter(BatchWriter writer) {
+      this.writer = writer;
+    }
+    
+    /**
+     * @return false if the writer was already removed from the cache, and must not be used
+     */
+    synchronized boolean acquire() {
+      if (removed)
+        return false;
+      users++;
+      return true;
+    }
+    
+    void release() {
+      boolean close;
+      synchronized (this) {
+        users--;
+        close = removed && users == 0;
+      }
+      if (close)
+        close();
+    }
+    
+    void removed() {
+      boolean close;
+      synchronized (this) {
+        removed = true;
+        close = users == 0;
+      }
+      if (close)
+        close();
+    }
+    
+    private void close() {
+      try {
+        writer.close();
+      } catch (MutationsRejectedException e) {
+        logger.warn(e, e);
+      }
+    }
+  }
+  
+  static class CloseSharedWriter implements RemovalListener<Pair<ByteBuffer,String>,SharedWriter> {
+    @Override
+    public void onRemoval(RemovalNotification<Pair<ByteBuffer,String>,SharedWriter> notification) {
+      notification.getValue().removed();
+    }
+  }
+  
   static class CloseScanner implements RemovalListener<UUID,ScannerPlusIterator> {
     @Override
     public void onRemoval(RemovalNotification<UUID,ScannerPlusIterator> notification) {
+      // nobody will take the batch being read ahead, so stop reading it
+      Future<List<KeyValue>> readAhead = notification.getValue().readAhead;
+      if (readAhead != null)
+        readAhead.cancel(true);
+      
       final ScannerBase base = notification.getValue().scanner;
       if (base instanceof BatchScanner) {
         final BatchScanner scanner = (BatchScanner) base;
@@ -135,6 +229,11 @@ public class ProxyServer implements AccumuloProxy.Iface {
   protected Cache<UUID,ScannerPlusIterator> scannerCache;
   protected Cache<UUID,BatchWriter> writerCache;
   protected Cache<ByteBuffer,Credential> tokenCache;
+  protected Cache<ByteBuffer,Connector> connectorCache;
+  // writers shared by all updateAndFlush calls for a login and table id, or null if each call creates its own writer
+  protected Cache<Pair<ByteBuffer,String>,SharedWriter> sharedWriterCache;
+  // reads ahead for scanners when enabled, otherwise null
+  protected ExecutorService readAheadThreadPool;
   private Random random = new Random();
   
   public ProxyServer(Properties props) {
@@ -149,13 +248,34 @@ public class ProxyServer implements AccumuloProxy.Iface {
     
     writerCache = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).maximumSize(1000).removalListener(new CloseWriter()).build();
     tokenCache = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).maximumSize(1000).build();
+    connectorCache = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).maximumSize(1000).build();
+    
+    String sharedWriters = props.getProperty("org.apache.accumulo.proxy.ProxyServer.sharedWriters");
+    if (sharedWriters != null && Boolean.parseBoolean(sharedWriters))
+      sharedWriterCache = CacheBuilder.newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).maximumSize(1000).removalListener(new CloseSharedWriter())
+          .build();
+    
+    String scanReadAhead = props.getProperty("org.apache.accumulo.proxy.ProxyServer.scanReadAhead");
+    if (scanReadAhead != null && Boolean.parseBoolean(scanReadAhead)) {
+      // bounded, so many open scanners can not start a thread each; read aheads beyond the bound wait in the queue
+      int threads = Integer.parseInt(props.getProperty("org.apache.accumulo.proxy.ProxyServer.scanReadAheadThreads", "16"));
+      ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new NamingThreadFactory(
+          "proxy scan read ahead"));
+      pool.allowCoreThreadTimeOut(true);
+      readAheadThreadPool = pool;
+    }
   }
   
   protected Connector getConnector(ByteBuffer login) throws Exception {
     Credential user = tokenCache.getIfPresent(login);
     if (user == null)
       throw new org.apache.accumulo.proxy.thrift.AccumuloSecurityException("unknown user");
-    Connector connector = instance.getConnector(user);
+    // creating a connector authenticates the user with a tablet server, so only do it once per login
+    Connector connector = connectorCache.getIfPresent(login);
+    if (connector == null) {
+      connector = instance.getConnector(user);
+      connectorCache.put(login, connector);
+    }
     return connector;
   }
   
@@ -839,12 +959,20 @@ public class ProxyServer implements AccumuloProxy.Iface {
   
   @Override
   public boolean hasNext(String scanner) throws TException {
-    ScannerPlusIterator spi = scannerCache.getIfPresent(UUID.fromString(scanner));
+    ScannerPlusIterator spi = scannerCache.getIfPresent(getScannerId(scanner));
     if (spi == null) {
       throw new TException("Scanner never existed or no longer exists");
     }
     
-    return (spi.iterator.hasNext());
+    synchronized (spi.iterator) {
+      try {
+        takeReadAhead(spi);
+      } catch (Exception ex) {
+        closeScanner(scanner);
+        throw translateException(ex);
+      }
+      return !spi.buffered.isEmpty() || spi.iterator.hasNext();
+    }
   }
   
   @Override
@@ -863,7 +991,7 @@ public class ProxyServer implements AccumuloProxy.Iface {
   public ScanResult nextK(String scanner, int k) throws TException {
     
     // fetch the scanner
-    ScannerPlusIterator spi = scannerCache.getIfPresent(UUID.fromString(scanner));
+    ScannerPlusIterator spi = scannerCache.getIfPresent(getScannerId(scanner));
     if (spi == null) {
       throw new UnknownScanner("Scanner never existed or no longer exists");
     }
@@ -874,12 +1002,20 @@ public class ProxyServer implements AccumuloProxy.Iface {
       ret.setResults(new ArrayList<KeyValue>());
       int numRead = 0;
       try {
+        takeReadAhead(spi);
+        while (!spi.buffered.isEmpty() && numRead < k) {
+          ret.addToResults(spi.buffered.removeFirst());
+          numRead++;
+        }
         while (batchScanner.hasNext() && numRead < k) {
-          Map.Entry<Key,Value> next = batchScanner.next();
-          ret.addToResults(new KeyValue(Util.toThrift(next.getKey()), ByteBuffer.wrap(next.getValue().get())));
+          ret.addToResults(toKeyValue(batchScanner.next()));
           numRead++;
         }
         ret.setMore(numRead == k);
+        
+        // assume the client will ask for the same number of entries next time
+        if (readAheadThreadPool != null && numRead == k && spi.buffered.isEmpty())
+          spi.readAhead = readAheadThreadPool.submit(new ReadAhead(batchScanner, k));
       } catch (Exception ex) {
         closeScanner(scanner);
         throw translateException(ex);
@@ -888,13 +1024,49 @@ public class ProxyServer implements AccumuloProxy.Iface {
     }
   }
   
+  /**
+   * Waits for any batch being read ahead for the scanner, and adds it to the scanner's buffered entries. The caller must synchronize on the scanner's iterator.
+   */
+  private static void takeReadAhead(ScannerPlusIterator spi) throws Exception {
+    if (spi.readAhead == null)
+      return;
+    try {
+      spi.buffered.addAll(spi.readAhead.get());
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception)
+        throw (Exception) e.getCause();
+      throw e;
+    } finally {
+      spi.readAhead = null;
+    }
+  }
+  
+  private static KeyValue toKeyValue(Map.Entry<Key,Value> entry) {
+    return new KeyValue(Util.toThrift(entry.getKey()), ByteBuffer.wrap(entry.getValue().get()));
+  }
+  
   @Override
   public void closeScanner(String uuid) throws TException {
-    scannerCache.invalidate(uuid);
+    scannerCache.invalidate(getScannerId(uuid));
+  }
+  
+  /**
+   * @return the scanner id in a cookie, which the client could have mangled
+   */
+  private static UUID getScannerId(String scanner) throws UnknownScanner {
+    try {
+      return UUID.fromString(scanner);
+    } catch (IllegalArgumentException e) {
+      throw new UnknownScanner("Scanner never existed or no longer exists");
+    }
   }
   
   @Override
   public void updateAndFlush(ByteBuffer login, String tableName, Map<ByteBuffer,List<ColumnUpdate>> cells) throws TException {
+    if (sharedWriterCache != null) {
+      updateAndFlushShared(login, tableName, cells);
+      return;
+    }
     try {
       BatchWriter writer = getWriter(login, tableName, null);
       addCellsToWriter(cells, writer);
@@ -905,6 +1077,52 @@ public class ProxyServer implements AccumuloProxy.Iface {
     }
   }
   
+  /**
+   * Writes the cells through a long lived writer shared with other calls for the same login and table. The writer is flushed before returning, and a flush
+   * waits for one already in progress, so concurrent callers share the trip to the tablet servers and each still returns only after its own cells are
+   * written. If any of the writer's mutations are rejected, every caller sharing that flush gets the error and the writer is replaced. A writer removed from
+   * the cache while calls are using it is closed when the last of them is done.
+   */
+  private void updateAndFlushShared(ByteBuffer login, String tableName, Map<ByteBuffer,List<ColumnUpdate>> cells) throws TException {
+    Pair<ByteBuffer,String> key = null;
+    SharedWriter shared = null;
+    try {
+      Connector connector = getConnector(login);
+      // key on the table id, so a writer is not reused for a new table with the same name
+      String tableId = connector.tableOperations().tableIdMap().get(tableName);
+      if (tableId == null)
+        throw new TableNotFoundException(null, tableName, null);
+      
+      key = new Pair<ByteBuffer,String>(login, tableId);
+      while (shared == null) {
+        SharedWriter candidate = sharedWriterCache.getIfPresent(key);
+        if (candidate == null) {
+          candidate = new SharedWriter(connector.createBatchWriter(tableName, new BatchWriterConfig()));
+          SharedWriter existing = sharedWriterCache.asMap().putIfAbsent(key, candidate);
+          if (existing != null) {
+            candidate.writer.close();
+            candidate = existing;
+          }
+        }
+        // if the writer was evicted since it was looked up, look again
+        if (candidate.acquire())
+          shared = candidate;
+      }
+      
+      try {
+        addCellsToWriter(cells, shared.writer);
+        shared.writer.flush();
+      } finally {
+        shared.release();
+      }
+    } catch (Exception e) {
+      // a batch writer stays failed once mutations are rejected, so start over with a new one
+      if (shared != null)
+        sharedWriterCache.asMap().remove(key, shared);
+      throw translateException(e);
+    }
+  }
+  
   private static final ColumnVisibility EMPTY_VIS = new ColumnVisibility();
   
   private void addCellsToWriter(Map<ByteBuffer,List<ColumnUpdate>> cells, BatchWriter writer) throws MutationsRejectedException {
@@ -40,8 +40,9 @@ public class Util {
   }
   
   public static Key toThrift(org.apache.accumulo.core.data.Key key) {
-    Key pkey = new Key(ByteBuffer.wrap(key.getRow().getBytes()), ByteBuffer.wrap(key.getColumnFamily().getBytes()), ByteBuffer.wrap(key.getColumnQualifier()
-        .getBytes()), ByteBuffer.wrap(key.getColumnVisibility().getBytes()));
+    // wrap the key's own arrays where possible, instead of copying each field into a new Text
+    Key pkey = new Key(ByteBuffer.wrap(key.getRowData().toArray()), ByteBuffer.wrap(key.getColumnFamilyData().toArray()), ByteBuffer.wrap(key
+        .getColumnQualifierData().toArray()), ByteBuffer.wrap(key.getColumnVisibilityData().toArray()));
     pkey.setTimestamp(key.getTimestamp());
     return pkey;
   }
@@ -51,13 +51,20 @@ public class TestProxyReadWrite {
   protected static Thread thread;
   protected static TestProxyClient tpc;
   protected static ByteBuffer userpass;
-  protected static final int port = 10194;
+  protected static int port;
   protected static final String testtable = "testtable";
   
   @BeforeClass
   public static void setup() throws Exception {
-    Properties prop = new Properties();
+    startProxy(new Properties(), 10194);
+  }
+  
+  /**
+   * Starts a proxy on a mock instance, so subclasses can run these tests against a proxy configured with other properties.
+   */
+  protected static void startProxy(Properties prop, int proxyPort) throws Exception {
     prop.setProperty("org.apache.accumulo.proxy.ProxyServer.useMockInstance", "true");
+    port = proxyPort;
     
     proxy = Proxy.createProxyServer(Class.forName("org.apache.accumulo.proxy.thrift.AccumuloProxy"), Class.forName("org.apache.accumulo.proxy.ProxyServer"),
         port, TCompactProtocol.Factory.class, prop);
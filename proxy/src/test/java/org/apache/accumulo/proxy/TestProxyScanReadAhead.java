@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.apache.accumulo.proxy.thrift.ColumnUpdate;
+import org.apache.accumulo.proxy.thrift.KeyValue;
+import org.apache.accumulo.proxy.thrift.ScanOptions;
+import org.apache.accumulo.proxy.thrift.ScanResult;
+import org.apache.accumulo.proxy.thrift.UnknownScanner;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs the read and write tests against a proxy that reads ahead for scanners, and checks that entries come back in order when the client changes how many
+ * it asks for.
+ */
+public class TestProxyScanReadAhead extends TestProxyReadWrite {
+  
+  @BeforeClass
+  public static void setup() throws Exception {
+    Properties prop = new Properties();
+    prop.setProperty("org.apache.accumulo.proxy.ProxyServer.scanReadAhead", "true");
+    prop.setProperty("org.apache.accumulo.proxy.ProxyServer.scanReadAheadThreads", "2");
+    startProxy(prop, 10199);
+  }
+  
+  @Test
+  public void changingBatchSizes() throws Exception {
+    int maxInserts = 1000;
+    Map<ByteBuffer,List<ColumnUpdate>> mutations = new HashMap<ByteBuffer,List<ColumnUpdate>>();
+    for (int i = 0; i < maxInserts; i++) {
+      ColumnUpdate update = new ColumnUpdate(ByteBuffer.wrap("cf".getBytes()), ByteBuffer.wrap("cq".getBytes()));
+      update.setValue(Integer.toString(i).getBytes());
+      mutations.put(ByteBuffer.wrap(String.format("%05d", i).getBytes()), Collections.singletonList(update));
+    }
+    tpc.proxy().updateAndFlush(userpass, testtable, mutations);
+    
+    String cookie = tpc.proxy().createScanner(userpass, testtable, new ScanOptions());
+    
+    int expected = 0;
+    int k = 1;
+    boolean more = true;
+    while (more) {
+      assertEquals(expected < maxInserts, tpc.proxy().hasNext(cookie));
+      ScanResult kvList = tpc.proxy().nextK(cookie, k);
+      for (KeyValue kv : kvList.getResults()) {
+        assertEquals(String.format("%05d", expected), new String(kv.getKey().getRow()));
+        assertEquals(Integer.toString(expected), new String(kv.getValue()));
+        expected++;
+      }
+      more = kvList.isMore();
+      k = k * 3 % 97 + 1;
+    }
+    assertEquals(maxInserts, expected);
+    
+    cookie = tpc.proxy().createScanner(userpass, testtable, new ScanOptions());
+    assertTrue(tpc.proxy().nextK(cookie, 10).isMore());
+    tpc.proxy().closeScanner(cookie);
+    try {
+      tpc.proxy().nextK(cookie, 10);
+      fail();
+    } catch (Exception e) {}
+  }
+  
+  @Test
+  public void malformedCookie() throws Exception {
+    try {
+      tpc.proxy().closeScanner("not a scanner");
+      fail();
+    } catch (UnknownScanner e) {}
+    try {
+      tpc.proxy().nextK("not a scanner", 10);
+      fail();
+    } catch (UnknownScanner e) {}
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.accumulo.core.client.BatchWriter;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.proxy.ProxyServer.SharedWriter;
+import org.apache.accumulo.proxy.thrift.BatchScanOptions;
+import org.apache.accumulo.proxy.thrift.ColumnUpdate;
+import org.apache.accumulo.proxy.thrift.ScanResult;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Runs the read and write tests against a proxy that writes through shared batch writers, and checks that concurrent writers each see their own writes.
+ */
+public class TestProxySharedWriters extends TestProxyReadWrite {
+  
+  @BeforeClass
+  public static void setup() throws Exception {
+    Properties prop = new Properties();
+    prop.setProperty("org.apache.accumulo.proxy.ProxyServer.sharedWriters", "true");
+    startProxy(prop, 10198);
+  }
+  
+  @Test
+  public void concurrentUpdateAndFlush() throws Exception {
+    final int numThreads = 4;
+    final int numCalls = 25;
+    final int rowsPerCall = 40;
+    final AtomicReference<Exception> error = new AtomicReference<Exception>();
+    
+    List<Thread> threads = new ArrayList<Thread>();
+    for (int t = 0; t < numThreads; t++) {
+      final int threadNum = t;
+      threads.add(new Thread() {
+        @Override
+        public void run() {
+          try {
+            TestProxyClient client = new TestProxyClient("localhost", port);
+            for (int c = 0; c < numCalls; c++) {
+              Map<ByteBuffer,List<ColumnUpdate>> mutations = new HashMap<ByteBuffer,List<ColumnUpdate>>();
+              for (int r = 0; r < rowsPerCall; r++) {
+                ColumnUpdate update = new ColumnUpdate(ByteBuffer.wrap("cf".getBytes()), ByteBuffer.wrap("cq".getBytes()));
+                update.setValue(Util.randString(10).getBytes());
+                mutations.put(ByteBuffer.wrap(String.format("%d_%05d", threadNum, c * rowsPerCall + r).getBytes()), Collections.singletonList(update));
+              }
+              client.proxy().updateAndFlush(userpass, testtable, mutations);
+            }
+          } catch (Exception e) {
+            error.set(e);
+          }
+        }
+      });
+    }
+    for (Thread thread : threads)
+      thread.start();
+    for (Thread thread : threads)
+      thread.join();
+    if (error.get() != null)
+      throw error.get();
+    
+    String cookie = tpc.proxy().createBatchScanner(userpass, testtable, new BatchScanOptions());
+    int count = 0;
+    boolean hasNext = true;
+    while (hasNext) {
+      ScanResult kvList = tpc.proxy().nextK(cookie, 1000);
+      count += kvList.getResultsSize();
+      hasNext = kvList.isMore();
+    }
+    assertEquals(numThreads * numCalls * rowsPerCall, count);
+  }
+  
+  @Test
+  public void removedWhileInUse() throws Exception {
+    final int[] closes = new int[1];
+    SharedWriter shared = new SharedWriter(new BatchWriter() {
+      @Override
+      public void addMutation(Mutation m) {}
+      
+      @Override
+      public void addMutations(Iterable<Mutation> iterable) {}
+      
+      @Override
+      public void flush() {}
+      
+      @Override
+      public void close() {
+        closes[0]++;
+      }
+    });
+    
+    // a writer evicted while a call is using it is closed once that call is done
+    assertTrue(shared.acquire());
+    assertTrue(shared.acquire());
+    shared.removed();
+    assertEquals(0, closes[0]);
+    shared.release();
+    assertEquals(0, closes[0]);
+    shared.release();
+    assertEquals(1, closes[0]);
+    
+    // and can not be used again
+    assertFalse(shared.acquire());
+  }
+}
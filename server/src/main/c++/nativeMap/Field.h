@@ -62,6 +62,12 @@ struct Field {
 	Field(uint8_t *f, int32_t l):field(f),len(l){
  	}
 
+	Field(LinkedBlockAllocator *lba, const uint8_t *f, int32_t l){
+		len = l;
+		field=(uint8_t *)lba->allocate(len);
+		memcpy(field, f, len);
+	}
+
 	Field(const char *cstr){
 		//constructor for testing C++
 		len = strlen(cstr);
@@ -84,6 +90,14 @@ struct Field {
 		len = l;
 	}
 
+	void set(const uint8_t *d, int l){
+		if(l < 0 || l > len){
+			cerr << "Tried to set field with value that is too long " << l << " " << len << endl;	
+		}
+		memcpy(field, d, l);
+		len = l;
+	}
+
 	void set(JNIEnv *env, jbyteArray f, int l){
 		if(l < 0 || l > len){
 			cerr << "Tried to set field with value that is too long " << l << " " << len << endl;	
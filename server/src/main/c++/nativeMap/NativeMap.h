@@ -26,6 +26,37 @@
 
 using namespace std;
 
+//read and write the native byte order fields of the buffers Java packs mutations into and unpacks entries from
+inline int32_t readInt(const uint8_t *&data){
+	int32_t i;
+	memcpy(&i, data, sizeof(i));
+	data += sizeof(i);
+	return i;
+}
+
+inline int64_t readLong(const uint8_t *&data){
+	int64_t l;
+	memcpy(&l, data, sizeof(l));
+	data += sizeof(l);
+	return l;
+}
+
+inline void writeInt(uint8_t *&data, int32_t i){
+	memcpy(data, &i, sizeof(i));
+	data += sizeof(i);
+}
+
+inline void writeLong(uint8_t *&data, int64_t l){
+	memcpy(data, &l, sizeof(l));
+	data += sizeof(l);
+}
+
+inline void writeField(uint8_t *&data, const Field &f){
+	writeInt(data, f.length());
+	memcpy(data, f.field, f.length());
+	data += f.length();
+}
+
 typedef map<SubKey, Field, std::less<SubKey>,  BlockAllocator<std::pair<const SubKey, Field> > > ColumnMap;
 typedef map<Field, ColumnMap, std::less<Field>,  BlockAllocator<std::pair<const Field, ColumnMap> > > RowMap;
 
@@ -112,6 +143,49 @@ struct Iterator {
 		colIter++;
 		skipAndFillIn(ia, false);
 	}
+
+	/**
+	 * Copies entries into data and advances past them, stopping at maxEntries entries, once more than maxBytes of entries
+	 * are copied, or at the first entry that does not fit. The row is only written for an entry whose row differs from the
+	 * previous entry copied, otherwise its length is written as -1. Returns the number of entries copied.
+	 */
+	int32_t fillBatch(uint8_t *data, int64_t capacity, int32_t maxEntries, int32_t maxBytes){
+		uint8_t *start = data;
+		int32_t count = 0;
+		int64_t bytesRead = 0;
+		bool rowChanged = true;
+
+		while(!atEnd() && count < maxEntries && bytesRead <= maxBytes){
+			const Field &row = rowIter->first;
+			const SubKey &sk = colIter->first;
+			const Field &val = colIter->second;
+
+			int64_t entrySize = 4 + (rowChanged ? row.length() : 0) + 12 + sk.totalLen + 8 + 1 + 4 + 4 + val.length();
+			if((data - start) + entrySize > capacity)
+				break;
+
+			if(rowChanged)
+				writeField(data, row);
+			else
+				writeInt(data, -1);
+			writeField(data, sk.getCF());
+			writeField(data, sk.getCQ());
+			writeField(data, sk.getCV());
+			writeLong(data, sk.getTimestamp());
+			*data++ = sk.isDeleted() ? 1 : 0;
+			writeInt(data, sk.getMC());
+			writeField(data, val);
+
+			count++;
+			bytesRead += row.length() + sk.totalLen + val.length();
+
+			int32_t ia[7];
+			advance(ia);
+			rowChanged = ia[0] >= 0;
+		}
+
+		return count;
+	}
 };
 
 struct NativeMap : public NativeMapData {
@@ -192,6 +266,68 @@ struct NativeMap : public NativeMapData {
 		}
 	}
 
+	void update(ColumnMap *cm, SubKey &sk, const uint8_t *val, int32_t valLen){
+		//do not bother allocating value if not needed
+		Field value(NULL, 0);
+
+		pair<ColumnMap::iterator, bool> insertResult = cm->insert(pair<SubKey, Field>(sk, value));
+		if(insertResult.second){
+			insertResult.first->second  = Field(lba, val, valLen);
+			count++;
+		}else{
+			sk.clear(lba);
+			if(valLen <= insertResult.first->second.length()){
+				insertResult.first->second.set(val, valLen);
+			}else{
+				insertResult.first->second.clear();
+				insertResult.first->second  = Field(lba, val, valLen);
+			}
+		}
+	}
+
+	/**
+	 * Applies mutations packed by Java into a buffer of length len. Each mutation is the row, the number of updates, and the
+	 * updates, each of which is the family, qualifier, visibility, timestamp, delete flag and value. Byte fields are preceded
+	 * by their length. The mutations are given consecutive mutation counts starting at mutationCount.
+	 */
+	void mutateBatch(const uint8_t *data, int32_t len, int32_t mutationCount){
+		const uint8_t *end = data + len;
+
+		while(data < end){
+			int32_t rowLen = readInt(data);
+			const uint8_t *r = data;
+			data += rowLen;
+
+			int32_t numUpdates = readInt(data);
+			ColumnMap *cm = NULL;
+			if(numUpdates > 0){
+				Field row(lba, r, rowLen);
+				cm = startUpdate(row);
+			}
+			for(int32_t i = 0; i < numUpdates; i++){
+				int32_t cfLen = readInt(data);
+				const uint8_t *cf = data;
+				data += cfLen;
+				int32_t cqLen = readInt(data);
+				const uint8_t *cq = data;
+				data += cqLen;
+				int32_t cvLen = readInt(data);
+				const uint8_t *cv = data;
+				data += cvLen;
+				int64_t ts = readLong(data);
+				bool del = *data++ != 0;
+				int32_t valLen = readInt(data);
+				const uint8_t *val = data;
+				data += valLen;
+
+				SubKey sk(lba, cf, cfLen, cq, cqLen, cv, cvLen, ts, del, mutationCount);
+				update(cm, sk, val, valLen);
+			}
+
+			mutationCount++;
+		}
+	}
+
 	Iterator *iterator(int32_t *ia){
 		return new Iterator(*this, ia);
 	}
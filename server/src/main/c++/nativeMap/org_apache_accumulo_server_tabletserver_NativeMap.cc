@@ -64,6 +64,12 @@ JNIEXPORT void JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_up
 	nativeMap->update((ColumnMap *)uid, env, cf, cq, cv, ts, del, val, mutationCount);
 }
 
+JNIEXPORT void JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_mutateBatch(JNIEnv *env, jclass cls, jlong nm, jobject buffer, jint len, jint mutationCount)
+{
+	NativeMap *nativeMap = (NativeMap *)nm;
+	nativeMap->mutateBatch((const uint8_t *)env->GetDirectBufferAddress(buffer), len, mutationCount);
+}
+
 JNIEXPORT jlong JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_deleteNM(JNIEnv *env, jclass cls, jlong nm)
 {
 	NativeMap *nativeMap = (NativeMap *)nm;
@@ -143,6 +149,25 @@ JNIEXPORT jlong JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_n
 
 
 
+JNIEXPORT jboolean JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_nmiNextBatch(JNIEnv *env, jclass cls, jlong ip, jobject buffer, jint maxEntries, jint maxBytes, jintArray lens){
+	Iterator &iter = *((Iterator *)ip);
+
+	//the number of entries copied goes at the start of the buffer
+	uint8_t *data = (uint8_t *)env->GetDirectBufferAddress(buffer);
+	int32_t count = iter.fillBatch(data + 4, env->GetDirectBufferCapacity(buffer) - 4, maxEntries, maxBytes);
+	writeInt(data, count);
+
+	if(iter.atEnd()){
+		return false;
+	}
+
+	//the lengths of the next entry, in case it was too large to copy
+	int32_t ia[7];
+	iter.skipAndFillIn(ia, true);
+	env->SetIntArrayRegion(lens, 0, 7, ia);
+	return true;
+}
+
 JNIEXPORT void JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_deleteNMI(JNIEnv *env, jclass cls, jlong ip){
 	delete((Iterator *)ip);	
 }
@@ -55,6 +55,14 @@ JNIEXPORT jlong JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_s
 JNIEXPORT void JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_update
   (JNIEnv *, jclass, jlong, jlong, jbyteArray, jbyteArray, jbyteArray, jlong, jboolean, jbyteArray, jint);
 
+/*
+ * Class:     org_apache_accumulo_server_tabletserver_NativeMap
+ * Method:    mutateBatch
+ * Signature: (JLjava/nio/ByteBuffer;II)V
+ */
+JNIEXPORT void JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_mutateBatch
+  (JNIEnv *, jclass, jlong, jobject, jint, jint);
+
 /*
  * Class:     org_apache_accumulo_server_tabletserver_NativeMap
  * Method:    sizeNM
@@ -119,6 +127,14 @@ JNIEXPORT void JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_nm
 JNIEXPORT jlong JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_nmiGetTS
   (JNIEnv *, jclass, jlong);
 
+/*
+ * Class:     org_apache_accumulo_server_tabletserver_NativeMap
+ * Method:    nmiNextBatch
+ * Signature: (JLjava/nio/ByteBuffer;II[I)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_apache_accumulo_server_tabletserver_NativeMap_nmiNextBatch
+  (JNIEnv *, jclass, jlong, jobject, jint, jint, jintArray);
+
 /*
  * Class:     org_apache_accumulo_server_tabletserver_NativeMap
  * Method:    deleteNMI
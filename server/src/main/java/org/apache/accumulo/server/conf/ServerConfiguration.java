@@ -86,6 +86,20 @@ public class ServerConfiguration {
     }
   }
   
+  static void systemPropertyChanged(String key) {
+    synchronized (tableInstances) {
+      for (TableConfiguration conf : tableInstances.values())
+        conf.propertyChanged(key);
+    }
+  }
+  
+  static void systemPropertiesChanged() {
+    synchronized (tableInstances) {
+      for (TableConfiguration conf : tableInstances.values())
+        conf.propertiesChanged(null);
+    }
+  }
+  
   private final Instance instance;
   
   public ServerConfiguration(Instance instance) {
@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.server.conf;
+
+import org.apache.accumulo.core.Constants;
+import org.apache.accumulo.core.zookeeper.ZooUtil;
+import org.apache.log4j.Logger;
+import org.apache.zookeeper.WatchedEvent;
+import org.apache.zookeeper.Watcher;
+
+/**
+ * Tells the table configurations when a system property changes, since tables inherit the system properties they do not set.
+ */
+class SystemConfWatcher implements Watcher {
+  
+  private static final Logger log = Logger.getLogger(SystemConfWatcher.class);
+  private final String instanceId;
+  
+  SystemConfWatcher(String instanceId) {
+    this.instanceId = instanceId;
+  }
+  
+  @Override
+  public void process(WatchedEvent event) {
+    String path = event.getPath();
+    if (log.isTraceEnabled())
+      log.trace("WatchEvent : " + path + " " + event.getState() + " " + event.getType());
+    
+    if (path == null)
+      return;
+    
+    String confPath = ZooUtil.getRoot(instanceId) + Constants.ZCONFIG;
+    
+    switch (event.getType()) {
+      case NodeDataChanged:
+      case NodeDeleted:
+        if (path.startsWith(confPath + "/"))
+          ServerConfiguration.systemPropertyChanged(path.substring(confPath.length() + 1));
+        break;
+      case NodeChildrenChanged:
+        if (path.equals(confPath))
+          ServerConfiguration.systemPropertiesChanged();
+        break;
+      default:
+        break;
+    }
+  }
+}
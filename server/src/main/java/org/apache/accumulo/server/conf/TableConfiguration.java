@@ -16,6 +16,7 @@
  */
 package org.apache.accumulo.server.conf;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
@@ -137,8 +138,14 @@ public class TableConfiguration extends AccumuloConfiguration {
     for (Entry<String,String> parentEntry : parent)
       entries.put(parentEntry.getKey(), parentEntry.getValue());
     
-    List<String> children = getTablePropCache().getChildren(ZooUtil.getRoot(instanceId) + Constants.ZTABLES + "/" + table + Constants.ZTABLE_CONF);
+    String confPath = ZooUtil.getRoot(instanceId) + Constants.ZTABLES + "/" + table + Constants.ZTABLE_CONF;
+    List<String> children = getTablePropCache().getChildren(confPath);
     if (children != null) {
+      List<String> paths = new ArrayList<String>(children.size());
+      for (String child : children)
+        paths.add(confPath + "/" + child);
+      getTablePropCache().prefetch(paths);
+      
       for (String child : children) {
         String value = get(child);
         if (child != null && value != null)
@@ -16,6 +16,7 @@
  */
 package org.apache.accumulo.server.conf;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -50,9 +51,9 @@ public class ZooConfiguration extends AccumuloConfiguration {
   
   synchronized public static ZooConfiguration getInstance(Instance inst, AccumuloConfiguration parent) {
     if (instance == null) {
-      propCache = new ZooCache(inst.getZooKeepers(), inst.getZooKeepersSessionTimeOut());
-      instance = new ZooConfiguration(parent);
       instanceId = inst.getInstanceID();
+      propCache = new ZooCache(inst.getZooKeepers(), inst.getZooKeepersSessionTimeOut(), new SystemConfWatcher(instanceId));
+      instance = new ZooConfiguration(parent);
     }
     return instance;
   }
@@ -60,9 +61,10 @@ public class ZooConfiguration extends AccumuloConfiguration {
   @SuppressWarnings("deprecation")
   synchronized public static ZooConfiguration getInstance(AccumuloConfiguration parent) {
     if (instance == null) {
-      propCache = new ZooCache(parent.get(Property.INSTANCE_ZK_HOST), (int) parent.getTimeInMillis(Property.INSTANCE_ZK_TIMEOUT));
-      instance = new ZooConfiguration(parent);
       instanceId = ZooKeeperInstance.getInstanceIDFromHdfs(ServerConstants.getInstanceIdLocation());
+      propCache = new ZooCache(parent.get(Property.INSTANCE_ZK_HOST), (int) parent.getTimeInMillis(Property.INSTANCE_ZK_TIMEOUT), new SystemConfWatcher(
+          instanceId));
+      instance = new ZooConfiguration(parent);
     }
     return instance;
   }
@@ -122,6 +124,11 @@ public class ZooConfiguration extends AccumuloConfiguration {
     
     List<String> children = propCache.getChildren(ZooUtil.getRoot(instanceId) + Constants.ZCONFIG);
     if (children != null) {
+      List<String> paths = new ArrayList<String>(children.size());
+      for (String child : children)
+        paths.add(ZooUtil.getRoot(instanceId) + Constants.ZCONFIG + "/" + child);
+      propCache.prefetch(paths);
+      
       for (String child : children) {
         String value = get(child);
         if (child != null && value != null)
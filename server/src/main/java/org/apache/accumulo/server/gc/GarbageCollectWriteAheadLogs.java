@@ -25,6 +25,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.accumulo.core.Constants;
 import org.apache.accumulo.core.client.Instance;
@@ -34,6 +40,7 @@ import org.apache.accumulo.core.gc.thrift.GCStatus;
 import org.apache.accumulo.core.gc.thrift.GcCycleStats;
 import org.apache.accumulo.core.tabletserver.thrift.TabletClientService;
 import org.apache.accumulo.core.tabletserver.thrift.TabletClientService.Client;
+import org.apache.accumulo.core.util.NamingThreadFactory;
 import org.apache.accumulo.core.util.ThriftUtil;
 import org.apache.accumulo.core.zookeeper.ZooUtil;
 import org.apache.accumulo.server.security.SecurityConstants;
@@ -56,14 +63,19 @@ import org.apache.zookeeper.KeeperException;
 public class GarbageCollectWriteAheadLogs {
   private static final Logger log = Logger.getLogger(GarbageCollectWriteAheadLogs.class);
   
+  // the most logs a tablet server is asked to remove in a single call, so that no call runs past the rpc timeout
+  private static final int REMOVE_LOGS_BATCH_SIZE = 1000;
+  
   private final Instance instance;
   private final FileSystem fs;
+  private final int numThreads;
 
   private Trash trash;
   
   GarbageCollectWriteAheadLogs(Instance instance, FileSystem fs, boolean noTrash) throws IOException {
     this.instance = instance;
     this.fs = fs;
+    this.numThreads = instance.getConfiguration().getCount(Property.GC_DELETE_THREADS);
     if (!noTrash)
       this.trash = new Trash(fs, fs.getConf());
   }
@@ -71,11 +83,12 @@ public class GarbageCollectWriteAheadLogs {
   public void collect(GCStatus status) {
     
     Span span = Trace.start("scanServers");
+    ExecutorService threadPool = Executors.newFixedThreadPool(numThreads, new NamingThreadFactory("wal gc"));
     try {
       status.currentLog.started = System.currentTimeMillis();
       
       Map<String,String> fileToServerMap = new HashMap<String,String>();
-      int count = scanServers(fileToServerMap);
+      int count = scanServers(fileToServerMap, threadPool);
       long fileScanStop = System.currentTimeMillis();
       log.info(String.format("Fetched %d files from %d servers in %.2f seconds", fileToServerMap.size(), count,
           (fileScanStop - status.currentLog.started) / 1000.));
@@ -98,7 +111,7 @@ public class GarbageCollectWriteAheadLogs {
       span = Trace.start("removeFiles");
       Map<String,ArrayList<String>> serverToFileMap = mapServersToFiles(fileToServerMap);
       
-      count = removeFiles(serverToFileMap, status);
+      count = removeFiles(serverToFileMap, status, threadPool);
       
       long removeStop = System.currentTimeMillis();
       log.info(String.format("%d total logs removed from %d servers in %.2f seconds", count, serverToFileMap.size(), (removeStop - logEntryScanStop) / 1000.));
@@ -110,6 +123,8 @@ public class GarbageCollectWriteAheadLogs {
     } catch (Exception e) {
       log.error("exception occured while garbage collecting write ahead logs", e);
       span.stop();
+    } finally {
+      threadPool.shutdownNow();
     }
   }
   
@@ -126,40 +141,67 @@ public class GarbageCollectWriteAheadLogs {
     }
   }
 
-  private int removeFiles(Map<String,ArrayList<String>> serverToFileMap, final GCStatus status) {
-    AccumuloConfiguration conf = instance.getConfiguration();
+  private int removeFiles(Map<String,ArrayList<String>> serverToFileMap, final GCStatus status, ExecutorService threadPool) throws InterruptedException {
+    final AccumuloConfiguration conf = instance.getConfiguration();
+    final AtomicInteger removed = new AtomicInteger();
+    List<Future<?>> removals = new ArrayList<Future<?>>();
     for (Entry<String,ArrayList<String>> entry : serverToFileMap.entrySet()) {
       if (entry.getKey().length() == 0) {
         // old-style log entry, just remove it
-        for (String filename : entry.getValue()) {
-          log.debug("Removing old-style WAL " + entry.getValue());
-          try {
-            Path path = new Path(Constants.getWalDirectory(conf), filename);
-            if (trash == null || !trash.moveToTrash(path))
-              fs.delete(path, true);
-          } catch (IOException ex) {
-            log.error("Unable to delete wal " + filename + ": " + ex);
-          }
+        for (final String filename : entry.getValue()) {
+          removals.add(threadPool.submit(new Runnable() {
+            @Override
+            public void run() {
+              log.debug("Removing old-style WAL " + filename);
+              try {
+                Path path = new Path(Constants.getWalDirectory(conf), filename);
+                if (trash == null || !trash.moveToTrash(path))
+                  fs.delete(path, true);
+                removed.incrementAndGet();
+              } catch (IOException ex) {
+                log.error("Unable to delete wal " + filename + ": " + ex);
+              }
+            }
+          }));
         }
       } else {
-        InetSocketAddress address = AddressUtil.parseAddress(entry.getKey(), Property.TSERV_CLIENTPORT);
-        if (!holdsLock(address))
-          continue;
-        Client tserver = null;
-        try {
-          tserver = ThriftUtil.getClient(new TabletClientService.Client.Factory(), address, conf);
-          tserver.removeLogs(Tracer.traceInfo(), SecurityConstants.getSystemCredentials(), entry.getValue());
-          log.debug("deleted " + entry.getValue() + " from " + entry.getKey());
-          status.currentLog.deleted += entry.getValue().size();
-        } catch (TException e) {
-          log.warn("Error talking to " + address + ": " + e);
-        } finally {
-          if (tserver != null)
-            ThriftUtil.returnClient(tserver);
+        final String server = entry.getKey();
+        final InetSocketAddress address = AddressUtil.parseAddress(server, Property.TSERV_CLIENTPORT);
+        final List<String> files = entry.getValue();
+        for (int i = 0; i < files.size(); i += REMOVE_LOGS_BATCH_SIZE) {
+          final List<String> batch = files.subList(i, Math.min(files.size(), i + REMOVE_LOGS_BATCH_SIZE));
+          removals.add(threadPool.submit(new Runnable() {
+            @Override
+            public void run() {
+              if (!holdsLock(address))
+                return;
+              Client tserver = null;
+              try {
+                tserver = ThriftUtil.getClient(new TabletClientService.Client.Factory(), address, conf);
+                tserver.removeLogs(Tracer.traceInfo(), SecurityConstants.getSystemCredentials(), batch);
+                log.debug("deleted " + batch + " from " + server);
+                removed.addAndGet(batch.size());
+              } catch (TException e) {
+                log.warn("Error talking to " + address + ": " + e);
+              } finally {
+                if (tserver != null)
+                  ThriftUtil.returnClient(tserver);
+              }
+            }
+          }));
         }
       }
     }
-    return 0;
+    
+    for (Future<?> removal : removals) {
+      try {
+        removal.get();
+      } catch (ExecutionException e) {
+        log.error("Unexpected error removing write-ahead logs", e.getCause());
+      }
+    }
+    status.currentLog.deleted += removed.get();
+    return removed.get();
   }
   
   private static Map<String,ArrayList<String>> mapServersToFiles(Map<String,String> fileToServerMap) {
@@ -189,19 +231,28 @@ public class GarbageCollectWriteAheadLogs {
     return count;
   }
   
-  private int scanServers(Map<String,String> fileToServerMap) throws Exception {
+  private int scanServers(Map<String,String> fileToServerMap, ExecutorService threadPool) throws Exception {
     AccumuloConfiguration conf = instance.getConfiguration();
-    Path walRoot = new Path(Constants.getWalDirectory(conf));
+    final Path walRoot = new Path(Constants.getWalDirectory(conf));
+    List<Future<Map<String,String>>> listings = new ArrayList<Future<Map<String,String>>>();
     for (FileStatus status : fs.listStatus(walRoot)) {
-      String name = status.getPath().getName();
+      final String name = status.getPath().getName();
       if (status.isDir()) {
-        for (FileStatus file : fs.listStatus(new Path(walRoot, name))) {
-          if (isUUID(file.getPath().getName()))
-            fileToServerMap.put(file.getPath().getName(), name);
-          else {
-            log.info("Ignoring file " + file.getPath() + " because it doesn't look like a uuid");
+        // each server's directory is listed concurrently, as there may be many files in each
+        listings.add(threadPool.submit(new Callable<Map<String,String>>() {
+          @Override
+          public Map<String,String> call() throws IOException {
+            Map<String,String> files = new HashMap<String,String>();
+            for (FileStatus file : fs.listStatus(new Path(walRoot, name))) {
+              if (isUUID(file.getPath().getName()))
+                files.put(file.getPath().getName(), name);
+              else {
+                log.info("Ignoring file " + file.getPath() + " because it doesn't look like a uuid");
+              }
+            }
+            return files;
           }
-        }
+        }));
       } else if (isUUID(name)) {
         // old-style WAL are not under a directory
         fileToServerMap.put(name, "");
@@ -210,8 +261,16 @@ public class GarbageCollectWriteAheadLogs {
       }
     }
 
-    int count = 0;
-    return count;
+    for (Future<Map<String,String>> listing : listings) {
+      try {
+        fileToServerMap.putAll(listing.get());
+      } catch (ExecutionException e) {
+        if (e.getCause() instanceof Exception)
+          throw (Exception) e.getCause();
+        throw e;
+      }
+    }
+    return listings.size();
   }
   
   /**
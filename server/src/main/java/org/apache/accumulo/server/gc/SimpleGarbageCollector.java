@@ -20,16 +20,22 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.accumulo.core.Constants;
@@ -49,6 +55,7 @@ import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.KeyExtent;
 import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.PartialKey;
 import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.file.FileOperations;
@@ -69,6 +76,8 @@ import org.apache.accumulo.core.util.UtilWaitThread;
 import org.apache.accumulo.core.zookeeper.ZooUtil;
 import org.apache.accumulo.fate.zookeeper.ZooLock.LockLossReason;
 import org.apache.accumulo.fate.zookeeper.ZooLock.LockWatcher;
+import org.apache.accumulo.fate.zookeeper.ZooUtil.NodeExistsPolicy;
+import org.apache.accumulo.fate.zookeeper.ZooUtil.NodeMissingPolicy;
 import org.apache.accumulo.server.Accumulo;
 import org.apache.accumulo.server.ServerConstants;
 import org.apache.accumulo.server.client.HdfsZooInstance;
@@ -81,6 +90,7 @@ import org.apache.accumulo.server.util.OfflineMetadataScanner;
 import org.apache.accumulo.server.util.TServerUtils;
 import org.apache.accumulo.server.util.TabletIterator;
 import org.apache.accumulo.server.zookeeper.ZooLock;
+import org.apache.accumulo.server.zookeeper.ZooReaderWriter;
 import org.apache.accumulo.trace.instrument.CountSampler;
 import org.apache.accumulo.trace.instrument.Sampler;
 import org.apache.accumulo.trace.instrument.Span;
@@ -119,6 +129,9 @@ public class SimpleGarbageCollector implements Iface {
   private boolean candidateMemExceeded;
   
   private static final Logger log = Logger.getLogger(SimpleGarbageCollector.class);
+  
+  // where the start of the next batch of candidates is kept, relative to the gc node in zookeeper
+  private static final String CONTINUE_NODE = "/continue";
     
   private Credential credentials;
   private long gcStartDelay;
@@ -129,10 +142,13 @@ public class SimpleGarbageCollector implements Iface {
   private String address = "localhost";
   private ZooLock lock;
   private Key continueKey = null;
+  private boolean candidateBatchExceeded;
   
   private GCStatus status = new GCStatus(new GcCycleStats(), new GcCycleStats(), new GcCycleStats(), new GcCycleStats());
   
   private int numDeleteThreads;
+  private int numScanThreads;
+  private int candidateBatchSize;
   
   private Instance instance;
   
@@ -188,6 +204,8 @@ public class SimpleGarbageCollector implements Iface {
     gcStartDelay = instance.getConfiguration().getTimeInMillis(Property.GC_CYCLE_START);
     long gcDelay = instance.getConfiguration().getTimeInMillis(Property.GC_CYCLE_DELAY);
     numDeleteThreads = instance.getConfiguration().getCount(Property.GC_DELETE_THREADS);
+    numScanThreads = instance.getConfiguration().getCount(Property.GC_SCAN_THREADS);
+    candidateBatchSize = instance.getConfiguration().getCount(Property.GC_CANDIDATE_BATCH_SIZE);
     log.info("start delay: " + (offline ? 0 + " sec (offline)" : gcStartDelay + " milliseconds"));
     log.info("time delay: " + gcDelay + " milliseconds");
     log.info("safemode: " + safemode);
@@ -195,6 +213,8 @@ public class SimpleGarbageCollector implements Iface {
     log.info("verbose: " + verbose);
     log.info("memory threshold: " + CANDIDATE_MEMORY_PERCENTAGE + " of " + Runtime.getRuntime().maxMemory() + " bytes");
     log.info("delete threads: " + numDeleteThreads);
+    log.info("scan threads: " + numScanThreads);
+    log.info("candidate batch size: " + (candidateBatchSize > 0 ? candidateBatchSize : "unlimited"));
     if (!noTrash) {
       this.trash = new Trash(fs, fs.getConf());
     }
@@ -220,6 +240,9 @@ public class SimpleGarbageCollector implements Iface {
         log.warn(e, e);
         return;
       }
+      
+      // pick up where a previous garbage collector left off
+      continueKey = readContinueKey();
     }
     
     Sampler sampler = new CountSampler(100);
@@ -234,6 +257,7 @@ public class SimpleGarbageCollector implements Iface {
         // STEP 1: gather candidates
         System.gc(); // make room
         candidateMemExceeded = false;
+        candidateBatchExceeded = false;
         checkForBulkProcessingFiles = false;
         
         Span candidatesSpan = Trace.start("getCandidates");
@@ -241,6 +265,8 @@ public class SimpleGarbageCollector implements Iface {
         SortedSet<String> candidates = getCandidates();
         status.current.candidates = candidates.size();
         candidatesSpan.stop();
+        if (!offline)
+          writeContinueKey(continueKey);
         
         // STEP 2: confirm deletes
         // WARNING: This line is EXTREMELY IMPORTANT.
@@ -269,6 +295,8 @@ public class SimpleGarbageCollector implements Iface {
           log.info("Number of data file candidates still in use: " + status.current.inUse);
           log.info("Number of successfully deleted data files: " + status.current.deleted);
           log.info("Number of data files delete failures: " + status.current.errors);
+          log.info(String.format("Processed %.2f data file candidates per second", status.current.candidates * 1000.0
+              / Math.max(1, System.currentTimeMillis() - status.current.started)));
           deleteSpan.stop();
           
           // delete empty dirs of deleted tables
@@ -294,6 +322,11 @@ public class SimpleGarbageCollector implements Iface {
         continue;
       }
       
+      if (candidateBatchExceeded) {
+        log.info("Gathering of candidates stopped at the batch size of " + candidateBatchSize + ". Bypassing cycle delay to collect the next batch.");
+        continue;
+      }
+      
       // Clean up any unused write-ahead logs
       Span waLogs = Trace.start("walogs");
       try {
@@ -458,11 +491,47 @@ public class SimpleGarbageCollector implements Iface {
         continueKey = entry.getKey();
         break;
       }
+      if (candidateBatchSize > 0 && candidates.size() >= candidateBatchSize) {
+        candidateBatchExceeded = true;
+        continueKey = entry.getKey().followingKey(PartialKey.ROW);
+        break;
+      }
     }
     
     return candidates;
   }
   
+  private String getContinuePath() {
+    return ZooUtil.getRoot(instance) + Constants.ZGC + CONTINUE_NODE;
+  }
+  
+  private Key readContinueKey() {
+    try {
+      ZooReaderWriter zoo = ZooReaderWriter.getInstance();
+      if (zoo.exists(getContinuePath())) {
+        Text row = new Text(zoo.getData(getContinuePath(), null));
+        log.info("Resuming collection of candidates at " + row);
+        return new Key(row);
+      }
+    } catch (Exception ex) {
+      log.warn("Unable to read the start of the next batch of candidates, starting from the beginning", ex);
+    }
+    return null;
+  }
+  
+  private void writeContinueKey(Key key) {
+    try {
+      ZooReaderWriter zoo = ZooReaderWriter.getInstance();
+      if (key == null)
+        zoo.recursiveDelete(getContinuePath(), NodeMissingPolicy.SKIP);
+      else
+        zoo.putPersistentData(getContinuePath(), key.getRow().toString().getBytes(), NodeExistsPolicy.OVERWRITE);
+    } catch (Exception ex) {
+      // losing this only means a restarted garbage collector starts over
+      log.warn("Unable to save the start of the next batch of candidates", ex);
+    }
+  }
+  
   static public boolean almostOutOfMemory() {
     Runtime runtime = Runtime.getRuntime();
     return runtime.totalMemory() - runtime.freeMemory() > CANDIDATE_MEMORY_PERCENTAGE * runtime.maxMemory();
@@ -474,22 +543,7 @@ public class SimpleGarbageCollector implements Iface {
    */
   public void confirmDeletes(SortedSet<String> candidates) throws AccumuloException {
     
-    Scanner scanner;
-    if (offline) {
-      try {
-        scanner = new OfflineMetadataScanner(instance.getConfiguration(), fs);
-      } catch (IOException e) {
-        throw new IllegalStateException("Unable to create offline metadata scanner", e);
-      }
-    } else {
-      try {
-        scanner = new IsolatedScanner(instance.getConnector(credentials.getPrincipal(), CredentialHelper.extractToken(credentials)).createScanner(Constants.METADATA_TABLE_NAME, Constants.NO_AUTHS));
-      } catch (AccumuloSecurityException ex) {
-        throw new AccumuloException(ex);
-      } catch (TableNotFoundException ex) {
-        throw new AccumuloException(ex);
-      }
-    }
+    Scanner scanner = createMetadataScanner();
     
     // skip candidates that are in a bulk processing folder
     if (checkForBulkProcessingFiles) {
@@ -523,12 +577,98 @@ public class SimpleGarbageCollector implements Iface {
     
     // skip candidates that are still in use in the file column family in
     // the metadata table
+    if (offline || numScanThreads <= 1) {
+      removeCandidatesInUse(scanner, Constants.METADATA_KEYSPACE, candidates);
+      return;
+    }
+    
+    // the candidates are shared by all the threads scanning the metadata table
+    final SortedSet<String> sharedCandidates = Collections.synchronizedSortedSet(candidates);
+    ExecutorService scanThreadPool = Executors.newFixedThreadPool(numScanThreads, new NamingThreadFactory("gc metadata scan"));
+    try {
+      List<Future<Void>> scans = new ArrayList<Future<Void>>();
+      for (final Range range : getMetadataPartitions(numScanThreads * 4)) {
+        scans.add(scanThreadPool.submit(new Callable<Void>() {
+          @Override
+          public Void call() throws Exception {
+            removeCandidatesInUse(createMetadataScanner(), range, sharedCandidates);
+            return null;
+          }
+        }));
+      }
+      
+      // WARNING: This block is IMPORTANT
+      // Every partition MUST be scanned successfully, otherwise candidates that are in use could be deleted
+      for (Future<Void> scan : scans) {
+        try {
+          scan.get();
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof AccumuloException)
+            throw (AccumuloException) e.getCause();
+          throw new AccumuloException(e.getCause());
+        } catch (InterruptedException e) {
+          throw new AccumuloException(e);
+        }
+      }
+    } finally {
+      scanThreadPool.shutdownNow();
+    }
+  }
+  
+  private Scanner createMetadataScanner() throws AccumuloException {
+    if (offline) {
+      try {
+        return new OfflineMetadataScanner(instance.getConfiguration(), fs);
+      } catch (IOException e) {
+        throw new IllegalStateException("Unable to create offline metadata scanner", e);
+      }
+    }
+    try {
+      return new IsolatedScanner(instance.getConnector(credentials.getPrincipal(), CredentialHelper.extractToken(credentials)).createScanner(
+          Constants.METADATA_TABLE_NAME, Constants.NO_AUTHS));
+    } catch (AccumuloSecurityException ex) {
+      throw new AccumuloException(ex);
+    } catch (TableNotFoundException ex) {
+      throw new AccumuloException(ex);
+    }
+  }
+  
+  /**
+   * Split the metadata keyspace into contiguous ranges that each start at the first tablet of a table, which is where a {@link TabletIterator} must start.
+   */
+  List<Range> getMetadataPartitions(int maxPartitions) throws AccumuloException {
+    SortedSet<Text> tableStarts = new TreeSet<Text>();
+    try {
+      Connector conn = instance.getConnector(credentials.getPrincipal(), CredentialHelper.extractToken(credentials));
+      for (String tableId : conn.tableOperations().tableIdMap().values())
+        tableStarts.add(new Text(tableId + ";"));
+    } catch (AccumuloSecurityException ex) {
+      throw new AccumuloException(ex);
+    }
+    
+    // tables that are not known, like those being deleted, are covered by the partition before them
+    List<Text> splits = new ArrayList<Text>(tableStarts);
+    List<Range> partitions = new ArrayList<Range>();
+    Key start = Constants.METADATA_KEYSPACE.getStartKey();
+    int numPartitions = Math.max(1, Math.min(maxPartitions, splits.size()));
+    for (int i = 1; i < numPartitions; i++) {
+      Key end = new Key(splits.get(i * splits.size() / numPartitions));
+      if (end.compareTo(start) <= 0)
+        continue;
+      partitions.add(new Range(start, true, end, false));
+      start = end;
+    }
+    partitions.add(new Range(start, true, Constants.METADATA_KEYSPACE.getEndKey(), Constants.METADATA_KEYSPACE.isEndKeyInclusive()));
+    return partitions;
+  }
+  
+  private void removeCandidatesInUse(Scanner scanner, Range range, SortedSet<String> candidates) throws AccumuloException {
     scanner.clearColumns();
     scanner.fetchColumnFamily(Constants.METADATA_DATAFILE_COLUMN_FAMILY);
     scanner.fetchColumnFamily(Constants.METADATA_SCANFILE_COLUMN_FAMILY);
     Constants.METADATA_DIRECTORY_COLUMN.fetch(scanner);
     
-    TabletIterator tabletIterator = new TabletIterator(scanner, Constants.METADATA_KEYSPACE, false, true);
+    TabletIterator tabletIterator = new TabletIterator(scanner, range, false, true);
     
     while (tabletIterator.hasNext()) {
       Map<Key,Value> tabletKeyValues = tabletIterator.next();
@@ -83,7 +83,7 @@ public class MetricsConfiguration {
         } catch (InterruptedException ie) {
           // Do Nothing
         }
-        xConfig.getBoolean("master.enabled");
+        xConfig.getBoolean("master.enabled", false);
       }
     }
   }
@@ -186,8 +186,8 @@ public class MetricsConfiguration {
     }
     if (xConfig != null) {
       config = xConfig.interpolatedConfiguration();
-      // set the enabled boolean from the configuration
-      enabled = config.getBoolean(enabledName);
+      // set the enabled boolean from the configuration; metrics missing from the file, such as ones added since it was written, are disabled
+      enabled = config.getBoolean(enabledName, false);
       if (log.isDebugEnabled())
         log.debug("Metrics collection enabled=" + enabled);
     } else {
@@ -48,23 +48,31 @@ public class GcStatusServlet extends BasicServlet {
       gcActivity.addSortableColumn("In&nbsp;Use", new NumberType<Long>(), null);
       gcActivity.addSortableColumn("Errors", new NumberType<Long>(0l, 1l), null);
       gcActivity.addSortableColumn("Duration", new DurationType(), null);
+      gcActivity.addSortableColumn("Candidates/s", new NumberType<Double>(), null);
       
       if (status.last.finished > 0)
         gcActivity.addRow("File&nbsp;Collection,&nbsp;Last&nbsp;Cycle", status.last.finished, status.last.candidates, status.last.deleted, status.last.inUse,
-            status.last.errors, status.last.finished - status.last.started);
+            status.last.errors, status.last.finished - status.last.started, rate(status.last.candidates, status.last.finished - status.last.started));
       if (status.current.started > 0)
         gcActivity.addRow("File&nbsp;Collection,&nbsp;Running", status.current.finished, status.current.candidates, status.current.deleted,
-            status.current.inUse, status.current.errors, System.currentTimeMillis() - status.current.started);
+            status.current.inUse, status.current.errors, System.currentTimeMillis() - status.current.started,
+            rate(status.current.candidates, System.currentTimeMillis() - status.current.started));
       if (status.lastLog.finished > 0)
         gcActivity.addRow("WAL&nbsp;Collection,&nbsp;Last&nbsp;Cycle", status.lastLog.finished, status.lastLog.candidates, status.lastLog.deleted,
-            status.lastLog.inUse, status.lastLog.errors, status.lastLog.finished - status.lastLog.started);
+            status.lastLog.inUse, status.lastLog.errors, status.lastLog.finished - status.lastLog.started,
+            rate(status.lastLog.candidates, status.lastLog.finished - status.lastLog.started));
       if (status.currentLog.started > 0)
         gcActivity.addRow("WAL&nbsp;Collection,&nbsp;Running", status.currentLog.finished, status.currentLog.candidates, status.currentLog.deleted,
-            status.currentLog.inUse, status.currentLog.errors, System.currentTimeMillis() - status.currentLog.started);
+            status.currentLog.inUse, status.currentLog.errors, System.currentTimeMillis() - status.currentLog.started,
+            rate(status.currentLog.candidates, System.currentTimeMillis() - status.currentLog.started));
       gcActivity.generate(req, sb);
     } else {
       banner(sb, "error", "Collector is Unavailable");
     }
   }
   
+  private static double rate(long count, long millis) {
+    return count * 1000.0 / Math.max(1, millis);
+  }
+  
 }
@@ -16,6 +16,9 @@
  */
 package org.apache.accumulo.server.security;
 
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.accumulo.core.client.AccumuloSecurityException;
@@ -94,6 +97,20 @@ public class AuditedSecurityOperation extends SecurityOperation {
     }
   }
   
+  @Override
+  public boolean canScan(Credential credentials, Collection<String> tables, List<ByteBuffer> authorizations) throws ThriftSecurityException {
+    String auths = authorizations == null || authorizations.isEmpty() ? "" : " with authorizations " + new Authorizations(authorizations);
+    try {
+      boolean result = super.canScan(credentials, tables, authorizations);
+      audit(credentials, "%s scan of tables %s%s", result ? "permitted" : "denied", tables, auths);
+      return result;
+    } catch (ThriftSecurityException ex) {
+      audit(credentials, ex, "scanning tables %s%s", tables, auths);
+      log.debug(ex);
+      throw ex;
+    }
+  }
+  
   @Override
   public void changeAuthorizations(Credential credentials, String user, Authorizations authorizations) throws ThriftSecurityException {
     try {
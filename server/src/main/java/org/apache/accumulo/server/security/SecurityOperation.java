@@ -16,6 +16,9 @@
  */
 package org.apache.accumulo.server.security;
 
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 
 import org.apache.accumulo.core.Constants;
@@ -32,6 +35,7 @@ import org.apache.accumulo.core.security.thrift.Credential;
 import org.apache.accumulo.core.security.thrift.SecurityErrorCode;
 import org.apache.accumulo.core.security.thrift.ThriftSecurityException;
 import org.apache.accumulo.core.security.tokens.SecurityToken;
+import org.apache.accumulo.core.util.ByteBufferUtil;
 import org.apache.accumulo.server.client.HdfsZooInstance;
 import org.apache.accumulo.server.master.Master;
 import org.apache.accumulo.server.security.handler.Authenticator;
@@ -287,6 +291,45 @@ public class SecurityOperation {
     return hasTablePermission(credentials.getPrincipal(), table, TablePermission.READ, true);
   }
   
+  /**
+   * Checks that a user can scan the given tables using the given authorizations. This authenticates the user once for all of the checks, where calling
+   * {@link #canScan(Credential, String)} for each table and then {@link #getUserAuthorizations(Credential)} would authenticate the user for each call.
+   * 
+   * @return false if the user can not read one of the tables
+   * @throws ThriftSecurityException
+   *           if the user can not be authenticated, or does not have one of the authorizations
+   */
+  public boolean canScan(Credential credentials, Collection<String> tables, List<ByteBuffer> authorizations) throws ThriftSecurityException {
+    authenticate(credentials);
+    
+    for (String table : tables)
+      if (!hasTablePermission(credentials.getPrincipal(), table, TablePermission.READ, true))
+        return false;
+    
+    if (authorizations.isEmpty())
+      return true;
+    
+    String user = credentials.getPrincipal();
+    targetUserExists(user);
+    
+    Authorizations userauths;
+    if (user.equals(SecurityConstants.SYSTEM_PRINCIPAL))
+      userauths = Constants.NO_AUTHS;
+    else {
+      try {
+        userauths = authorizor.getCachedUserAuthorizations(user);
+      } catch (AccumuloSecurityException e) {
+        throw e.asThriftException();
+      }
+    }
+    
+    for (ByteBuffer auth : authorizations)
+      if (!userauths.contains(ByteBufferUtil.toBytes(auth)))
+        throw new ThriftSecurityException(user, SecurityErrorCode.BAD_AUTHORIZATIONS);
+    
+    return true;
+  }
+  
   public boolean canWrite(Credential credentials, String table) throws ThriftSecurityException {
     authenticate(credentials);
     return hasTablePermission(credentials.getPrincipal(), table, TablePermission.WRITE, true);
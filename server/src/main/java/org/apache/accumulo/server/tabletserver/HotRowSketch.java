@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.server.tabletserver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.hadoop.io.Text;
+
+/**
+ * Finds the rows of a tablet that are read or written most, using the space saving algorithm. A fixed number of rows are counted; a row that is not counted
+ * replaces the row with the smallest count, and inherits that count as its possible error. Any row with more than 1/capacity of the load is always counted.
+ * 
+ * Counts are halved periodically, so the sketch follows the current load rather than the load since the tablet was loaded. Rows longer than
+ * {@link #MAX_ROW_LENGTH} are counted by their prefix; a prefix is still a usable split row.
+ * 
+ * @since 1.6.0
+ */
+public class HotRowSketch {
+  
+  static final int DEFAULT_CAPACITY = 32;
+  // longer rows are counted by their prefix, which bounds the memory a counted row takes
+  static final int MAX_ROW_LENGTH = 256;
+  static final long HALF_LIFE_MILLIS = 60 * 1000;
+  
+  // a split point is only chosen from the sketch when the counted rows are at least this much of the load
+  private static final double MIN_COUNTED_FRACTION = .5;
+  private static final long MIN_LOAD_FOR_SPLIT = 1000;
+  
+  /**
+   * A row and an estimate of its load.
+   */
+  public static class HotRow {
+    private final ByteSequence row;
+    private long count;
+    private long error;
+    
+    HotRow(ByteSequence row, long count, long error) {
+      this.row = row;
+      this.count = count;
+      this.error = error;
+    }
+    
+    public ByteSequence getRow() {
+      return row;
+    }
+    
+    /**
+     * @return the estimated load, which is never less than the actual load
+     */
+    public long getCount() {
+      return count;
+    }
+    
+    /**
+     * @return the most the count may overestimate the load
+     */
+    public long getError() {
+      return error;
+    }
+  }
+  
+  private final int capacity;
+  private final HashMap<ByteSequence,HotRow> counted = new HashMap<ByteSequence,HotRow>();
+  private final HotRow[] rows;
+  private long total = 0;
+  private long lastDecay;
+  
+  public HotRowSketch() {
+    this(DEFAULT_CAPACITY);
+  }
+  
+  public HotRowSketch(int capacity) {
+    this.capacity = capacity;
+    this.rows = new HotRow[capacity];
+    this.lastDecay = System.currentTimeMillis();
+  }
+  
+  public void offer(byte[] row, long weight) {
+    offer(new ArrayByteSequence(row, 0, Math.min(row.length, MAX_ROW_LENGTH)), weight);
+  }
+  
+  public synchronized void offer(ByteSequence row, long weight) {
+    if (row.length() > MAX_ROW_LENGTH)
+      row = row.subSequence(0, MAX_ROW_LENGTH);
+    total += weight;
+    
+    HotRow hotRow = counted.get(row);
+    if (hotRow != null) {
+      hotRow.count += weight;
+      return;
+    }
+    
+    // the row is copied since the caller may reuse its bytes
+    ByteSequence copy = new ArrayByteSequence(row.toArray());
+    if (counted.size() < capacity) {
+      hotRow = new HotRow(copy, weight, 0);
+      rows[counted.size()] = hotRow;
+      counted.put(copy, hotRow);
+      return;
+    }
+    
+    int min = 0;
+    for (int i = 1; i < capacity; i++)
+      if (rows[i].count < rows[min].count)
+        min = i;
+    
+    counted.remove(rows[min].row);
+    hotRow = new HotRow(copy, rows[min].count + weight, rows[min].count);
+    rows[min] = hotRow;
+    counted.put(copy, hotRow);
+  }
+  
+  /**
+   * Halves all counts if a half life has passed since they were last halved.
+   */
+  public synchronized void decay(long now) {
+    if (now - lastDecay < HALF_LIFE_MILLIS)
+      return;
+    lastDecay = now;
+    total /= 2;
+    for (HotRow hotRow : counted.values()) {
+      hotRow.count /= 2;
+      hotRow.error /= 2;
+    }
+  }
+  
+  /**
+   * @return the total load offered, including rows that are not counted
+   */
+  public synchronized long getTotal() {
+    return total;
+  }
+  
+  /**
+   * @return copies of the counted rows, with the largest counts first
+   */
+  public synchronized List<HotRow> getHotRows() {
+    List<HotRow> hotRows = new ArrayList<HotRow>(counted.size());
+    for (HotRow hotRow : counted.values())
+      hotRows.add(new HotRow(hotRow.row, hotRow.count, hotRow.error));
+    Collections.sort(hotRows, new Comparator<HotRow>() {
+      @Override
+      public int compare(HotRow o1, HotRow o2) {
+        return o1.count == o2.count ? 0 : (o1.count > o2.count ? -1 : 1);
+      }
+    });
+    return hotRows;
+  }
+  
+  /**
+   * Chooses a row that divides the load of the counted rows as evenly as possible. The row goes to the lower half, and is never the largest counted row, so
+   * both halves get some of the load.
+   * 
+   * @return the row, or null if too little of the load is in counted rows to judge where it is
+   */
+  public synchronized Text findLoadSplitRow() {
+    if (counted.size() < 2 || total < MIN_LOAD_FOR_SPLIT)
+      return null;
+    
+    List<HotRow> sorted = new ArrayList<HotRow>(counted.values());
+    long countedLoad = 0;
+    for (HotRow hotRow : sorted)
+      countedLoad += hotRow.count - hotRow.error;
+    if (countedLoad < total * MIN_COUNTED_FRACTION)
+      return null;
+    
+    Collections.sort(sorted, new Comparator<HotRow>() {
+      @Override
+      public int compare(HotRow o1, HotRow o2) {
+        return o1.row.compareTo(o2.row);
+      }
+    });
+    
+    int best = 0;
+    long bestImbalance = Long.MAX_VALUE;
+    long lower = 0;
+    for (int i = 0; i < sorted.size() - 1; i++) {
+      lower += sorted.get(i).count - sorted.get(i).error;
+      long imbalance = Math.abs(2 * lower - countedLoad);
+      if (imbalance < bestImbalance) {
+        best = i;
+        bestImbalance = imbalance;
+      }
+    }
+    
+    return new Text(sorted.get(best).row.toArray());
+  }
+}
@@ -18,6 +18,8 @@ package org.apache.accumulo.server.tabletserver;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
@@ -75,6 +77,8 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
   
   private static native void update(long nmPointer, long updateID, byte cf[], byte cq[], byte cv[], long ts, boolean del, byte[] value, int mutationCount);
   
+  private static native void mutateBatch(long nmPointer, ByteBuffer buffer, int length, int mutationCount);
+  
   private static native int sizeNM(long nmPointer);
   
   private static native long memoryUsedNM(long nmPointer);
@@ -171,8 +175,29 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
   
   private static native long nmiGetTS(long nmiPointer);
   
+  private static native boolean nmiNextBatch(long nmiPointer, ByteBuffer buffer, int maxEntries, int maxBytes, int fieldLens[]);
+  
   private static native void deleteNMI(long nmiPointer);
   
+  // Mutations are packed into a direct buffer and entries are read out of one, so that many cross JNI in a single call. Mutations
+  // are packed before the write lock is acquired, so the buffers are per thread. The size of the buffers bounds how long the write
+  // lock is held, which keeps concurrent readers from waiting too long.
+  private static final int BATCH_BUFFER_SIZE = 1 << 14;
+  
+  private static final ThreadLocal<ByteBuffer> mutateBuffers = new ThreadLocal<ByteBuffer>() {
+    @Override
+    protected ByteBuffer initialValue() {
+      return ByteBuffer.allocateDirect(BATCH_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+    }
+  };
+  
+  private static final ThreadLocal<ByteBuffer> readBuffers = new ThreadLocal<ByteBuffer>() {
+    @Override
+    protected ByteBuffer initialValue() {
+      return ByteBuffer.allocateDirect(BATCH_BUFFER_SIZE).order(ByteOrder.nativeOrder());
+    }
+  };
+  
   private class ConcurrentIterator implements Iterator<Map.Entry<Key,Value>> {
     
     // in order to get good performance when there are multiple threads reading, need to read a lot while the
@@ -218,20 +243,15 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
       if (source.hasNext())
         source.doNextPreCheck();
       
-      int amountRead = 0;
-      
       // as we keep filling, increase the read ahead buffer
       if (nextEntries.length < MAX_READ_AHEAD_ENTRIES)
         nextEntries = new Entry[Math.min(nextEntries.length * 2, MAX_READ_AHEAD_ENTRIES)];
       
-      while (source.hasNext() && end < nextEntries.length) {
-        Entry<Key,Value> ne = source.next();
-        nextEntries[end++] = ne;
-        amountRead += ne.getKey().getSize() + ne.getValue().getSize();
-        
-        if (amountRead > READ_AHEAD_BYTES)
-          break;
-      }
+      end = source.nextBatch(nextEntries, READ_AHEAD_BYTES);
+      
+      // an entry too large for the batch buffer is read on its own
+      if (end == 0 && source.hasNext())
+        nextEntries[end++] = source.next();
     }
     
     @Override
@@ -275,6 +295,21 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
       throw new UnsupportedOperationException();
     }
     
+    /**
+     * Skips read ahead entries that sort before key, if an entry at or after key has already been read.
+     * 
+     * @return false if the read ahead entries do not reach key, in which case nothing is skipped
+     */
+    boolean skipReadAhead(Key key) {
+      if (end == 0 || key.compareTo(nextEntries[end - 1].getKey()) > 0)
+        return false;
+      
+      while (key.compareTo(nextEntries[index].getKey()) > 0)
+        index++;
+      
+      return true;
+    }
+    
     public void delete() {
       source.delete();
     }
@@ -379,6 +414,51 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
       return new NMEntry(k, v);
     }
     
+    /**
+     * Reads up to dest.length entries with a single native call, stopping once more than maxBytes have been read. Has the same locking requirements as
+     * next().
+     * 
+     * @return the number of entries put in dest, which is zero if the next entry does not fit in the read buffer
+     */
+    synchronized int nextBatch(Entry<Key,Value>[] dest, int maxBytes) {
+      if (!hasNext) {
+        return 0;
+      }
+      
+      if (nmiPointer == 0) {
+        throw new IllegalStateException("Native Map Iterator Deleted");
+      }
+      
+      ByteBuffer buffer = readBuffers.get();
+      buffer.clear();
+      hasNext = nmiNextBatch(nmiPointer, buffer, dest.length, maxBytes, fieldsLens);
+      
+      int count = buffer.getInt();
+      byte[] row = null;
+      for (int i = 0; i < count; i++) {
+        int rowLen = buffer.getInt();
+        if (rowLen >= 0)
+          row = get(buffer, rowLen);
+        byte cf[] = get(buffer, buffer.getInt());
+        byte cq[] = get(buffer, buffer.getInt());
+        byte cv[] = get(buffer, buffer.getInt());
+        long ts = buffer.getLong();
+        boolean deleted = buffer.get() != 0;
+        int mc = buffer.getInt();
+        byte val[] = get(buffer, buffer.getInt());
+        
+        dest[i] = new NMEntry(new MemKey(row, cf, cq, cv, ts, deleted, false, mc), new Value(val, false));
+      }
+      
+      return count;
+    }
+    
+    private byte[] get(ByteBuffer buffer, int len) {
+      byte[] data = new byte[len];
+      buffer.get(data);
+      return data;
+    }
+    
     @Override
     public void remove() {
       throw new UnsupportedOperationException();
@@ -474,10 +554,48 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
     }
   }
   
+  /**
+   * Packs a mutation into the buffer in the form the native map reads in mutateBatch.
+   * 
+   * @return false, leaving the buffer unchanged, if the mutation does not fit
+   */
+  private static boolean pack(ByteBuffer buffer, Mutation mutation) {
+    List<ColumnUpdate> updates = mutation.getUpdates();
+    
+    int size = 8 + mutation.getRow().length;
+    for (ColumnUpdate update : updates)
+      size += 25 + update.getColumnFamily().length + update.getColumnQualifier().length + update.getColumnVisibility().length + update.getValue().length;
+    
+    if (size > buffer.remaining())
+      return false;
+    
+    buffer.putInt(mutation.getRow().length).put(mutation.getRow());
+    buffer.putInt(updates.size());
+    for (ColumnUpdate update : updates) {
+      buffer.putInt(update.getColumnFamily().length).put(update.getColumnFamily());
+      buffer.putInt(update.getColumnQualifier().length).put(update.getColumnQualifier());
+      buffer.putInt(update.getColumnVisibility().length).put(update.getColumnVisibility());
+      buffer.putLong(update.getTimestamp());
+      buffer.put((byte) (update.isDeleted() ? 1 : 0));
+      buffer.putInt(update.getValue().length).put(update.getValue());
+    }
+    
+    return true;
+  }
+  
   public void mutate(List<Mutation> mutations, int mutationCount) {
+    ByteBuffer buffer = mutateBuffers.get();
     Iterator<Mutation> iter = mutations.iterator();
+    Mutation next = iter.hasNext() ? iter.next() : null;
     
-    while (iter.hasNext()) {
+    while (next != null) {
+      
+      buffer.clear();
+      int packed = 0;
+      while (next != null && pack(buffer, next)) {
+        packed++;
+        next = iter.hasNext() ? iter.next() : null;
+      }
       
       wlock.lock();
       try {
@@ -487,12 +605,14 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
         
         modCount++;
         
-        int count = 0;
-        while (iter.hasNext() && count < 10) {
-          Mutation mutation = iter.next();
-          _mutate(mutation, mutationCount);
+        if (packed > 0) {
+          mutateBatch(nmPointer, buffer, buffer.position(), mutationCount);
+          mutationCount += packed;
+        } else {
+          // too large for the buffer, so cross JNI for each of its updates
+          _mutate(next, mutationCount);
           mutationCount++;
-          count += mutation.size();
+          next = iter.hasNext() ? iter.next() : null;
         }
       } finally {
         wlock.unlock();
@@ -608,6 +728,8 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
     
     private ConcurrentIterator iter;
     private Entry<Key,Value> entry;
+    // the last entry read from iter, even if it was outside the range
+    private Entry<Key,Value> lastEntry;
     
     private NativeMap map;
     private Range range;
@@ -622,6 +744,7 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
         entry = iter.next();
       else
         entry = null;
+      lastEntry = entry;
       
       this.interruptFlag = interruptFlag;
     }
@@ -658,6 +781,7 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
       
       if (iter.hasNext()) {
         entry = iter.next();
+        lastEntry = entry;
         if (range.afterEndKey(entry.getKey())) {
           entry = null;
         }
@@ -672,8 +796,6 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
       if (interruptFlag != null && interruptFlag.get())
         throw new IterationInterruptedException();
       
-      iter.delete();
-      
       this.range = range;
       
       Key key = range.getStartKey();
@@ -681,14 +803,24 @@ public class NativeMap implements Iterable<Map.Entry<Key,Value>> {
         key = new MemKey();
       }
       
-      iter = map.new ConcurrentIterator(key);
+      if (lastEntry != null && key.compareTo(lastEntry.getKey()) > 0 && iter.skipReadAhead(key)) {
+        // seeking forward to an entry that was already read ahead, which is common when looking up many sorted ranges, so avoid
+        // creating a new native iterator
+      } else {
+        iter.delete();
+        iter = map.new ConcurrentIterator(key);
+      }
+      
       if (iter.hasNext()) {
         entry = iter.next();
+        lastEntry = entry;
         if (range.afterEndKey(entry.getKey())) {
           entry = null;
         }
-      } else
+      } else {
         entry = null;
+        lastEntry = null;
+      }
       
       while (hasTop() && range.beforeStartKey(getTopKey())) {
         next();
@@ -36,6 +36,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -109,6 +110,7 @@ import org.apache.accumulo.server.tabletserver.TabletStatsKeeper.Operation;
 import org.apache.accumulo.server.tabletserver.log.DfsLogger;
 import org.apache.accumulo.server.tabletserver.log.MutationReceiver;
 import org.apache.accumulo.server.tabletserver.mastermessage.TabletStatusMessage;
+import org.apache.accumulo.server.tabletserver.metrics.TabletServerLatencyMetrics;
 import org.apache.accumulo.server.tabletserver.metrics.TabletServerMinCMetrics;
 import org.apache.accumulo.server.trace.TraceFileSystem;
 import org.apache.accumulo.server.util.MapCounter;
@@ -448,9 +450,58 @@ public class Tablet {
   // a count of the amount of data read by the iterators
   private AtomicLong scannedCount = new AtomicLong(0);
   private Rate scannedRate = new Rate(0.2);
+  
+  // the rows most read and written, weighted by entries returned and entries written
+  private final HotRowSketch hotRows = new HotRowSketch();
+  private volatile boolean splitByLoad = false;
 
   private ConfigurationObserver configObserver;
   
+  /**
+   * The scan iterators configured for the table, read from the table configuration once instead of for every scan.
+   */
+  private static class ScanIteratorConfig {
+    final List<IterInfo> iters = new ArrayList<IterInfo>();
+    final Map<String,Map<String,String>> opts = new HashMap<String,Map<String,String>>();
+    final String context;
+    
+    ScanIteratorConfig(AccumuloConfiguration conf) {
+      IteratorUtil.parseIterConf(IteratorScope.scan, iters, opts, conf);
+      context = conf.get(Property.TABLE_CLASSPATH);
+    }
+  }
+  
+  // cleared when the table configuration, or a system property the table inherits, changes
+  private volatile ScanIteratorConfig scanIteratorConfig = null;
+  private long scanIteratorConfigChanges = 0;
+  private final Object scanIteratorConfigLock = new Object();
+  
+  private ScanIteratorConfig getScanIteratorConfig() {
+    ScanIteratorConfig sic = scanIteratorConfig;
+    if (sic == null) {
+      long changes;
+      synchronized (scanIteratorConfigLock) {
+        changes = scanIteratorConfigChanges;
+      }
+      
+      sic = new ScanIteratorConfig(acuTableConf);
+      
+      synchronized (scanIteratorConfigLock) {
+        // do not keep what was read if the configuration changed while reading it
+        if (changes == scanIteratorConfigChanges)
+          scanIteratorConfig = sic;
+      }
+    }
+    return sic;
+  }
+  
+  private void clearScanIteratorConfig() {
+    synchronized (scanIteratorConfigLock) {
+      scanIteratorConfigChanges++;
+      scanIteratorConfig = null;
+    }
+  }
+  
   private TabletServer tabletServer;
   
   private final int logId;
@@ -1379,6 +1430,8 @@ public class Tablet {
       
       public void propertiesChanged() {
         reloadConstraints();
+        clearScanIteratorConfig();
+        splitByLoad = acuTableConf.getBoolean(Property.TABLE_SPLIT_BY_LOAD);
         
         try {
           setupDefaultSecurityLabels(extent);
@@ -1390,6 +1443,10 @@ public class Tablet {
       public void propertyChanged(String prop) {
         if (prop.startsWith(Property.TABLE_CONSTRAINT_PREFIX.getKey()))
           reloadConstraints();
+        else if (prop.startsWith(Property.TABLE_ITERATOR_PREFIX.getKey()) || prop.equals(Property.TABLE_CLASSPATH.getKey()))
+          clearScanIteratorConfig();
+        else if (prop.equals(Property.TABLE_SPLIT_BY_LOAD.getKey()))
+          splitByLoad = acuTableConf.getBoolean(Property.TABLE_SPLIT_BY_LOAD);
         else if (prop.equals(Property.TABLE_DEFAULT_SCANTIME_VISIBILITY.getKey())) {
           try {
             log.info("Default security labels changed for extent: " + extent.toString());
@@ -1686,7 +1743,6 @@ public class Tablet {
     }
     
     ranges = Range.mergeOverlapping(ranges);
-    Collections.sort(ranges);
     
     Range tabletRange = extent.toDataRange();
     for (Range range : ranges) {
@@ -1716,7 +1772,33 @@ public class Tablet {
         if (result != null)
           queryBytes += result.dataSize;
       }
+      offerRows(results);
+    }
+  }
+  
+  // hot rows are only counted when something uses them, since counting adds work to every read and write
+  private boolean trackHotRows() {
+    return splitByLoad || tabletServer.hotSpotMetrics.isEnabled();
+  }
+  
+  // offers each run of entries with the same row to the hot row sketch once
+  private void offerRows(List<KVEntry> results) {
+    if (!trackHotRows())
+      return;
+    
+    ByteSequence row = null;
+    int count = 0;
+    for (KVEntry entry : results) {
+      ByteSequence entryRow = entry.key.getRowData();
+      if (row != null && !entryRow.equals(row)) {
+        hotRows.offer(row, count);
+        count = 0;
+      }
+      row = entryRow;
+      count++;
     }
+    if (row != null)
+      hotRows.offer(row, count);
   }
   
   private Batch nextBatch(SortedKeyValueIterator<Key,Value> iter, Range range, int num, HashSet<Column> columns) throws IOException {
@@ -1920,6 +2002,8 @@ public class Tablet {
             queryBytes += results.numBytes;
           }
         }
+        if (results != null && results.results != null)
+          offerRows(results.results);
       }
     }
     
@@ -2080,8 +2164,8 @@ public class Tablet {
       
       VisibilityFilter visFilter = new VisibilityFilter(colFilter, options.authorizations, options.defaultLabels);
       
-      return iterEnv.getTopLevelIterator(IteratorUtil
-          .loadIterators(IteratorScope.scan, visFilter, extent, acuTableConf, options.ssiList, options.ssio, iterEnv));
+      ScanIteratorConfig sic = getScanIteratorConfig();
+      return iterEnv.getTopLevelIterator(IteratorUtil.loadIterators(visFilter, sic.iters, sic.opts, options.ssiList, options.ssio, iterEnv, true, sic.context));
     }
     
     private void close(boolean sawErrors) {
@@ -2165,7 +2249,9 @@ public class Tablet {
       }
       if (tabletServer.mincMetrics.isEnabled())
         tabletServer.mincMetrics.add(TabletServerMinCMetrics.minc, (lastMinorCompactionFinishTime - start));
+      TabletServerLatencyMetrics.minc.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - start));
       if (hasQueueTime) {
+        TabletServerLatencyMetrics.mincQueue.record(TimeUnit.MILLISECONDS.toNanos(start - queued));
         timer.updateTime(Operation.MINOR, queued, start, count, failed);
         if (tabletServer.mincMetrics.isEnabled())
           tabletServer.mincMetrics.add(TabletServerMinCMetrics.queue, (start - queued));
@@ -2588,11 +2674,14 @@ public class Tablet {
     
     int totalCount = 0;
     long totalBytes = 0;
+    boolean trackHotRows = trackHotRows();
     
     // write the mutation to the in memory table
     for (Mutation mutation : mutations) {
       totalCount += mutation.size();
       totalBytes += mutation.numBytes();
+      if (trackHotRows)
+        hotRows.offer(mutation.getRow(), mutation.size());
     }
     
     tabletMemory.mutate(commitSession, mutations);
@@ -2884,6 +2973,8 @@ public class Tablet {
         long count = 0;
         if (majCStats != null) {
           count = majCStats.getEntriesRead();
+          TabletServerLatencyMetrics.majcQueue.record(TimeUnit.MILLISECONDS.toNanos(start - queued));
+          TabletServerLatencyMetrics.majc.record(TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - start));
         }
         
         timer.updateTime(Operation.MAJOR, queued, start, count, failed);
@@ -3115,6 +3206,12 @@ public class Tablet {
         
         return null;
       }
+      if (splitByLoad) {
+        SplitRowSpec loadSplit = findLoadSplitRow(files, lastRow);
+        if (loadSplit != null)
+          return loadSplit;
+      }
+      
       Key mid = keys.get(.5);
       Text text = (mid == null) ? null : mid.getRow();
       SortedMap<Double,Key> firstHalf = keys.headMap(.5);
@@ -3133,6 +3230,17 @@ public class Tablet {
     }
   }
   
+  // a split row that divides the recent reads and writes of this tablet, rather than its data
+  private SplitRowSpec findLoadSplitRow(Collection<String> files, Text lastRow) throws IOException {
+    Text row = hotRows.findLoadSplitRow();
+    if (row == null || row.compareTo(lastRow) >= 0 || (extent.getPrevEndRow() != null && row.compareTo(extent.getPrevEndRow()) <= 0))
+      return null;
+    double ratio = FileUtil.estimatePercentageLTE(fs, tabletServer.getSystemConfiguration(), extent.getPrevEndRow(), extent.getEndRow(), files, row);
+    if (log.isDebugEnabled())
+      log.debug(String.format("Splitting %s at hot row %s, %6.2f of the data is below it", extent, row, ratio));
+    return new SplitRowSpec(ratio, row);
+  }
+  
   private static int longestCommonLength(Text text, Text beforeMid) {
     int common = 0;
     while (common < text.getLength() && common < beforeMid.getLength() && text.getBytes()[common] == beforeMid.getBytes()[common]) {
@@ -3645,6 +3753,11 @@ public class Tablet {
     ingestRate.update(now, ingestCount);
     ingestByteRate.update(now, ingestBytes);
     scannedRate.update(now, scannedCount.get());
+    hotRows.decay(now);
+  }
+  
+  public HotRowSketch getHotRows() {
+    return hotRows;
   }
   
   public long getSplitCreationTime() {
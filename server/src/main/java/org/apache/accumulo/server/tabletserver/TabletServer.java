@@ -175,6 +175,8 @@ import org.apache.accumulo.server.tabletserver.log.TabletServerLogger;
 import org.apache.accumulo.server.tabletserver.mastermessage.MasterMessage;
 import org.apache.accumulo.server.tabletserver.mastermessage.SplitReportMessage;
 import org.apache.accumulo.server.tabletserver.mastermessage.TabletStatusMessage;
+import org.apache.accumulo.server.tabletserver.metrics.TabletServerHotSpotMetrics;
+import org.apache.accumulo.server.tabletserver.metrics.TabletServerLatencyMetrics;
 import org.apache.accumulo.server.tabletserver.metrics.TabletServerMBean;
 import org.apache.accumulo.server.tabletserver.metrics.TabletServerMinCMetrics;
 import org.apache.accumulo.server.tabletserver.metrics.TabletServerScanMetrics;
@@ -237,6 +239,8 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
   
   protected TabletServerMinCMetrics mincMetrics = new TabletServerMinCMetrics();
   
+  private TabletServerLatencyMetrics latencyMetrics = new TabletServerLatencyMetrics();
+  
   private ServerConfiguration serverConfig;
   private LogSorter logSorter = null;
   
@@ -1099,15 +1103,9 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
         List<IterInfo> ssiList, Map<String,Map<String,String>> ssio, List<ByteBuffer> authorizations, boolean waitForWrites, boolean isolated)
         throws NotServingTabletException, ThriftSecurityException, org.apache.accumulo.core.tabletserver.thrift.TooManyFilesException {
       
-      Authorizations userauths = null;
-      if (!security.canScan(credentials, new String(textent.getTable())))
+      if (!security.canScan(credentials, Collections.singleton(new String(textent.getTable())), authorizations))
         throw new ThriftSecurityException(credentials.getPrincipal(), SecurityErrorCode.PERMISSION_DENIED);
       
-      userauths = security.getUserAuthorizations(credentials);
-      for (ByteBuffer auth : authorizations)
-        if (!userauths.contains(ByteBufferUtil.toBytes(auth)))
-          throw new ThriftSecurityException(credentials.getPrincipal(), SecurityErrorCode.BAD_AUTHORIZATIONS);
-      
       KeyExtent extent = new KeyExtent(textent);
       
       // wait for any writes that are in flight.. this done to ensure
@@ -1146,6 +1144,7 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
       long sid = sessionManager.createSession(scanSession, true);
       
       ScanResult scanResult;
+      long t1 = System.nanoTime();
       try {
         scanResult = continueScan(tinfo, sid, scanSession);
       } catch (NoSuchScanIDException e) {
@@ -1153,6 +1152,7 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
         throw new RuntimeException();
       } finally {
         sessionManager.unreserveSession(sid);
+        TabletServerLatencyMetrics.scan.record(System.nanoTime() - t1);
       }
       
       return new InitialScan(sid, scanResult);
@@ -1166,10 +1166,12 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
         throw new NoSuchScanIDException();
       }
       
+      long t1 = System.nanoTime();
       try {
         return continueScan(tinfo, scanID, scanSession);
       } finally {
         sessionManager.unreserveSession(scanSession);
+        TabletServerLatencyMetrics.scan.record(System.nanoTime() - t1);
       }
     }
     
@@ -1254,16 +1256,9 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
         tables.add(new String(keyExtent.getTable()));
       }
       
-      // check if user has permission to the tables
-      Authorizations userauths = null;
-      for (String table : tables)
-        if (!security.canScan(credentials, table))
-          throw new ThriftSecurityException(credentials.getPrincipal(), SecurityErrorCode.PERMISSION_DENIED);
-      
-      userauths = security.getUserAuthorizations(credentials);
-      for (ByteBuffer auth : authorizations)
-        if (!userauths.contains(ByteBufferUtil.toBytes(auth)))
-          throw new ThriftSecurityException(credentials.getPrincipal(), SecurityErrorCode.BAD_AUTHORIZATIONS);
+      // check if user has permission to the tables and authorizations
+      if (!security.canScan(credentials, tables, authorizations))
+        throw new ThriftSecurityException(credentials.getPrincipal(), SecurityErrorCode.PERMISSION_DENIED);
       
       KeyExtent threadPoolExtent = null;
       
@@ -1304,6 +1299,7 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
       long sid = sessionManager.createSession(mss, true);
       
       MultiScanResult result;
+      long t1 = System.nanoTime();
       try {
         result = continueMultiScan(tinfo, sid, mss);
       } catch (NoSuchScanIDException e) {
@@ -1311,6 +1307,7 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
         throw new RuntimeException("the impossible happened", e);
       } finally {
         sessionManager.unreserveSession(sid);
+        TabletServerLatencyMetrics.multiScan.record(System.nanoTime() - t1);
       }
       
       return new InitialMultiScan(sid, result);
@@ -1325,10 +1322,12 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
         throw new NoSuchScanIDException();
       }
       
+      long t1 = System.nanoTime();
       try {
         return continueMultiScan(tinfo, scanID, session);
       } finally {
         sessionManager.unreserveSession(session);
+        TabletServerLatencyMetrics.multiScan.record(System.nanoTime() - t1);
       }
     }
     
@@ -1544,9 +1543,11 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
         while (true) {
           try {
             long t1 = System.currentTimeMillis();
+            long nanos = System.nanoTime();
             
             logger.logManyTablets(sendables);
             
+            TabletServerLatencyMetrics.walogWrite.record(System.nanoTime() - nanos);
             long t2 = System.currentTimeMillis();
             us.walogTimes.addStat(t2 - t1);
             if (updateMetrics.isEnabled())
@@ -2580,6 +2581,7 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
   private Instance instance;
   
   private final SortedMap<KeyExtent,Tablet> onlineTablets = Collections.synchronizedSortedMap(new TreeMap<KeyExtent,Tablet>());
+  protected final TabletServerHotSpotMetrics hotSpotMetrics = new TabletServerHotSpotMetrics(onlineTablets);
   private final SortedSet<KeyExtent> unopenedTablets = Collections.synchronizedSortedSet(new TreeSet<KeyExtent>());
   private final SortedSet<KeyExtent> openingTablets = Collections.synchronizedSortedSet(new TreeSet<KeyExtent>());
   @SuppressWarnings("unchecked")
@@ -2633,7 +2635,7 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
   
   private int startServer(AccumuloConfiguration conf, Property portHint, TProcessor processor, String threadName) throws UnknownHostException {
     ServerPort sp = TServerUtils.startServer(conf, portHint, processor, this.getClass().getSimpleName(), threadName, Property.TSERV_PORTSEARCH,
-        Property.TSERV_MINTHREADS, Property.TSERV_THREADCHECK, Property.GENERAL_MAX_MESSAGE_SIZE);
+        Property.TSERV_MINTHREADS, Property.TSERV_SELECTOR_THREADS, Property.TSERV_THREADCHECK, Property.GENERAL_MAX_MESSAGE_SIZE);
     this.server = sp.server;
     return sp.port;
   }
@@ -2778,6 +2780,8 @@ public class TabletServer extends AbstractMetricsImpl implements org.apache.accu
       StandardMBean mbean = new StandardMBean(this, TabletServerMBean.class, false);
       this.register(mbean);
       mincMetrics.register();
+      latencyMetrics.register();
+      hotSpotMetrics.register();
     } catch (Exception e) {
       log.error("Error registering with JMX", e);
     }
@@ -182,10 +182,9 @@ public class TabletServerResourceManager {
     defaultMigrationPool = createEs(0, 1, 60, "metadata tablet migration");
     migrationPool = createEs(Property.TSERV_MIGRATE_MAXCONCURRENT, "tablet migration");
     
-    // not sure if concurrent assignments can run safely... even if they could there is probably no benefit at startup because
-    // individual tablet servers are already running assignments concurrently... having each individual tablet server run
-    // concurrent assignments would put more load on the metadata table at startup
-    assignmentPool = createEs(1, "tablet assignment");
+    // concurrent assignments put more load on the metadata table at startup, but allow tablets that need recovery to replay their
+    // write-ahead logs in parallel
+    assignmentPool = createEs(Property.TSERV_ASSIGNMENT_MAXCONCURRENT, "tablet assignment");
     
     assignMetaDataPool = createEs(0, 1, 60, "metadata tablet assignment");
     
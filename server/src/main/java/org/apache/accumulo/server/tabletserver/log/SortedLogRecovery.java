@@ -24,7 +24,12 @@ import static org.apache.accumulo.server.logger.LogEvents.MUTATION;
 import static org.apache.accumulo.server.logger.LogEvents.OPEN;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.accumulo.core.data.KeyExtent;
@@ -42,6 +47,8 @@ import org.apache.log4j.Logger;
 /**
  * Extract Mutations for a tablet from a set of logs that have been sorted by operation and tablet.
  * 
+ * The portion of each log that precedes the mutations is summarized once and can be shared by all the tablets recovering from that log, so that each tablet
+ * only has to seek to its own mutations.
  */
 public class SortedLogRecovery {
   private static final Logger log = Logger.getLogger(SortedLogRecovery.class);
@@ -58,7 +65,46 @@ public class SortedLogRecovery {
     public UnusedException() { super(); }
   }
 
-  public SortedLogRecovery() {}
+  /**
+   * Everything in a sorted log that precedes the mutations: the session that wrote it, the tablet definitions and the compaction events. This is the same for
+   * every tablet recovering from the log, so it is read in a single pass and shared.
+   */
+  static class LogSummary {
+    boolean empty = false;
+    String tserverSession;
+    // the first definition of the largest tablet id assigned to each tablet
+    final Map<KeyExtent,LogFileKey> definitions = new HashMap<KeyExtent,LogFileKey>();
+    // compaction start/finish events for each tablet id, in sorted order
+    final Map<Integer,List<LogFileKey>> compactions = new HashMap<Integer,List<LogFileKey>>();
+    
+    List<LogFileKey> getCompactions(int tid) {
+      List<LogFileKey> events = compactions.get(tid);
+      if (events == null)
+        return Collections.emptyList();
+      return events;
+    }
+  }
+  
+  private final Map<String,LogSummary> summaries;
+  
+  public SortedLogRecovery() {
+    this(0);
+  }
+  
+  /**
+   * @param maxCachedSummaries
+   *          the number of log summaries to keep around for other tablets recovering from the same logs; zero disables caching
+   */
+  public SortedLogRecovery(final int maxCachedSummaries) {
+    summaries = new LinkedHashMap<String,LogSummary>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+      
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String,LogSummary> eldest) {
+        return size() > maxCachedSummaries;
+      }
+    };
+  }
   
   private enum Status {
     INITIAL, LOOKING_FOR_FINISH, COMPLETE
@@ -97,25 +143,15 @@ public class SortedLogRecovery {
     for (int i = 0; i < recoveryLogs.size(); i++) {
       String logfile = recoveryLogs.get(i);
       log.info("Looking at mutations from " + logfile + " for " + extent);
-      MultiReader reader = new MultiReader(fs, conf, logfile);
       try {
-        try {
-          tids[i] = findLastStartToFinish(reader, i, extent, tabletFiles, lastStartToFinish);
-        } catch (EmptyMapFileException ex) {
-          log.info("Ignoring empty map file " + logfile);
-          tids[i] = -1;
-        } catch (UnusedException ex) {
-          log.info("Ignoring log file " + logfile + " appears to be unused by " + extent);
-          tids[i] = -1;
-        }
-      } finally {
-        try {
-          reader.close();
-        } catch (IOException ex) {
-          log.warn("Ignoring error closing file");
-        }
+        tids[i] = findLastStartToFinish(getSummary(fs, conf, logfile), i, extent, tabletFiles, lastStartToFinish);
+      } catch (EmptyMapFileException ex) {
+        log.info("Ignoring empty map file " + logfile);
+        tids[i] = -1;
+      } catch (UnusedException ex) {
+        log.info("Ignoring log file " + logfile + " appears to be unused by " + extent);
+        tids[i] = -1;
       }
-      
     }
     
     if (lastStartToFinish.compactionStatus == Status.LOOKING_FOR_FINISH)
@@ -123,6 +159,9 @@ public class SortedLogRecovery {
     
     for (int i = 0; i < recoveryLogs.size(); i++) {
       String logfile = recoveryLogs.get(i);
+      // nothing in this log for the tablet, so there is no need to open it again
+      if (tids[i] < 0)
+        continue;
       MultiReader reader = new MultiReader(fs, conf, logfile);
       try {
         playbackMutations(reader, tids[i], lastStartToFinish, mr);
@@ -137,52 +176,92 @@ public class SortedLogRecovery {
     }
   }
   
-  int findLastStartToFinish(MultiReader reader, int fileno, KeyExtent extent, Set<String> tabletFiles, LastStartToFinish lastStartToFinish) throws IOException, EmptyMapFileException, UnusedException {
-    // Scan for tableId for this extent (should always be in the log)
+  private LogSummary getSummary(FileSystem fs, Configuration conf, String logfile) throws IOException {
+    LogSummary summary;
+    synchronized (summaries) {
+      summary = summaries.get(logfile);
+    }
+    if (summary != null)
+      return summary;
+    
+    // two tablets may race to read the same log; both get the same answer, so let them
+    MultiReader reader = new MultiReader(fs, conf, logfile);
+    try {
+      summary = readSummary(reader);
+    } finally {
+      try {
+        reader.close();
+      } catch (IOException ex) {
+        log.warn("Ignoring error closing file");
+      }
+    }
+    synchronized (summaries) {
+      summaries.put(logfile, summary);
+    }
+    return summary;
+  }
+  
+  static LogSummary readSummary(MultiReader reader) throws IOException {
+    LogSummary summary = new LogSummary();
     LogFileKey key = new LogFileKey();
     LogFileValue value = new LogFileValue();
-    int tid = -1;
-    if (!reader.next(key, value))
-      throw new EmptyMapFileException();
+    if (!reader.next(key, value)) {
+      summary.empty = true;
+      return summary;
+    }
     if (key.event != OPEN)
       throw new RuntimeException("First log entry value is not OPEN");
+    summary.tserverSession = key.tserverSession;
     
-    if (key.tserverSession.compareTo(lastStartToFinish.tserverSession) != 0) {
-      if (lastStartToFinish.compactionStatus == Status.LOOKING_FOR_FINISH)
-        throw new RuntimeException("COMPACTION_FINISH (without preceding COMPACTION_START) is not followed by a successful minor compaction.");
-      lastStartToFinish.update(key.tserverSession);
-    }
-    
-    LogFileKey defineKey = null;
-    
-    // find the maximum tablet id... because a tablet may leave a tserver and then come back, in which case it would have a different tablet id
-    // for the maximum tablet id, find the minimum sequence #... may be ok to find the max seq, but just want to make the code behave like it used to
+    // the log is sorted by event type, then tablet id, then sequence number, so everything needed comes before the first mutation
     while (reader.next(key, value)) {
-      // LogReader.printEntry(entry);
-      if (key.event != DEFINE_TABLET)
-        break;
-      if (key.tablet.equals(extent)) {
-        if (tid != key.tid) {
-          tid = key.tid;
-          defineKey = key;
+      if (key.event == DEFINE_TABLET) {
+        // a tablet may leave a tserver and then come back, in which case it would have a different tablet id... keep the definition with the
+        // minimum sequence number for the maximum tablet id
+        LogFileKey defineKey = summary.definitions.get(key.tablet);
+        if (defineKey == null || defineKey.tid != key.tid) {
+          summary.definitions.put(key.tablet, key);
           key = new LogFileKey();
         }
+      } else if (key.event == COMPACTION_START || key.event == COMPACTION_FINISH) {
+        List<LogFileKey> events = summary.compactions.get(key.tid);
+        if (events == null) {
+          events = new ArrayList<LogFileKey>();
+          summary.compactions.put(key.tid, events);
+        }
+        events.add(key);
+        key = new LogFileKey();
+      } else {
+        break;
       }
     }
-    if (tid < 0) {
+    return summary;
+  }
+  
+  int findLastStartToFinish(LogSummary summary, int fileno, KeyExtent extent, Set<String> tabletFiles, LastStartToFinish lastStartToFinish)
+      throws EmptyMapFileException, UnusedException {
+    if (summary.empty)
+      throw new EmptyMapFileException();
+    
+    if (summary.tserverSession.compareTo(lastStartToFinish.tserverSession) != 0) {
+      if (lastStartToFinish.compactionStatus == Status.LOOKING_FOR_FINISH)
+        throw new RuntimeException("COMPACTION_FINISH (without preceding COMPACTION_START) is not followed by a successful minor compaction.");
+      lastStartToFinish.update(summary.tserverSession);
+    }
+    
+    LogFileKey defineKey = summary.definitions.get(extent);
+    if (defineKey == null) {
       throw new UnusedException();
     }
+    int tid = defineKey.tid;
     
     log.debug("Found tid, seq " + tid + " " + defineKey.seq);
     
     // Scan start/stop events for this tablet
-    key = defineKey;
-    key.event = COMPACTION_START;
-    reader.seek(key);
-    while (reader.next(key, value)) {
-      // LogFileEntry.printEntry(entry);
-      if (key.tid != tid)
-        break;
+    for (LogFileKey key : summary.getCompactions(tid)) {
+      // only consider events after the tablet was defined
+      if (key.seq <= defineKey.seq)
+        continue;
       if (key.event == COMPACTION_START) {
         if (lastStartToFinish.compactionStatus == Status.INITIAL)
           lastStartToFinish.compactionStatus = Status.COMPLETE;
@@ -203,8 +282,7 @@ public class SortedLogRecovery {
         else
           lastStartToFinish.compactionStatus = Status.COMPLETE;
         lastStartToFinish.update(key.seq);
-      } else
-        break;
+      }
     }
     return tid;
   }
@@ -74,6 +74,10 @@ public class TabletServerLogger {
   
   private final AtomicInteger seqGen = new AtomicInteger();
   
+  // tablets recovering from the same logs share the summaries of those logs
+  private static final int MAX_CACHED_LOG_SUMMARIES = 100;
+  private final SortedLogRecovery recovery = new SortedLogRecovery(MAX_CACHED_LOG_SUMMARIES);
+  
   private static boolean enabled(Tablet tablet) {
     return tablet.getTableConfiguration().getBoolean(Property.TABLE_WALOG_ENABLED);
   }
@@ -417,7 +421,6 @@ public class TabletServerLogger {
     if (!enabled(tablet))
       return;
     try {
-      SortedLogRecovery recovery = new SortedLogRecovery();
       KeyExtent extent = tablet.getExtent();
       recovery.recover(extent, logs, tabletFiles, mr);
     } catch (Exception e) {
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.server.tabletserver.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.ObjectName;
+
+import org.apache.accumulo.core.data.ByteSequence;
+import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.KeyExtent;
+import org.apache.accumulo.server.metrics.AbstractMetricsImpl;
+import org.apache.accumulo.server.tabletserver.HotRowSketch;
+import org.apache.accumulo.server.tabletserver.Tablet;
+
+/**
+ * Publishes the hottest rows of the online tablets, as found by each tablet's {@link HotRowSketch}.
+ * 
+ * @since 1.6.0
+ */
+public class TabletServerHotSpotMetrics extends AbstractMetricsImpl implements TabletServerHotSpotMetricsMXBean {
+  
+  static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(TabletServerHotSpotMetrics.class);
+  
+  private static final String METRICS_PREFIX = "tserver.hotspot";
+  
+  private static final int MAX_HOT_ROWS = 20;
+  private static final int MAX_ROW_LENGTH = 64;
+  
+  private static ObjectName OBJECT_NAME = null;
+  
+  private final Map<KeyExtent,Tablet> onlineTablets;
+  
+  /**
+   * @param onlineTablets
+   *          the tablets of the tablet server, which must be synchronized on to iterate
+   */
+  public TabletServerHotSpotMetrics(Map<KeyExtent,Tablet> onlineTablets) {
+    super();
+    this.onlineTablets = onlineTablets;
+    try {
+      OBJECT_NAME = new ObjectName("accumulo.server.metrics:service=TServerInfo,name=TabletServerHotSpotMetricsMXBean,instance="
+          + Thread.currentThread().getName());
+    } catch (Exception e) {
+      log.error("Exception setting MBean object name", e);
+    }
+  }
+  
+  @Override
+  protected ObjectName getObjectName() {
+    return OBJECT_NAME;
+  }
+  
+  @Override
+  protected String getMetricsPrefix() {
+    return METRICS_PREFIX;
+  }
+  
+  @Override
+  public List<HotRow> getHotRows() {
+    List<Tablet> tablets;
+    synchronized (onlineTablets) {
+      tablets = new ArrayList<Tablet>(onlineTablets.values());
+    }
+    
+    List<HotRow> hotRows = new ArrayList<HotRow>();
+    for (Tablet tablet : tablets) {
+      HotRowSketch sketch = tablet.getHotRows();
+      long total = sketch.getTotal();
+      for (HotRowSketch.HotRow hotRow : sketch.getHotRows()) {
+        ByteSequence row = hotRow.getRow();
+        hotRows.add(new HotRow(tablet.getExtent().toString(), Key.toPrintableString(row.getBackingArray(), row.offset(), row.length(), MAX_ROW_LENGTH),
+            hotRow.getCount(), hotRow.getError(), total == 0 ? 0 : (double) hotRow.getCount() / total));
+      }
+    }
+    
+    Collections.sort(hotRows, new Comparator<HotRow>() {
+      @Override
+      public int compare(HotRow o1, HotRow o2) {
+        return o1.getCount() == o2.getCount() ? 0 : (o1.getCount() > o2.getCount() ? -1 : 1);
+      }
+    });
+    return hotRows.size() > MAX_HOT_ROWS ? new ArrayList<HotRow>(hotRows.subList(0, MAX_HOT_ROWS)) : hotRows;
+  }
+  
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.server.tabletserver.metrics;
+
+import java.beans.ConstructorProperties;
+import java.util.List;
+
+/**
+ * The rows of a tablet server that have been read and written most recently.
+ * 
+ * @since 1.6.0
+ */
+public interface TabletServerHotSpotMetricsMXBean {
+  
+  public static class HotRow {
+    private final String tablet;
+    private final String row;
+    private final long count;
+    private final long error;
+    private final double fraction;
+    
+    @ConstructorProperties({"tablet", "row", "count", "error", "fraction"})
+    public HotRow(String tablet, String row, long count, long error, double fraction) {
+      this.tablet = tablet;
+      this.row = row;
+      this.count = count;
+      this.error = error;
+      this.fraction = fraction;
+    }
+    
+    public String getTablet() {
+      return tablet;
+    }
+    
+    public String getRow() {
+      return row;
+    }
+    
+    /**
+     * @return the estimated number of entries recently read and written in the row, which may overestimate by up to the error
+     */
+    public long getCount() {
+      return count;
+    }
+    
+    public long getError() {
+      return error;
+    }
+    
+    /**
+     * @return the estimated fraction of the recent reads and writes of the tablet that were in this row
+     */
+    public double getFraction() {
+      return fraction;
+    }
+  }
+  
+  /**
+   * @return the rows with the most recent reads and writes over all online tablets, most first
+   */
+  public List<HotRow> getHotRows();
+  
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.server.tabletserver.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.ObjectName;
+
+import org.apache.accumulo.core.file.blockfile.impl.CachableBlockFile;
+import org.apache.accumulo.core.file.rfile.bcfile.BCFile;
+import org.apache.accumulo.core.util.LatencyHistogram;
+import org.apache.accumulo.core.util.LatencyHistogram.Snapshot;
+
+/**
+ * Publishes the latency histograms of a tablet server. Histograms are merged from the recording threads each time an attribute is read. Latencies are always
+ * recorded, so unlike the other tablet server metrics this bean does not depend on accumulo-metrics.xml.
+ * 
+ * @since 1.6.0
+ */
+public class TabletServerLatencyMetrics implements TabletServerLatencyMetricsMXBean {
+  
+  static final org.apache.log4j.Logger log = org.apache.log4j.Logger.getLogger(TabletServerLatencyMetrics.class);
+  
+  private static ObjectName OBJECT_NAME = null;
+  
+  public static final LatencyHistogram scan = LatencyHistogram.get("tserver.scan");
+  public static final LatencyHistogram multiScan = LatencyHistogram.get("tserver.multiscan");
+  public static final LatencyHistogram walogWrite = LatencyHistogram.get("tserver.walog.write");
+  public static final LatencyHistogram mincQueue = LatencyHistogram.get("tserver.minc.queue");
+  public static final LatencyHistogram minc = LatencyHistogram.get("tserver.minc");
+  public static final LatencyHistogram majcQueue = LatencyHistogram.get("tserver.majc.queue");
+  public static final LatencyHistogram majc = LatencyHistogram.get("tserver.majc");
+  
+  private static final LatencyHistogram blockLoad = LatencyHistogram.get(CachableBlockFile.BLOCK_LOAD_LATENCY);
+  private static final LatencyHistogram fileRead = LatencyHistogram.get(BCFile.READ_LATENCY);
+  
+  private static final LatencyHistogram[] histograms = {scan, multiScan, walogWrite, mincQueue, minc, majcQueue, majc, blockLoad, fileRead};
+  
+  public TabletServerLatencyMetrics() {
+    try {
+      OBJECT_NAME = new ObjectName("accumulo.server.metrics:service=TServerInfo,name=TabletServerLatencyMetricsMXBean,instance="
+          + Thread.currentThread().getName());
+    } catch (Exception e) {
+      log.error("Exception setting MBean object name", e);
+    }
+  }
+  
+  /**
+   * Registers this MXBean with the platform MBean server
+   */
+  public void register() throws Exception {
+    if (null == OBJECT_NAME)
+      throw new IllegalArgumentException("MBean object name must be set.");
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, OBJECT_NAME);
+  }
+  
+  private static double millis(double nanos) {
+    return nanos / 1000000.0;
+  }
+  
+  static Latency toLatency(LatencyHistogram histogram) {
+    Snapshot snapshot = histogram.getSnapshot();
+    return new Latency(snapshot.getCount(), millis(snapshot.getMean()), millis(snapshot.getPercentile(50)), millis(snapshot.getPercentile(90)),
+        millis(snapshot.getPercentile(99)), millis(snapshot.getPercentile(99.9)), millis(snapshot.getMax()));
+  }
+  
+  @Override
+  public Latency getScan() {
+    return toLatency(scan);
+  }
+  
+  @Override
+  public Latency getMultiScan() {
+    return toLatency(multiScan);
+  }
+  
+  @Override
+  public Latency getWalogWrite() {
+    return toLatency(walogWrite);
+  }
+  
+  @Override
+  public Latency getMinorCompactionQueue() {
+    return toLatency(mincQueue);
+  }
+  
+  @Override
+  public Latency getMinorCompaction() {
+    return toLatency(minc);
+  }
+  
+  @Override
+  public Latency getMajorCompactionQueue() {
+    return toLatency(majcQueue);
+  }
+  
+  @Override
+  public Latency getMajorCompaction() {
+    return toLatency(majc);
+  }
+  
+  @Override
+  public Latency getBlockLoad() {
+    return toLatency(blockLoad);
+  }
+  
+  @Override
+  public Latency getFileRead() {
+    return toLatency(fileRead);
+  }
+  
+  @Override
+  public void reset() {
+    for (LatencyHistogram histogram : histograms)
+      histogram.reset();
+  }
+  
+}
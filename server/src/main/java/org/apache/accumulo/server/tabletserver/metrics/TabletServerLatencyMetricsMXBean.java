@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.server.tabletserver.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Latency percentiles of tablet server operations, in milliseconds. Unlike the other tablet server metrics, these are always recorded.
+ * 
+ * @since 1.6.0
+ */
+public interface TabletServerLatencyMetricsMXBean {
+  
+  public static class Latency {
+    private final long count;
+    private final double mean;
+    private final double median;
+    private final double percentile90;
+    private final double percentile99;
+    private final double percentile999;
+    private final double max;
+    
+    @ConstructorProperties({"count", "mean", "median", "percentile90", "percentile99", "percentile999", "max"})
+    public Latency(long count, double mean, double median, double percentile90, double percentile99, double percentile999, double max) {
+      this.count = count;
+      this.mean = mean;
+      this.median = median;
+      this.percentile90 = percentile90;
+      this.percentile99 = percentile99;
+      this.percentile999 = percentile999;
+      this.max = max;
+    }
+    
+    public long getCount() {
+      return count;
+    }
+    
+    public double getMean() {
+      return mean;
+    }
+    
+    public double getMedian() {
+      return median;
+    }
+    
+    public double getPercentile90() {
+      return percentile90;
+    }
+    
+    public double getPercentile99() {
+      return percentile99;
+    }
+    
+    public double getPercentile999() {
+      return percentile999;
+    }
+    
+    public double getMax() {
+      return max;
+    }
+  }
+  
+  /**
+   * @return the time taken to return each batch of a scan
+   */
+  public Latency getScan();
+  
+  /**
+   * @return the time taken to return each batch of a batch scan
+   */
+  public Latency getMultiScan();
+  
+  /**
+   * @return the time taken to append and sync each group of mutations to the write ahead logs
+   */
+  public Latency getWalogWrite();
+  
+  public Latency getMinorCompactionQueue();
+  
+  public Latency getMinorCompaction();
+  
+  public Latency getMajorCompactionQueue();
+  
+  public Latency getMajorCompaction();
+  
+  /**
+   * @return the time taken to read and decompress each block loaded into the block caches
+   */
+  public Latency getBlockLoad();
+  
+  /**
+   * @return the time taken by each read of file data from the file system
+   */
+  public Latency getFileRead();
+  
+  public void reset();
+  
+}
@@ -51,6 +51,7 @@ public class ThriftMetrics extends AbstractMetricsImpl implements ThriftMetricsM
   public void reset() {
     createMetric(idle);
     createMetric(execute);
+    createMetric(queue);
   }
   
   public long getExecutionAvgTime() {
@@ -69,6 +70,22 @@ public class ThriftMetrics extends AbstractMetricsImpl implements ThriftMetricsM
     return this.getMetricMin(execute);
   }
   
+  public long getQueueAvgTime() {
+    return this.getMetricAvg(queue);
+  }
+  
+  public long getQueueCount() {
+    return this.getMetricCount(queue);
+  }
+  
+  public long getQueueMaxTime() {
+    return this.getMetricMax(queue);
+  }
+  
+  public long getQueueMinTime() {
+    return this.getMetricMin(queue);
+  }
+  
   public long getIdleAvgTime() {
     return this.getMetricAvg(idle);
   }
@@ -20,6 +20,7 @@ public interface ThriftMetricsMBean {
   
   public static final String idle = "idle";
   public static final String execute = "execute";
+  public static final String queue = "queue";
   
   public long getIdleCount();
   
@@ -37,6 +38,14 @@ public interface ThriftMetricsMBean {
   
   public long getExecutionAvgTime();
   
+  public long getQueueCount();
+  
+  public long getQueueMinTime();
+  
+  public long getQueueMaxTime();
+  
+  public long getQueueAvgTime();
+  
   public void reset();
   
 }
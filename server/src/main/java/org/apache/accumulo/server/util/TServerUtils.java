@@ -46,6 +46,7 @@ import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TThreadPoolServer;
 import org.apache.thrift.transport.TNonblockingServerSocket;
 import org.apache.thrift.transport.TNonblockingSocket;
+import org.apache.thrift.transport.TNonblockingTransport;
 import org.apache.thrift.transport.TServerTransport;
 import org.apache.thrift.transport.TTransport;
 import org.apache.thrift.transport.TTransportException;
@@ -78,6 +79,8 @@ public class TServerUtils {
    *          name this service's thread for better debugging
    * @param portSearchProperty
    * @param minThreadProperty
+   * @param selectorThreadsProperty
+   *          the number of threads reading and writing client connections, or null for one
    * @param timeBetweenThreadChecksProperty
    * @return the server object created, and the port actually used
    * @throws UnknownHostException
@@ -86,12 +89,16 @@ public class TServerUtils {
   public static ServerPort startServer(AccumuloConfiguration conf, Property portHintProperty, TProcessor processor, String serverName, String threadName,
       Property portSearchProperty,
       Property minThreadProperty, 
+      Property selectorThreadsProperty, 
       Property timeBetweenThreadChecksProperty, 
       Property maxMessageSizeProperty) throws UnknownHostException {
     int portHint = conf.getPort(portHintProperty);
     int minThreads = 2;
     if (minThreadProperty != null)
       minThreads = conf.getCount(minThreadProperty);
+    int selectorThreads = 1;
+    if (selectorThreadsProperty != null)
+      selectorThreads = conf.getCount(selectorThreadsProperty);
     long timeBetweenThreadChecks = 1000;
     if (timeBetweenThreadChecksProperty != null)
       timeBetweenThreadChecks = conf.getTimeInMillis(timeBetweenThreadChecksProperty);
@@ -116,7 +123,7 @@ public class TServerUtils {
         if (port > 65535)
           port = 1024 + port % (65535 - 1024);
         try {
-          return TServerUtils.startTServer(port, processor, serverName, threadName, minThreads, timeBetweenThreadChecks, maxMessageSize);
+          return TServerUtils.startTServer(port, processor, serverName, threadName, minThreads, selectorThreads, timeBetweenThreadChecks, maxMessageSize);
         } catch (Exception ex) {
           log.info("Unable to use port " + port + ", retrying. (Thread Name = " + threadName + ")");
           UtilWaitThread.sleep(250);
@@ -182,40 +189,89 @@ public class TServerUtils {
     }
   }
   
+  /**
+   * Runs a request on a worker thread, noting the client's address and how long the request waited for a worker thread.
+   */
+  private static abstract class Invocation implements Runnable {
+    
+    private final TNonblockingTransport trans;
+    private final ThriftMetrics metrics;
+    private final long queued = System.currentTimeMillis();
+    
+    public Invocation(TNonblockingTransport trans, ThriftMetrics metrics) {
+      this.trans = trans;
+      this.metrics = metrics;
+    }
+    
+    protected abstract void invoke();
+    
+    public void run() {
+      if (metrics != null && metrics.isEnabled())
+        metrics.add(ThriftMetrics.queue, System.currentTimeMillis() - queued);
+      if (trans instanceof TNonblockingSocket) {
+        TNonblockingSocket tsock = (TNonblockingSocket) trans;
+        Socket sock = tsock.getSocketChannel().socket();
+        clientAddress.set(sock.getInetAddress().getHostAddress() + ":" + sock.getPort());
+      }
+      invoke();
+    }
+  }
+  
   public static class THsHaServer extends org.apache.thrift.server.THsHaServer {
+    private final ThriftMetrics metrics;
+    
     public THsHaServer(Args args) {
+      this(args, null);
+    }
+    
+    public THsHaServer(Args args, ThriftMetrics metrics) {
       super(args);
+      this.metrics = metrics;
     }
     
-    protected Runnable getRunnable(FrameBuffer frameBuffer) {
-      return new Invocation(frameBuffer);
+    protected Runnable getRunnable(final FrameBuffer frameBuffer) {
+      return new Invocation(frameBuffer.trans_, metrics) {
+        @Override
+        protected void invoke() {
+          frameBuffer.invoke();
+        }
+      };
     }
+  }
+  
+  /**
+   * A nonblocking server that spreads client connections across several selector threads, instead of reading and writing every connection on one thread.
+   */
+  public static class TThreadedSelectorServer extends org.apache.thrift.server.TThreadedSelectorServer {
+    private final ThriftMetrics metrics;
     
-    private class Invocation implements Runnable {
-      
-      private final FrameBuffer frameBuffer;
-      
-      public Invocation(final FrameBuffer frameBuffer) {
-        this.frameBuffer = frameBuffer;
-      }
-      
-      public void run() {
-        if (frameBuffer.trans_ instanceof TNonblockingSocket) {
-          TNonblockingSocket tsock = (TNonblockingSocket) frameBuffer.trans_;
-          Socket sock = tsock.getSocketChannel().socket();
-          clientAddress.set(sock.getInetAddress().getHostAddress() + ":" + sock.getPort());
+    public TThreadedSelectorServer(Args args, ThriftMetrics metrics) {
+      super(args);
+      this.metrics = metrics;
+    }
+    
+    protected Runnable getRunnable(final FrameBuffer frameBuffer) {
+      return new Invocation(frameBuffer.trans_, metrics) {
+        @Override
+        protected void invoke() {
+          frameBuffer.invoke();
         }
-        frameBuffer.invoke();
-      }
+      };
     }
   }
   
   public static ServerPort startHsHaServer(int port, TProcessor processor, final String serverName, String threadName, final int numThreads,
       long timeBetweenThreadChecks, long maxMessageSize) throws TTransportException {
+    return startNonblockingServer(port, processor, serverName, threadName, numThreads, 1, timeBetweenThreadChecks, maxMessageSize);
+  }
+  
+  /**
+   * Creates a nonblocking server whose requests run on a thread pool that grows and shrinks with demand. With more than one selector thread, client
+   * connections are spread across that many threads.
+   */
+  public static ServerPort startNonblockingServer(int port, TProcessor processor, final String serverName, String threadName, final int numThreads,
+      int selectorThreads, long timeBetweenThreadChecks, long maxMessageSize) throws TTransportException {
     TNonblockingServerSocket transport = new TNonblockingServerSocket(port);
-    THsHaServer.Args options = new THsHaServer.Args(transport);
-    options.protocolFactory(ThriftUtil.protocolFactory());
-    options.transportFactory(ThriftUtil.transportFactory());
     /*
      * Create our own very special thread pool.
      */
@@ -244,10 +300,24 @@ public class TServerUtils {
         }
       }
     }, timeBetweenThreadChecks, timeBetweenThreadChecks);
+    TimedProcessor timedProcessor = new TServerUtils.TimedProcessor(processor, serverName, threadName);
+    
+    if (selectorThreads > 1) {
+      TThreadedSelectorServer.Args options = new TThreadedSelectorServer.Args(transport);
+      options.protocolFactory(ThriftUtil.protocolFactory());
+      options.transportFactory(ThriftUtil.transportFactory());
+      options.selectorThreads(selectorThreads);
+      options.executorService(pool);
+      options.processorFactory(new TProcessorFactory(timedProcessor));
+      return new ServerPort(new TThreadedSelectorServer(options, timedProcessor.metrics), port);
+    }
+    
+    THsHaServer.Args options = new THsHaServer.Args(transport);
+    options.protocolFactory(ThriftUtil.protocolFactory());
+    options.transportFactory(ThriftUtil.transportFactory());
     options.executorService(pool);
-    processor = new TServerUtils.TimedProcessor(processor, serverName, threadName);
-    options.processorFactory(new TProcessorFactory(processor));
-    return new ServerPort(new THsHaServer(options), port);
+    options.processorFactory(new TProcessorFactory(timedProcessor));
+    return new ServerPort(new THsHaServer(options, timedProcessor.metrics), port);
   }
   
   public static ServerPort startThreadPoolServer(int port, TProcessor processor, String serverName, String threadName, int numThreads)
@@ -274,7 +344,12 @@ public class TServerUtils {
   
   public static ServerPort startTServer(int port, TProcessor processor, String serverName, String threadName, int numThreads, long timeBetweenThreadChecks, long maxMessageSize)
       throws TTransportException {
-    ServerPort result = startHsHaServer(port, processor, serverName, threadName, numThreads, timeBetweenThreadChecks, maxMessageSize);
+    return startTServer(port, processor, serverName, threadName, numThreads, 1, timeBetweenThreadChecks, maxMessageSize);
+  }
+  
+  public static ServerPort startTServer(int port, TProcessor processor, String serverName, String threadName, int numThreads, int selectorThreads,
+      long timeBetweenThreadChecks, long maxMessageSize) throws TTransportException {
+    ServerPort result = startNonblockingServer(port, processor, serverName, threadName, numThreads, selectorThreads, timeBetweenThreadChecks, maxMessageSize);
     // ServerPort result = startThreadPoolServer(port, processor, serverName, threadName, -1);
     final TServer finalServer = result.server;
     Runnable serveTask = new Runnable() {
@@ -28,6 +28,9 @@ import org.apache.accumulo.core.client.Connector;
 import org.apache.accumulo.core.client.Instance;
 import org.apache.accumulo.core.client.Scanner;
 import org.apache.accumulo.core.client.mock.MockInstance;
+import org.apache.accumulo.core.conf.AccumuloConfiguration;
+import org.apache.accumulo.core.conf.ConfigurationCopy;
+import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
 import org.apache.accumulo.core.data.Value;
@@ -89,13 +92,53 @@ public class TestConfirmDeletes {
     test1(metadata, deletes, 1, 0);
   }
   
+  @Test
+  public void testParallelScan() throws Exception {
+    // references to files in other tables from every partition of the metadata table
+    String metadata[] = {"1636< file:/default_tablet/someFile 10,100", "1636< srv:dir /default_tablet", "1636< ~tab:~pr \0",
+        "2a< file:../9/default_tablet/otherFile 10,100", "2a< srv:dir /default_tablet", "2a< ~tab:~pr \0", "9;m file:/t-0001/thirdFile 10,100",
+        "9;m srv:dir /t-0001", "9;m ~tab:~pr \0", "9< srv:dir /default_tablet", "9< ~tab:~pr \1m"};
+    String deletes[] = {"~del/1636/default_tablet/someFile", "~del/1636/default_tablet/unusedFile", "~del/9/default_tablet/otherFile",
+        "~del/9/t-0001/thirdFile", "~del/9/t-0001/unusedFile"};
+    
+    ConfigurationCopy conf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    conf.set(Property.GC_SCAN_THREADS, "4");
+    test1(metadata, deletes, 5, 2, conf, "1636", "2a", "9");
+  }
+  
+  @Test
+  public void testCandidateBatches() throws Exception {
+    String metadata[] = {"1636< file:/default_tablet/someFile 10,100", "1636< srv:dir /default_tablet", "1636< ~tab:~pr \0"};
+    String deletes[] = {"~del/1636/default_tablet/file1", "~del/1636/default_tablet/file2", "~del/1636/default_tablet/file3"};
+    
+    Credential auth = CredentialHelper.create("root", new PasswordToken().setPassword(new byte[0]), "instance");
+    MockInstance instance = new MockInstance();
+    ConfigurationCopy conf = new ConfigurationCopy(AccumuloConfiguration.getDefaultConfiguration());
+    conf.set(Property.GC_CANDIDATE_BATCH_SIZE, "2");
+    instance.setConfiguration(conf);
+    load(instance, metadata, deletes);
+    
+    SimpleGarbageCollector gc = new SimpleGarbageCollector();
+    gc.init(FileSystem.getLocal(CachedConfiguration.getInstance()), instance, auth, false);
+    Assert.assertEquals(newSet("/1636/default_tablet/file1", "/1636/default_tablet/file2"), gc.getCandidates());
+    Assert.assertEquals(newSet("/1636/default_tablet/file3"), gc.getCandidates());
+    Assert.assertEquals(2, gc.getCandidates().size());
+  }
+  
   private void test1(String[] metadata, String[] deletes, int expectedInitial, int expected) throws Exception {
+    test1(metadata, deletes, expectedInitial, expected, AccumuloConfiguration.getDefaultConfiguration());
+  }
+  
+  private void test1(String[] metadata, String[] deletes, int expectedInitial, int expected, AccumuloConfiguration conf, String... tables) throws Exception {
     Credential auth = CredentialHelper.create("root", new PasswordToken().setPassword(new byte[0]), "instance");
     
-    Instance instance = new MockInstance();
+    MockInstance instance = new MockInstance();
+    instance.setConfiguration(conf);
     FileSystem fs = FileSystem.getLocal(CachedConfiguration.getInstance());
     
     load(instance, metadata, deletes);
+    for (String table : tables)
+      instance.getConnector(auth.getPrincipal(), CredentialHelper.extractToken(auth)).tableOperations().create(table);
     
     SimpleGarbageCollector gc = new SimpleGarbageCollector();
     gc.init(fs, instance, auth, false);
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.server.tabletserver;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.apache.accumulo.core.data.ArrayByteSequence;
+import org.apache.accumulo.server.tabletserver.HotRowSketch.HotRow;
+import org.apache.hadoop.io.Text;
+
+public class HotRowSketchTest extends TestCase {
+  
+  private static byte[] row(int i) {
+    return String.format("r%04d", i).getBytes();
+  }
+  
+  public void testHeavyHitters() {
+    HotRowSketch sketch = new HotRowSketch(10);
+    Random random = new Random(42);
+    
+    // two hot rows among many cold ones
+    for (int i = 0; i < 10000; i++) {
+      if (i % 4 == 0)
+        sketch.offer(row(7), 1);
+      else if (i % 4 == 1)
+        sketch.offer(row(500), 2);
+      else
+        sketch.offer(row(1000 + random.nextInt(5000)), 1);
+    }
+    
+    assertEquals(12500, sketch.getTotal());
+    List<HotRow> hotRows = sketch.getHotRows();
+    assertEquals(10, hotRows.size());
+    assertEquals(new ArrayByteSequence(row(500)), hotRows.get(0).getRow());
+    assertEquals(new ArrayByteSequence(row(7)), hotRows.get(1).getRow());
+    
+    // counts never underestimate, and overestimate by no more than the error
+    assertTrue(hotRows.get(0).getCount() >= 5000);
+    assertTrue(hotRows.get(0).getCount() - hotRows.get(0).getError() <= 5000);
+    assertTrue(hotRows.get(1).getCount() >= 2500);
+    assertTrue(hotRows.get(1).getCount() - hotRows.get(1).getError() <= 2500);
+    
+    // the bytes offered may be reused
+    byte[] reused = row(7);
+    sketch.offer(reused, 1);
+    reused[1] = 'x';
+    assertEquals(new ArrayByteSequence(row(7)), sketch.getHotRows().get(1).getRow());
+  }
+  
+  public void testLongRows() {
+    HotRowSketch sketch = new HotRowSketch(4);
+    byte[] longRow = new byte[HotRowSketch.MAX_ROW_LENGTH * 4];
+    byte[] otherLongRow = longRow.clone();
+    otherLongRow[otherLongRow.length - 1] = 1;
+    
+    // rows are counted by a bounded prefix, however they are offered
+    sketch.offer(longRow, 1);
+    sketch.offer(new ArrayByteSequence(otherLongRow), 2);
+    List<HotRow> hotRows = sketch.getHotRows();
+    assertEquals(1, hotRows.size());
+    assertEquals(3, hotRows.get(0).getCount());
+    assertEquals(HotRowSketch.MAX_ROW_LENGTH, hotRows.get(0).getRow().length());
+  }
+  
+  public void testDecay() {
+    HotRowSketch sketch = new HotRowSketch(4);
+    sketch.offer(row(1), 100);
+    long now = System.currentTimeMillis();
+    sketch.decay(now + HotRowSketch.HALF_LIFE_MILLIS / 2);
+    assertEquals(100, sketch.getTotal());
+    sketch.decay(now + HotRowSketch.HALF_LIFE_MILLIS);
+    assertEquals(50, sketch.getTotal());
+    assertEquals(50, sketch.getHotRows().get(0).getCount());
+  }
+  
+  public void testLoadSplitRow() {
+    HotRowSketch sketch = new HotRowSketch(8);
+    assertNull(sketch.findLoadSplitRow());
+    
+    // most of the load is in the last few rows, so the split should be near them rather than in the middle of the rows
+    for (int i = 0; i < 8; i++)
+      sketch.offer(row(i), i < 5 ? 10 : 1000);
+    assertEquals(new Text(row(5)), sketch.findLoadSplitRow());
+    
+    // the load of a single row can not be divided, so the split is next to it
+    sketch = new HotRowSketch(8);
+    sketch.offer(row(1), 10);
+    sketch.offer(row(2), 10000);
+    sketch.offer(row(3), 10);
+    assertEquals(new Text(row(1)), sketch.findLoadSplitRow());
+    
+    // no split when the load is spread over more rows than are counted
+    sketch = new HotRowSketch(4);
+    for (int i = 0; i < 10000; i++)
+      sketch.offer(row(i), 1);
+    assertNull(sketch.findLoadSplitRow());
+  }
+}
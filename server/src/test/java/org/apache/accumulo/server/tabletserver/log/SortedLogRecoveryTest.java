@@ -115,6 +115,11 @@ public class SortedLogRecoveryTest {
   }
   
   private static List<Mutation> recover(Map<String,KeyValue[]> logs, Set<String> files, KeyExtent extent) throws IOException {
+    return recover(logs, files, new SortedLogRecovery(), extent).get(0);
+  }
+  
+  private static List<List<Mutation>> recover(Map<String,KeyValue[]> logs, Set<String> files, SortedLogRecovery recovery, KeyExtent... extents)
+      throws IOException {
     final String workdir = "workdir";
     Configuration conf = CachedConfiguration.getInstance();
     FileSystem local = FileSystem.getLocal(conf).getRaw();
@@ -132,10 +137,13 @@ public class SortedLogRecoveryTest {
         dirs.add(path);
       }
       // Recover
-      SortedLogRecovery recovery = new SortedLogRecovery();
-      CaptureMutations capture = new CaptureMutations();
-      recovery.recover(extent, dirs, files, capture);
-      return capture.result;
+      List<List<Mutation>> result = new ArrayList<List<Mutation>>();
+      for (KeyExtent extent : extents) {
+        CaptureMutations capture = new CaptureMutations();
+        recovery.recover(extent, dirs, files, capture);
+        result.add(capture.result);
+      }
+      return result;
     } finally {
       local.delete(new Path(workdir), true);
     }
@@ -598,4 +606,32 @@ public class SortedLogRecoveryTest {
     Assert.assertEquals(1, mutations.size());
     Assert.assertEquals(m, mutations.get(0));
   }
+  
+  @Test
+  public void testSharedLogSummaries() throws IOException {
+    // tablets recovering from the same logs share a summary of each log
+    KeyExtent extent2 = new KeyExtent(new Text("table2"), null, null);
+    Mutation ignored = new ServerMutation(new Text("ignored"));
+    ignored.put(cf, cq, value);
+    Mutation m = new ServerMutation(new Text("row1"));
+    m.put(cf, cq, value);
+    Mutation m2 = new ServerMutation(new Text("row2"));
+    m2.put(cf, cq, value);
+    Mutation m3 = new ServerMutation(new Text("row3"));
+    m3.put(cf, cq, value);
+    KeyValue entries[] = new KeyValue[] {createKeyValue(OPEN, 0, -1, "1"), createKeyValue(DEFINE_TABLET, 1, 1, extent),
+        createKeyValue(DEFINE_TABLET, 2, 2, extent2), createKeyValue(COMPACTION_START, 4, 1, "somefile"), createKeyValue(COMPACTION_FINISH, 5, 1, null),
+        createKeyValue(MUTATION, 3, 1, ignored), createKeyValue(MUTATION, 6, 1, m), createKeyValue(MUTATION, 7, 2, m2),};
+    KeyValue entries2[] = new KeyValue[] {createKeyValue(OPEN, 8, -1, "1"), createKeyValue(DEFINE_TABLET, 9, 2, extent2),
+        createKeyValue(MUTATION, 10, 2, m3),};
+    Map<String,KeyValue[]> logs = new TreeMap<String,KeyValue[]>();
+    logs.put("entries", entries);
+    logs.put("entries2", entries2);
+    
+    List<List<Mutation>> mutations = recover(logs, new HashSet<String>(), new SortedLogRecovery(10), extent, extent2, extent);
+    
+    Assert.assertEquals(Arrays.asList(m), mutations.get(0));
+    Assert.assertEquals(Arrays.asList(m2, m3), mutations.get(1));
+    Assert.assertEquals(Arrays.asList(m), mutations.get(2));
+  }
 }
@@ -22,14 +22,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Random;
 import java.util.TreeMap;
 import java.util.Map.Entry;
 
 import org.apache.accumulo.core.data.Key;
+import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.SortedKeyValueIterator;
+import org.apache.accumulo.core.util.LocalityGroupUtil;
 import org.apache.accumulo.core.util.Pair;
 import org.apache.accumulo.server.tabletserver.NativeMap;
 import org.apache.hadoop.io.Text;
@@ -86,6 +90,8 @@ public class NativeMapTest {
     nmt.testBinary();
     nmt.testEmpty();
     nmt.testConcurrentIter();
+    nmt.testSeekForward();
+    nmt.testMutateBatch();
   }
   
   // END JUnit methods
@@ -650,4 +656,88 @@ public class NativeMapTest {
     
     nm.delete();
   }
+  
+  public void testSeekForward() throws IOException {
+    NativeMap nm = new NativeMap();
+    
+    for (int i = 0; i < 100; i += 2)
+      nm.put(nk(i), nv(i));
+    
+    SortedKeyValueIterator<Key,Value> iter = nm.skvIterator();
+    
+    // seeking forward through many point ranges, some of which are not present
+    for (int i = 0; i < 100; i++) {
+      iter.seek(new Range(nk(i), true, nk(i), true), LocalityGroupUtil.EMPTY_CF_SET, false);
+      if (i % 2 == 0) {
+        assertTrue(iter.hasTop());
+        assertEquals(nk(i), iter.getTopKey());
+        assertEquals(nv(i), iter.getTopValue());
+        iter.next();
+      }
+      assertFalse(iter.hasTop());
+    }
+    
+    // seeking backward
+    iter.seek(new Range(nk(10), true, nk(12), true), LocalityGroupUtil.EMPTY_CF_SET, false);
+    assertTrue(iter.hasTop());
+    assertEquals(nk(10), iter.getTopKey());
+    iter.next();
+    assertTrue(iter.hasTop());
+    assertEquals(nk(12), iter.getTopKey());
+    iter.next();
+    assertFalse(iter.hasTop());
+    
+    nm.delete();
+  }
+  
+  public void testMutateBatch() throws IOException {
+    NativeMap nm = new NativeMap();
+    TreeMap<Key,Value> expected = new TreeMap<Key,Value>();
+    
+    // enough small mutations to need several batches, some of which are too large to fit in one
+    List<Mutation> mutations = new ArrayList<Mutation>();
+    Random r = new Random(42);
+    for (int i = 0; i < 2000; i++) {
+      int row = (i * 7919) % 2000;
+      Mutation m = new Mutation(new Text(String.format("r%09d", row)));
+      int numCols = i % 100 == 0 ? 50 : 1 + r.nextInt(3);
+      for (int c = 0; c < numCols; c++) {
+        byte val[] = new byte[i % 250 == 0 ? 40000 : r.nextInt(20)];
+        r.nextBytes(val);
+        m.put(new Text(String.format("cf%03d", c)), new Text(String.format("cq%03d", c % 7)), 5, new Value(val));
+        expected.put(nk(row, c, c % 7, 5), new Value(val));
+      }
+      mutations.add(m);
+    }
+    
+    nm.mutate(mutations, 1);
+    assertEquals(expected.size(), nm.size());
+    
+    // read everything back through the batched reads, as well as a seek into the middle
+    Iterator<Entry<Key,Value>> iter = nm.iterator();
+    for (Entry<Key,Value> entry : expected.entrySet()) {
+      assertTrue(iter.hasNext());
+      Entry<Key,Value> actual = iter.next();
+      assertEquals(entry.getKey(), new Key(actual.getKey()));
+      assertEquals(entry.getValue(), actual.getValue());
+    }
+    assertFalse(iter.hasNext());
+    
+    Key middle = expected.keySet().toArray(new Key[0])[expected.size() / 2];
+    SortedKeyValueIterator<Key,Value> skvi = nm.skvIterator();
+    skvi.seek(new Range(middle, null), LocalityGroupUtil.EMPTY_CF_SET, false);
+    for (Entry<Key,Value> entry : expected.tailMap(middle).entrySet()) {
+      assertTrue(skvi.hasTop());
+      assertEquals(entry.getKey(), new Key(skvi.getTopKey()));
+      assertEquals(entry.getValue(), skvi.getTopValue());
+      skvi.next();
+    }
+    assertFalse(skvi.hasTop());
+    
+    nm.delete();
+  }
+  
+  private Key nk(int r, int cf, int cq, int ts) {
+    return new Key(new Text(String.format("r%09d", r)), new Text(String.format("cf%03d", cf)), new Text(String.format("cq%03d", cq)), ts);
+  }
 }
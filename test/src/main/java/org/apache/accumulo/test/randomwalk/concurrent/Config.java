@@ -62,6 +62,7 @@ public class Config extends Test {
       s(Property.TSERV_MAXMEM, 1000000, 3*1024*1024*1024L),
       s(Property.TSERV_READ_AHEAD_MAXCONCURRENT, 1, 25),
       s(Property.TSERV_MIGRATE_MAXCONCURRENT, 1, 10),
+      s(Property.TSERV_ASSIGNMENT_MAXCONCURRENT, 1, 10),
       s(Property.TSERV_MUTATION_QUEUE_MAX, 10000, 1024*1024),
       s(Property.TSERV_RECOVERY_MAX_CONCURRENT, 1, 100),
       s(Property.TSERV_SCAN_MAX_OPENFILES, 10, 1000),
@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.Map.Entry;
 import java.util.UUID;
 
+import org.apache.accumulo.core.client.BatchScanner;
 import org.apache.accumulo.core.client.BatchWriter;
 import org.apache.accumulo.core.client.BatchWriterConfig;
 import org.apache.accumulo.core.client.Connector;
@@ -30,13 +31,16 @@ import org.apache.accumulo.core.client.ZooKeeperInstance;
 import org.apache.accumulo.core.conf.Property;
 import org.apache.accumulo.core.data.Key;
 import org.apache.accumulo.core.data.Mutation;
+import org.apache.accumulo.core.data.Range;
 import org.apache.accumulo.core.data.Value;
 import org.apache.accumulo.core.iterators.LongCombiner;
+import org.apache.accumulo.core.iterators.user.GrepIterator;
 import org.apache.accumulo.core.iterators.user.SummingCombiner;
 import org.apache.accumulo.core.security.Authorizations;
 import org.apache.accumulo.core.security.ColumnVisibility;
 import org.apache.accumulo.core.security.TablePermission;
 import org.apache.accumulo.core.security.tokens.PasswordToken;
+import org.apache.accumulo.core.util.UtilWaitThread;
 import org.apache.commons.io.FileUtils;
 import org.apache.log4j.Level;
 import org.apache.log4j.Logger;
@@ -133,6 +137,24 @@ public class MiniAccumuloClusterTest {
     
     Assert.assertEquals(4, count);
     
+    count = 0;
+    BatchScanner bs = uconn.createBatchScanner("table1", new Authorizations("A", "B"), 2);
+    bs.setRanges(Collections.singletonList(new Range()));
+    for (@SuppressWarnings("unused")
+    Entry<Key,Value> entry : bs) {
+      count++;
+    }
+    bs.close();
+    
+    Assert.assertEquals(4, count);
+    
+    // scanning with authorizations the user does not have should fail
+    scanner = uconn.createScanner("table1", new Authorizations("A", "C"));
+    try {
+      scanner.iterator().hasNext();
+      Assert.fail();
+    } catch (RuntimeException e) {}
+    
     conn.tableOperations().delete("table1");
   }
   
@@ -182,6 +204,53 @@ public class MiniAccumuloClusterTest {
 
   }
 
+  private static int count(Scanner scanner) {
+    int count = 0;
+    for (@SuppressWarnings("unused")
+    Entry<Key,Value> entry : scanner)
+      count++;
+    return count;
+  }
+  
+  @Test(timeout = 60000)
+  public void testInheritedScanIterator() throws Exception {
+    Connector conn = new ZooKeeperInstance(accumulo.getInstanceName(), accumulo.getZooKeepers()).getConnector("root", "superSecret");
+    
+    conn.tableOperations().create("table3");
+    
+    BatchWriter bw = conn.createBatchWriter("table3", new BatchWriterConfig());
+    Mutation m = new Mutation("foo");
+    m.put("cf1", "cq1", "v1");
+    bw.addMutation(m);
+    m = new Mutation("bar");
+    m.put("cf1", "cq1", "v2");
+    bw.addMutation(m);
+    bw.close();
+    
+    Scanner scanner = conn.createScanner("table3", new Authorizations());
+    Assert.assertEquals(2, count(scanner));
+    
+    // a scan iterator set for the whole system applies to the table once the tablet server sees the change
+    String iterProp = Property.TABLE_ITERATOR_PREFIX.getKey() + "scan.grep";
+    conn.instanceOperations().setProperty(iterProp + ".opt.term", "foo");
+    conn.instanceOperations().setProperty(iterProp, "50," + GrepIterator.class.getName());
+    while (count(scanner) != 1)
+      UtilWaitThread.sleep(100);
+    
+    // as does its option changing
+    conn.instanceOperations().setProperty(iterProp + ".opt.term", "bar");
+    while (!scanner.iterator().next().getKey().getRow().toString().equals("bar"))
+      UtilWaitThread.sleep(100);
+    
+    // and its removal
+    conn.instanceOperations().removeProperty(iterProp);
+    conn.instanceOperations().removeProperty(iterProp + ".opt.term");
+    while (count(scanner) != 2)
+      UtilWaitThread.sleep(100);
+    
+    conn.tableOperations().delete("table3");
+  }
+  
   @AfterClass
   public static void tearDownMiniCluster() throws Exception {
     accumulo.stop();
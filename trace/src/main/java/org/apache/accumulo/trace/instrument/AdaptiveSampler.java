@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.trace.instrument;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sampler that traces each operation at up to a fixed rate, no matter how often the operation is called. When an operation is seen to be slow, its rate is
+ * raised for a while so that the slow calls are more likely to be traced.
+ * 
+ * Given to {@link Trace#wrapAll(Object, Sampler)}, each method of the wrapped object is sampled as its own operation.
+ * 
+ * @since 1.6.0
+ */
+public class AdaptiveSampler implements Sampler {
+  
+  static final String DEFAULT_OPERATION = "";
+  
+  // how long, and by how much, the rate of an operation is raised after a slow call
+  static final long BOOST_MILLIS = 10 * 1000;
+  static final int BOOST_FACTOR = 10;
+  
+  private static class OperationRate {
+    double tokens;
+    long lastRefill;
+    long boostedUntil = 0;
+    
+    OperationRate(double tokens, long now) {
+      this.tokens = tokens;
+      this.lastRefill = now;
+    }
+  }
+  
+  private final double tracesPerSecond;
+  private final long slowMillis;
+  private final ConcurrentHashMap<String,OperationRate> rates = new ConcurrentHashMap<String,OperationRate>();
+  
+  /**
+   * @param tracesPerSecond
+   *          the most traces to start per second for each operation, when it is not slow
+   * @param slowMillis
+   *          calls taking at least this long raise the rate of their operation; 0 to never raise it
+   */
+  public AdaptiveSampler(double tracesPerSecond, long slowMillis) {
+    if (tracesPerSecond <= 0)
+      throw new IllegalArgumentException("tracesPerSecond must be positive " + tracesPerSecond);
+    this.tracesPerSecond = tracesPerSecond;
+    this.slowMillis = slowMillis;
+  }
+  
+  protected long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+  
+  private OperationRate getRate(String operation, long now) {
+    OperationRate rate = rates.get(operation);
+    if (rate == null) {
+      // start with a single token, so the first call of an operation is traced
+      rates.putIfAbsent(operation, new OperationRate(1, now));
+      rate = rates.get(operation);
+    }
+    return rate;
+  }
+  
+  @Override
+  public boolean next() {
+    return next(DEFAULT_OPERATION);
+  }
+  
+  /**
+   * @return true if the next call of the given operation should be traced
+   */
+  public boolean next(String operation) {
+    long now = currentTimeMillis();
+    OperationRate rate = getRate(operation, now);
+    synchronized (rate) {
+      double perSecond = now < rate.boostedUntil ? tracesPerSecond * BOOST_FACTOR : tracesPerSecond;
+      // allow bursts of up to a second's worth of traces
+      rate.tokens = Math.min(Math.max(1, perSecond), rate.tokens + (now - rate.lastRefill) * perSecond / 1000);
+      rate.lastRefill = now;
+      if (rate.tokens >= 1) {
+        rate.tokens -= 1;
+        return true;
+      }
+      return false;
+    }
+  }
+  
+  /**
+   * Reports how long a call of the given operation took, whether or not it was traced.
+   */
+  public void observe(String operation, long millis) {
+    if (slowMillis <= 0 || millis < slowMillis)
+      return;
+    long now = currentTimeMillis();
+    OperationRate rate = getRate(operation, now);
+    synchronized (rate) {
+      rate.boostedUntil = now + BOOST_MILLIS;
+    }
+  }
+}
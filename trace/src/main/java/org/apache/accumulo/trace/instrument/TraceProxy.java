@@ -39,6 +39,8 @@ public class TraceProxy {
     InvocationHandler handler = new InvocationHandler() {
       @Override
       public Object invoke(Object obj, Method method, Object[] args) throws Throwable {
+        if (sampler instanceof AdaptiveSampler)
+          return invokeAdaptive((AdaptiveSampler) sampler, instance, method, args);
         if (!sampler.next()) {
           return method.invoke(instance, args);
         }
@@ -56,4 +58,22 @@ public class TraceProxy {
     return (T) Proxy.newProxyInstance(instance.getClass().getClassLoader(), instance.getClass().getInterfaces(), handler);
   }
   
+  // samples each method separately, and tells the sampler how long every call took so slow methods are traced more often
+  private static Object invokeAdaptive(AdaptiveSampler sampler, Object instance, Method method, Object[] args) throws Throwable {
+    String operation = method.getName();
+    Span span = sampler.next(operation) ? Trace.on(operation) : null;
+    long start = System.currentTimeMillis();
+    try {
+      return method.invoke(instance, args);
+    } catch (Throwable ex) {
+      if (span != null)
+        ex.printStackTrace();
+      throw ex;
+    } finally {
+      if (span != null)
+        span.stop();
+      sampler.observe(operation, System.currentTimeMillis() - start);
+    }
+  }
+  
 }
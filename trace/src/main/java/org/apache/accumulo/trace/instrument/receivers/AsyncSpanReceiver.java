@@ -18,10 +18,15 @@ package org.apache.accumulo.trace.instrument.receivers;
 
 import java.util.AbstractQueue;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.accumulo.trace.thrift.RemoteSpan;
 import org.apache.log4j.Logger;
@@ -33,12 +38,18 @@ import org.apache.log4j.Logger;
  * <li>Send host and service information with the span.
  * <li>Cache Destination objects by some key that can be extracted from the span.
  * <li>Can be used to queue spans up for delivery over RPC, or for saving into a file.
+ * <li>Send queued spans in batches, flushing each destination once per batch. A batch is sent when the timer fires, or sooner if enough spans are queued.
  * </ul>
  */
 public abstract class AsyncSpanReceiver<SpanKey,Destination> implements SpanReceiver {
   
   private static final Logger log = Logger.getLogger(AsyncSpanReceiver.class);
   
+  // once this many spans are queued they are sent without waiting for the timer
+  static final int BATCH_SIZE = 1000;
+  // spans are dropped rather than queued beyond this, so an unreachable destination can not use up memory
+  static final int MAX_QUEUED_SPANS = 50 * BATCH_SIZE;
+  
   private final Map<SpanKey,Destination> clients = new HashMap<SpanKey,Destination>();
   
   protected final String host;
@@ -50,59 +61,93 @@ public abstract class AsyncSpanReceiver<SpanKey,Destination> implements SpanRece
   
   protected abstract SpanKey getSpanKey(Map<String,String> data);
   
+  /**
+   * Called after a batch of spans has been given to {@link #send(Object, RemoteSpan)}, for destinations that buffer what they are sent.
+   */
+  protected void flush(Destination resource) throws Exception {}
+  
   Timer timer = new Timer("SpanSender", true);
   final AbstractQueue<RemoteSpan> sendQueue = new ConcurrentLinkedQueue<RemoteSpan>();
+  // spans queued and not yet flushed to their destination; flush() waits for this to reach zero
+  final AtomicInteger queued = new AtomicInteger(0);
+  private final AtomicBoolean sendScheduled = new AtomicBoolean(false);
+  private final AtomicLong dropped = new AtomicLong(0);
+  
+  private class SendTask extends TimerTask {
+    @Override
+    public void run() {
+      sendScheduled.set(false);
+      try {
+        sendSpans();
+      } catch (Exception ex) {
+        log.warn("Exception sending spans to destination", ex);
+      }
+    }
+  }
   
   public AsyncSpanReceiver(String host, String service, long millis) {
     this.host = host;
     this.service = service;
-    timer.schedule(new TimerTask() {
-      @Override
-      public void run() {
-        try {
-          sendSpans();
-        } catch (Exception ex) {
-          log.warn("Exception sending spans to destination", ex);
-        }
-      }
-      
-    }, millis, millis);
+    timer.schedule(new SendTask(), millis, millis);
   }
   
   void sendSpans() {
-    while (!sendQueue.isEmpty()) {
-      boolean sent = false;
-      RemoteSpan s = sendQueue.peek();
-      if (s.stop - s.start < 1) {
-        synchronized (sendQueue) {
+    long droppedSpans = dropped.getAndSet(0);
+    if (droppedSpans > 0)
+      log.warn("Dropped " + droppedSpans + " spans because more than " + MAX_QUEUED_SPANS + " were waiting to be sent");
+    
+    Set<Destination> sentTo = new HashSet<Destination>();
+    int removed = 0;
+    try {
+      while (!sendQueue.isEmpty()) {
+        boolean sent = false;
+        RemoteSpan s = sendQueue.peek();
+        if (s.stop - s.start < 1) {
           sendQueue.remove();
-          sendQueue.notifyAll();
+          removed++;
+          continue;
         }
-        continue;
-      }
-      SpanKey dest = getSpanKey(s.data);
-      Destination client = clients.get(dest);
-      if (client == null) {
-        try {
-          clients.put(dest, createDestination(dest));
-        } catch (Exception ex) {
-          log.warn("Exception creating connection to span receiver", ex);
+        SpanKey dest = getSpanKey(s.data);
+        Destination client = clients.get(dest);
+        if (client == null) {
+          try {
+            client = createDestination(dest);
+            clients.put(dest, client);
+          } catch (Exception ex) {
+            log.warn("Exception creating connection to span receiver", ex);
+          }
         }
-      }
-      if (client != null) {
-        try {
-          send(client, s);
-          synchronized (sendQueue) {
+        if (client != null) {
+          try {
+            send(client, s);
             sendQueue.remove();
-            sendQueue.notifyAll();
+            removed++;
+            sentTo.add(client);
+            sent = true;
+          } catch (Exception ex) {
+            log.error(ex, ex);
           }
-          sent = true;
+        }
+        if (!sent)
+          break;
+      }
+    } finally {
+      for (Destination client : sentTo) {
+        try {
+          flush(client);
         } catch (Exception ex) {
           log.error(ex, ex);
         }
       }
-      if (!sent)
-        break;
+      if (removed > 0)
+        removed(removed);
+    }
+  }
+  
+  void removed(int count) {
+    synchronized (sendQueue) {
+      queued.addAndGet(-count);
+      sendQueue.notifyAll();
     }
   }
   
@@ -111,14 +156,20 @@ public abstract class AsyncSpanReceiver<SpanKey,Destination> implements SpanRece
     
     SpanKey dest = getSpanKey(data);
     if (dest != null) {
+      if (queued.get() >= MAX_QUEUED_SPANS) {
+        dropped.incrementAndGet();
+        return;
+      }
       sendQueue.add(new RemoteSpan(host, service, traceId, spanId, parentId, start, stop, description, data));
+      if (queued.incrementAndGet() >= BATCH_SIZE && sendScheduled.compareAndSet(false, true))
+        timer.schedule(new SendTask(), 0);
     }
   }
   
   @Override
   public void flush() {
     synchronized (sendQueue) {
-      while (!sendQueue.isEmpty()) {
+      while (queued.get() > 0) {
         try {
           sendQueue.wait();
         } catch (InterruptedException e) {
@@ -16,6 +16,8 @@
  */
 package org.apache.accumulo.trace.instrument.receivers;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.util.Map;
@@ -24,8 +26,9 @@ import org.apache.accumulo.trace.thrift.RemoteSpan;
 import org.apache.accumulo.trace.thrift.SpanReceiver.Client;
 import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TProtocol;
-import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TIOStreamTransport;
 import org.apache.thrift.transport.TTransport;
+import org.apache.thrift.transport.TTransportException;
 
 
 /**
@@ -37,6 +40,25 @@ public class SendSpansViaThrift extends AsyncSpanReceiver<String,Client> {
   
   private static final String THRIFT = "thrift://";
   
+  private static final int BATCH_BUFFER_SIZE = 64 * 1024;
+  
+  /**
+   * Spans are sent one way, so nothing needs to be written until the end of a batch. This transport ignores the flush after each span and writes the whole
+   * batch when {@link #flushBatch()} is called.
+   */
+  private static class BatchingTransport extends TIOStreamTransport {
+    BatchingTransport(Socket sock) throws IOException {
+      super(sock.getInputStream(), new BufferedOutputStream(sock.getOutputStream(), BATCH_BUFFER_SIZE));
+    }
+    
+    @Override
+    public void flush() {}
+    
+    void flushBatch() throws TTransportException {
+      super.flush();
+    }
+  }
+  
   public SendSpansViaThrift(String host, String service, long millis) {
     super(host, service, millis);
   }
@@ -51,7 +73,7 @@ public class SendSpansViaThrift extends AsyncSpanReceiver<String,Client> {
       InetSocketAddress addr = new InetSocketAddress(hostAddr[0], Integer.parseInt(hostAddr[1]));
       Socket sock = new Socket();
       sock.connect(addr);
-      TTransport transport = new TSocket(sock);
+      TTransport transport = new BatchingTransport(sock);
       TProtocol prot = new TBinaryProtocol(transport);
       return new Client(prot);
     } catch (Exception ex) {
@@ -72,6 +94,18 @@ public class SendSpansViaThrift extends AsyncSpanReceiver<String,Client> {
     }
   }
   
+  @Override
+  protected void flush(Client client) throws Exception {
+    if (client != null) {
+      TTransport transport = client.getOutputProtocol().getTransport();
+      try {
+        ((BatchingTransport) transport).flushBatch();
+      } catch (Exception ex) {
+        transport.close();
+      }
+    }
+  }
+  
   protected String getSpanKey(Map<String,String> data) {
     String dest = data.get("dest");
     if (dest != null && dest.startsWith(THRIFT)) {
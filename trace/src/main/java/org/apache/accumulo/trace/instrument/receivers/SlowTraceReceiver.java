@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.trace.instrument.receivers;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.apache.accumulo.trace.instrument.Span;
+import org.apache.log4j.Logger;
+
+/**
+ * Holds spans in memory until their trace is done, and passes on only the traces that took at least a threshold to another receiver.
+ * 
+ * A trace is done when its root span is seen. Spans of traces started in other processes never include the root, so those traces are done when no spans have
+ * been seen for them for a while, and are judged by the time their spans in this process cover.
+ * 
+ * Each process judges a trace by the spans it holds, so a trace kept by one process may be missing the spans other processes dropped.
+ * 
+ * @since 1.6.0
+ */
+public class SlowTraceReceiver implements SpanReceiver {
+  
+  private static final Logger log = Logger.getLogger(SlowTraceReceiver.class);
+  
+  static final long DEFAULT_IDLE_MILLIS = 10 * 1000;
+  
+  // bound the memory used by held spans; the oldest traces are judged early when either of the first two limits is reached, and spans beyond the limit of a
+  // trace are dropped
+  static final int MAX_PENDING_TRACES = 10000;
+  static final int MAX_HELD_SPANS = 100000;
+  static final int MAX_SPANS_PER_TRACE = 1000;
+  
+  private static class HeldSpan {
+    final long spanId;
+    final long parentId;
+    final long start;
+    final long stop;
+    final String description;
+    final Map<String,String> data;
+    
+    HeldSpan(long spanId, long parentId, long start, long stop, String description, Map<String,String> data) {
+      this.spanId = spanId;
+      this.parentId = parentId;
+      this.start = start;
+      this.stop = stop;
+      this.description = description;
+      this.data = data;
+    }
+  }
+  
+  private static class PendingTrace {
+    final long traceId;
+    final List<HeldSpan> spans = new ArrayList<HeldSpan>();
+    long start = Long.MAX_VALUE;
+    long stop = Long.MIN_VALUE;
+    long lastSeen;
+    int dropped = 0;
+    
+    PendingTrace(long traceId) {
+      this.traceId = traceId;
+    }
+    
+    long millis() {
+      return stop - start;
+    }
+  }
+  
+  private final SpanReceiver receiver;
+  private final long thresholdMillis;
+  private final long idleMillis;
+  
+  // in the order traces were first seen, guarded by this
+  private final LinkedHashMap<Long,PendingTrace> pending = new LinkedHashMap<Long,PendingTrace>();
+  // the spans held by all pending traces, guarded by this
+  private int heldSpans = 0;
+  
+  private final Timer timer = new Timer("SlowTraceExpiration", true);
+  
+  public SlowTraceReceiver(SpanReceiver receiver, long thresholdMillis) {
+    this(receiver, thresholdMillis, DEFAULT_IDLE_MILLIS);
+  }
+  
+  /**
+   * @param receiver
+   *          the receiver slow traces are passed to
+   * @param thresholdMillis
+   *          traces taking less than this are dropped
+   * @param idleMillis
+   *          how long to wait for more spans of a trace whose root span is in another process
+   */
+  public SlowTraceReceiver(SpanReceiver receiver, long thresholdMillis, long idleMillis) {
+    this.receiver = receiver;
+    this.thresholdMillis = thresholdMillis;
+    this.idleMillis = idleMillis;
+    timer.schedule(new TimerTask() {
+      @Override
+      public void run() {
+        try {
+          expire(System.currentTimeMillis());
+        } catch (Exception ex) {
+          log.warn("Exception passing on slow traces", ex);
+        }
+      }
+    }, idleMillis, idleMillis);
+  }
+  
+  @Override
+  public void span(long traceId, long spanId, long parentId, long start, long stop, String description, Map<String,String> data) {
+    List<PendingTrace> done = new ArrayList<PendingTrace>();
+    
+    synchronized (this) {
+      PendingTrace trace = pending.get(traceId);
+      if (trace == null) {
+        if (pending.size() >= MAX_PENDING_TRACES)
+          done.add(removeOldest());
+        trace = new PendingTrace(traceId);
+        pending.put(traceId, trace);
+      }
+      
+      if (trace.spans.size() < MAX_SPANS_PER_TRACE) {
+        // judge the oldest traces until this span fits; if that includes this trace, its held spans are judged and the rest of it is judged separately
+        while (heldSpans >= MAX_HELD_SPANS) {
+          PendingTrace oldest = removeOldest();
+          done.add(oldest);
+          if (oldest == trace) {
+            trace = new PendingTrace(traceId);
+            pending.put(traceId, trace);
+          }
+        }
+        trace.spans.add(new HeldSpan(spanId, parentId, start, stop, description, data));
+        heldSpans++;
+      } else {
+        trace.dropped++;
+      }
+      trace.start = Math.min(trace.start, start);
+      trace.stop = Math.max(trace.stop, stop);
+      trace.lastSeen = System.currentTimeMillis();
+      
+      if (parentId == Span.ROOT_SPAN_ID) {
+        pending.remove(traceId);
+        heldSpans -= trace.spans.size();
+        done.add(trace);
+      }
+    }
+    
+    deliver(done);
+  }
+  
+  /**
+   * Judges the traces that have not had spans since idleMillis before now.
+   */
+  void expire(long now) {
+    List<PendingTrace> done = new ArrayList<PendingTrace>();
+    synchronized (this) {
+      Iterator<PendingTrace> iter = pending.values().iterator();
+      while (iter.hasNext()) {
+        PendingTrace trace = iter.next();
+        if (now - trace.lastSeen >= idleMillis) {
+          done.add(trace);
+          iter.remove();
+          heldSpans -= trace.spans.size();
+        }
+      }
+    }
+    deliver(done);
+  }
+  
+  private PendingTrace removeOldest() {
+    Iterator<PendingTrace> oldest = pending.values().iterator();
+    PendingTrace trace = oldest.next();
+    oldest.remove();
+    heldSpans -= trace.spans.size();
+    return trace;
+  }
+  
+  synchronized int getHeldSpans() {
+    return heldSpans;
+  }
+  
+  private void deliver(List<PendingTrace> traces) {
+    for (PendingTrace trace : traces) {
+      if (trace.millis() < thresholdMillis)
+        continue;
+      if (trace.dropped > 0)
+        log.debug("Dropped " + trace.dropped + " spans of slow trace " + Long.toHexString(trace.traceId));
+      for (HeldSpan span : trace.spans)
+        receiver.span(trace.traceId, span.spanId, span.parentId, span.start, span.stop, span.description, span.data);
+    }
+  }
+  
+  /**
+   * Judges every pending trace, whether or not it is done, so the slow ones are not lost when the process stops. Trace.off() calls this as a trace rooted in
+   * this process ends, after its root span was judged.
+   */
+  @Override
+  public void flush() {
+    expire(Long.MAX_VALUE);
+    receiver.flush();
+  }
+}
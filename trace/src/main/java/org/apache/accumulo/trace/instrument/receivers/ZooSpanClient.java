@@ -92,10 +92,10 @@ public class ZooSpanClient extends SendSpansViaThrift {
     if (hosts.isEmpty()) {
       if (!sendQueue.isEmpty()) {
         log.error("No hosts to send data to, dropping queued spans");
-        synchronized (sendQueue) {
-          sendQueue.clear();
-          sendQueue.notifyAll();
-        }
+        int count = 0;
+        while (sendQueue.poll() != null)
+          count++;
+        removed(count);
       }
     } else {
       super.sendSpans();
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.trace.instrument;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AdaptiveSamplerTest {
+  
+  static class TestSampler extends AdaptiveSampler {
+    long now = 1000;
+    
+    TestSampler(double tracesPerSecond, long slowMillis) {
+      super(tracesPerSecond, slowMillis);
+    }
+    
+    @Override
+    protected long currentTimeMillis() {
+      return now;
+    }
+  }
+  
+  private static int count(AdaptiveSampler sampler, String operation, int calls) {
+    int sampled = 0;
+    for (int i = 0; i < calls; i++)
+      if (sampler.next(operation))
+        sampled++;
+    return sampled;
+  }
+  
+  @Test
+  public void testRateLimit() {
+    TestSampler sampler = new TestSampler(2, 0);
+    
+    // the first call of each operation is traced, and each operation has its own rate
+    assertTrue(sampler.next("scan"));
+    assertTrue(sampler.next("write"));
+    assertFalse(sampler.next("scan"));
+    
+    // two traces a second, no matter how many calls
+    sampler.now += 1000;
+    assertEquals(2, count(sampler, "scan", 1000));
+    sampler.now += 500;
+    assertEquals(1, count(sampler, "scan", 1000));
+    
+    // unused traces only accumulate up to a second's worth
+    sampler.now += 60 * 1000;
+    assertEquals(2, count(sampler, "scan", 1000));
+    
+    // slow calls are ignored when slowMillis is 0
+    sampler.observe("scan", 60 * 1000);
+    sampler.now += 1000;
+    assertEquals(2, count(sampler, "scan", 1000));
+  }
+  
+  @Test
+  public void testBoost() {
+    TestSampler sampler = new TestSampler(1, 100);
+    assertTrue(sampler.next("scan"));
+    
+    sampler.observe("scan", 99);
+    sampler.now += 1000;
+    assertEquals(1, count(sampler, "scan", 1000));
+    
+    // a slow call raises the rate of its operation only
+    sampler.observe("scan", 100);
+    sampler.now += 1000;
+    assertEquals(AdaptiveSampler.BOOST_FACTOR, count(sampler, "scan", 1000));
+    assertEquals(1, count(sampler, "write", 1000));
+    
+    // until the boost expires
+    sampler.now += AdaptiveSampler.BOOST_MILLIS;
+    sampler.next("scan");
+    sampler.now += 1000;
+    assertEquals(1, count(sampler, "scan", 1000));
+  }
+  
+  @Test
+  public void testProxy() {
+    final int[] calls = new int[1];
+    Runnable r = new Runnable() {
+      @Override
+      public void run() {
+        calls[0]++;
+      }
+    };
+    TestSampler sampler = new TestSampler(1, 0);
+    Runnable traced = TraceProxy.trace(r, sampler);
+    for (int i = 0; i < 10; i++)
+      traced.run();
+    assertEquals(10, calls[0]);
+    // only the first call was traced
+    assertFalse(sampler.next("run"));
+    assertFalse(Trace.isTracing());
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.accumulo.trace.instrument.receivers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.accumulo.trace.instrument.Span;
+import org.junit.Test;
+
+public class SlowTraceReceiverTest {
+  
+  static class ListReceiver implements SpanReceiver {
+    List<Long> spans = new ArrayList<Long>();
+    
+    @Override
+    public void span(long traceId, long spanId, long parentId, long start, long stop, String description, Map<String,String> data) {
+      spans.add(spanId);
+    }
+    
+    @Override
+    public void flush() {}
+  }
+  
+  private static final Map<String,String> NO_DATA = Collections.emptyMap();
+  
+  @Test
+  public void testRootedTraces() {
+    ListReceiver received = new ListReceiver();
+    SlowTraceReceiver receiver = new SlowTraceReceiver(received, 100, 60 * 1000);
+    
+    // a fast trace is dropped when its root is seen
+    receiver.span(1, 11, 10, 1000, 1010, "child", NO_DATA);
+    receiver.span(1, 10, Span.ROOT_SPAN_ID, 1000, 1050, "root", NO_DATA);
+    assertEquals(0, received.spans.size());
+    
+    // a slow trace is passed on, children included, when its root is seen
+    receiver.span(2, 21, 20, 1000, 1010, "child", NO_DATA);
+    assertEquals(0, received.spans.size());
+    receiver.span(2, 20, Span.ROOT_SPAN_ID, 1000, 1100, "root", NO_DATA);
+    assertEquals(2, received.spans.size());
+    assertTrue(received.spans.contains(20l));
+    assertTrue(received.spans.contains(21l));
+    
+    // nothing is left waiting
+    receiver.expire(Long.MAX_VALUE);
+    assertEquals(2, received.spans.size());
+  }
+  
+  @Test
+  public void testRemoteTraces() {
+    ListReceiver received = new ListReceiver();
+    SlowTraceReceiver receiver = new SlowTraceReceiver(received, 100, 60 * 1000);
+    
+    // traces whose root is in another process wait until they are idle, and are judged by the time their spans here cover
+    receiver.span(3, 31, 99, 1000, 1060, "a", NO_DATA);
+    receiver.span(3, 32, 99, 1050, 1100, "b", NO_DATA);
+    receiver.span(4, 41, 99, 1000, 1090, "c", NO_DATA);
+    receiver.expire(System.currentTimeMillis());
+    assertEquals(0, received.spans.size());
+    
+    receiver.expire(System.currentTimeMillis() + 60 * 1000);
+    assertEquals(2, received.spans.size());
+    assertTrue(received.spans.contains(31l));
+    assertTrue(received.spans.contains(32l));
+  }
+  
+  @Test
+  public void testHeldSpansLimit() {
+    ListReceiver received = new ListReceiver();
+    SlowTraceReceiver receiver = new SlowTraceReceiver(received, 100, 60 * 1000);
+    
+    // fill the limit with slow traces whose roots are elsewhere, one more span judges the oldest trace early
+    int traces = SlowTraceReceiver.MAX_HELD_SPANS / SlowTraceReceiver.MAX_SPANS_PER_TRACE;
+    for (int t = 0; t < traces; t++)
+      for (int i = 0; i < SlowTraceReceiver.MAX_SPANS_PER_TRACE; i++)
+        receiver.span(t, i, 99, 1000, 1200, "slow", NO_DATA);
+    assertEquals(SlowTraceReceiver.MAX_HELD_SPANS, receiver.getHeldSpans());
+    assertEquals(0, received.spans.size());
+    
+    receiver.span(traces, 0, 99, 1000, 1200, "slow", NO_DATA);
+    assertEquals(SlowTraceReceiver.MAX_SPANS_PER_TRACE, received.spans.size());
+    assertEquals(SlowTraceReceiver.MAX_HELD_SPANS - SlowTraceReceiver.MAX_SPANS_PER_TRACE + 1, receiver.getHeldSpans());
+    
+    receiver.flush();
+    assertEquals(0, receiver.getHeldSpans());
+    assertEquals(SlowTraceReceiver.MAX_HELD_SPANS + 1, received.spans.size());
+  }
+  
+  @Test
+  public void testFlush() {
+    ListReceiver received = new ListReceiver();
+    SlowTraceReceiver receiver = new SlowTraceReceiver(received, 100, 60 * 1000);
+    
+    // flushing judges the traces still waiting, so they are not lost
+    receiver.span(5, 51, 50, 1000, 1200, "slow", NO_DATA);
+    receiver.span(6, 61, 60, 1000, 1010, "fast", NO_DATA);
+    receiver.flush();
+    assertEquals(1, received.spans.size());
+    assertTrue(received.spans.contains(51l));
+    
+    receiver.expire(Long.MAX_VALUE);
+    assertEquals(1, received.spans.size());
+  }
+}